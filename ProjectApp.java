@@ -1,36 +1,60 @@
-package javafx.fxtest;
-
-import javafx.application.Application;
-import javafx.fxtest.model.model.SudokuBoard;
-import javafx.fxtest.model.model.SudokuUtilities;
-import javafx.scene.Scene;
-import javafx.scene.control.MenuBar;
-import javafx.scene.layout.VBox;
-import javafx.stage.Stage;
-import javafx.fxtest.model.view.GridView;
-import javafx.fxtest.model.view.Controller;
-
-
-public class ProjectApp extends Application {
-
-
-   public static void main(String[] args) {
-      launch(args);
-   }
-
-   @Override
-   public void start(Stage stage) throws Exception {
-
-      int[][][] generatedMatrix = SudokuUtilities.generateSudokuMatrix(SudokuUtilities.SudokuLevel.EASY);
-      GridView view = new GridView();
-      Controller controller = new Controller(new SudokuBoard(generatedMatrix, SudokuUtilities.SudokuLevel.EASY), view);
-      MenuBar menuBar = view.getMenuBar();
-      VBox root = new VBox(menuBar,view);
-      Scene scene = new Scene(root);
-      stage.setScene(scene);
-      stage.sizeToScene();
-      stage.setResizable(false);
-      stage.setTitle("Sudoku");
-      stage.show();
-   }
+package javafx.fxtest;
+
+import javafx.application.Application;
+import javafx.scene.Scene;
+import javafx.scene.control.MenuBar;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import javafx.fxtest.model.view.Controller;
+import javafx.fxtest.model.view.GridView;
+
+import java.lang.management.ManagementFactory;
+
+
+public class ProjectApp extends Application {
+
+   private GridView view;
+
+   public static void main(String[] args) {
+      launch(args);
+   }
+
+   /**
+    * Shows the window as soon as the view is made, which never waits for a puzzle to be generated,
+    * and prints how long it took until the first frame was drawn. The solvers are warmed up after that,
+    * so the warm up doesn't delay the first frame.
+    */
+   @Override
+   public void start(Stage stage) throws Exception {
+      long started = System.nanoTime();
+
+      view = new GridView();
+      MenuBar menuBar = view.getMenuBar();
+      VBox root = new VBox(menuBar,view);
+      Scene scene = new Scene(root);
+      stage.setScene(scene);
+      stage.sizeToScene();
+      stage.setResizable(false);
+      stage.setTitle("Sudoku");
+      // the first pulse after showing the window lays it out and draws it
+      scene.addPostLayoutPulseListener(new Runnable() {
+         @Override
+         public void run() {
+            scene.removePostLayoutPulseListener(this);
+            long sinceStart = (System.nanoTime() - started) / 1_000_000;
+            long sinceLaunch = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+            System.out.println("First frame " + sinceLaunch + " ms after launch, " + sinceStart + " ms after start");
+            Controller.warmUp();
+         }
+      });
+      stage.show();
+   }
+
+   /**
+    * Saves what is needed for the next start when the window is closed
+    */
+   @Override
+   public void stop() {
+      view.close();
+   }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package javafx.fxtest.model.bench;
+
+import javafx.fxtest.model.model.BatchGenerator;
+import javafx.fxtest.model.model.DifficultyGrader;
+import javafx.fxtest.model.model.PuzzleLibrary;
+import javafx.fxtest.model.model.SudokuUtilities;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Builds a {@link PuzzleLibrary} from a file written by {@link BatchGenerator}, grading every puzzle,
+ * and then measures random access to it.
+ *
+ * Usage: {@code BuildLibrary <batch file> <library file>}
+ */
+public class BuildLibrary {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: BuildLibrary <batch file> <library file>");
+            return;
+        }
+        int cellCount = SudokuUtilities.GRID_SIZE * SudokuUtilities.GRID_SIZE;
+
+        // first pass counts the puzzles of each level, so the writer can place every level in one block
+        int[] levelCounts = new int[SudokuUtilities.SudokuLevel.values().length];
+        try (BufferedReader in = new BufferedReader(new FileReader(args[0]))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.length() > 2 * cellCount + 2) {
+                    levelCounts[SudokuUtilities.SudokuLevel.valueOf(line.substring(2 * cellCount + 2)).ordinal()]++;
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        DifficultyGrader grader = new DifficultyGrader();
+        int[][][] puzzle = new int[SudokuUtilities.GRID_SIZE][SudokuUtilities.GRID_SIZE][2];
+        Path file = Paths.get(args[1]);
+        try (BufferedReader in = new BufferedReader(new FileReader(args[0]));
+             PuzzleLibrary.Writer out = new PuzzleLibrary.Writer(file, SudokuUtilities.SECTION_SIZE, levelCounts)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.length() <= 2 * cellCount + 2) {
+                    continue;
+                }
+                for (int cell = 0; cell < cellCount; cell++) {
+                    char given = line.charAt(cell);
+                    int[] values = puzzle[cell / SudokuUtilities.GRID_SIZE][cell % SudokuUtilities.GRID_SIZE];
+                    values[0] = given >= '1' && given <= '9' ? given - '0' : 0;
+                    values[1] = line.charAt(cellCount + 1 + cell) - '0';
+                }
+                SudokuUtilities.SudokuLevel level = SudokuUtilities.SudokuLevel.valueOf(line.substring(2 * cellCount + 2));
+                out.add(puzzle, level, grader.grade(puzzle).getRating());
+            }
+        }
+        System.out.printf("Wrote %d puzzles to %s in %.2fs%n",
+                levelCounts[0] + levelCounts[1] + levelCounts[2], file, (System.nanoTime() - start) / 1e9);
+
+        try (PuzzleLibrary library = PuzzleLibrary.open(file)) {
+            if (library.size() == 0) {
+                return;
+            }
+            int reads = 1_000_000;
+            for (int pass = 0; pass < 2; pass++) {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long checksum = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < reads; i++) {
+                    int index = random.nextInt(library.size());
+                    for (int cell = 0; cell < cellCount; cell++) {
+                        checksum += library.getGiven(index, cell);
+                    }
+                }
+                long readNanos = System.nanoTime() - start;
+                start = System.nanoTime();
+                for (int i = 0; i < reads / 10; i++) {
+                    checksum += library.getBoard(random.nextInt(library.size())).getCurrentValue(0, 0);
+                }
+                long boardNanos = System.nanoTime() - start;
+                if (pass == 1) {
+                    System.out.printf("Random puzzle read in place: %.0f ns, as a SudokuBoard: %.0f ns (checksum %d)%n",
+                            (double) readNanos / reads, (double) boardNanos / (reads / 10), checksum);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package javafx.fxtest.model.bench;
+
+import javafx.fxtest.model.model.LongHashSet;
+import javafx.fxtest.model.model.PuzzleCanonicalizer;
+import javafx.fxtest.model.model.SudokuUtilities;
+
+/**
+ * Measures how many puzzles a {@link PuzzleCanonicalizer} can canonicalize per second.
+ *
+ * Usage: {@code CanonicalizerBenchmark [number of puzzles]}
+ */
+public class CanonicalizerBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        PuzzleCanonicalizer canonicalizer = new PuzzleCanonicalizer();
+        int[][][][] puzzles = new int[count][][][];
+        for (int i = 0; i < count; i++) {
+            SudokuUtilities.SudokuLevel level = SudokuUtilities.SudokuLevel.values()[i % 3];
+            puzzles[i] = SudokuUtilities.generateSudokuMatrix(level, i);
+        }
+        LongHashSet seen = new LongHashSet();
+        int rounds = 10;
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (int[][][] puzzle : puzzles) {
+                seen.add(canonicalizer.canonicalHash(puzzle));
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d distinct of %d, %.1f us per puzzle, %.0f puzzles/sec%n", seen.size(), count,
+                seconds * 1e6 / (count * rounds), count * rounds / seconds);
+    }
+}
@@ -0,0 +1,122 @@
+package javafx.fxtest.model.bench;
+
+import javafx.fxtest.model.model.BoardCodec;
+import javafx.fxtest.model.model.FileHandler;
+import javafx.fxtest.model.model.SudokuBoard;
+import javafx.fxtest.model.model.SudokuUtilities;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Measures saving and loading games with {@link FileHandler} in the {@link BoardCodec} format against Java serialization,
+ * both in memory and through files, and prints the size and time per game of each.
+ *
+ * Usage: {@code FileFormatBenchmark [number of games]}
+ */
+public class FileFormatBenchmark {
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int rounds = 100;
+        int warmUpPasses = 3;
+        SudokuBoard[] boards = new SudokuBoard[games];
+        for (int i = 0; i < games; i++) {
+            SudokuUtilities.SudokuLevel level = SudokuUtilities.SudokuLevel.values()[i % 3];
+            boards[i] = new SudokuBoard(SudokuUtilities.generateSudokuMatrix(level, i), level);
+        }
+        File file = File.createTempFile("benchmark", ".sudoku");
+        file.deleteOnExit();
+
+        for (int pass = 0; pass <= warmUpPasses; pass++) {
+            // the first passes warm up the JIT and are not printed
+            boolean print = pass == warmUpPasses;
+            byte[][] serialized = new byte[games][];
+            byte[][] encoded = new byte[games][];
+            long serializeNanos = 0;
+            long deserializeNanos = 0;
+            long encodeNanos = 0;
+            long decodeNanos = 0;
+
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < games; i++) {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                        out.writeObject(boards[i]);
+                    }
+                    serialized[i] = bytes.toByteArray();
+                }
+                long middle = System.nanoTime();
+                for (int i = 0; i < games; i++) {
+                    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized[i]))) {
+                        in.readObject();
+                    }
+                }
+                long end = System.nanoTime();
+                serializeNanos += middle - start;
+                deserializeNanos += end - middle;
+
+                start = System.nanoTime();
+                for (int i = 0; i < games; i++) {
+                    encoded[i] = BoardCodec.encode(boards[i]);
+                }
+                middle = System.nanoTime();
+                for (int i = 0; i < games; i++) {
+                    BoardCodec.decode(encoded[i], 0, encoded[i].length);
+                }
+                end = System.nanoTime();
+                encodeNanos += middle - start;
+                decodeNanos += end - middle;
+            }
+            long serializedBytes = 0;
+            long encodedBytes = 0;
+            for (int i = 0; i < games; i++) {
+                serializedBytes += serialized[i].length;
+                encodedBytes += encoded[i].length;
+            }
+
+            long fileSerializeNanos = 0;
+            long fileDeserializeNanos = 0;
+            long fileSaveNanos = 0;
+            long fileLoadNanos = 0;
+            for (SudokuBoard board : boards) {
+                long start = System.nanoTime();
+                try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
+                    out.writeObject(board);
+                }
+                long middle = System.nanoTime();
+                try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
+                    in.readObject();
+                }
+                long end = System.nanoTime();
+                fileSerializeNanos += middle - start;
+                fileDeserializeNanos += end - middle;
+
+                start = System.nanoTime();
+                FileHandler.serializeToFile(board, file);
+                middle = System.nanoTime();
+                FileHandler.deserializeFromFile(file);
+                end = System.nanoTime();
+                fileSaveNanos += middle - start;
+                fileLoadNanos += end - middle;
+            }
+
+            if (print) {
+                long operations = (long) games * rounds;
+                System.out.printf("Java serialization: %5d bytes, write %7.2f us, read %7.2f us, file save %7.2f us, file load %7.2f us%n",
+                        serializedBytes / games, serializeNanos / 1e3 / operations, deserializeNanos / 1e3 / operations,
+                        fileSerializeNanos / 1e3 / games, fileDeserializeNanos / 1e3 / games);
+                System.out.printf("Binary format:      %5d bytes, write %7.2f us, read %7.2f us, file save %7.2f us, file load %7.2f us%n",
+                        encodedBytes / games, encodeNanos / 1e3 / operations, decodeNanos / 1e3 / operations,
+                        fileSaveNanos / 1e3 / games, fileLoadNanos / 1e3 / games);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package javafx.fxtest.model.bench;
+
+import javafx.fxtest.model.model.BatchGenerator;
+import javafx.fxtest.model.model.SeededRandom;
+import javafx.fxtest.model.model.SudokuUtilities;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates puzzles into a file with a {@link BatchGenerator} on all cores, and prints how fast it went
+ * and the generation time percentiles of each level.
+ *
+ * Usage: {@code GenerateBatch <output file> <generations per level> [EASY|MEDIUM|HARD ...] [--variants=N] [--seed=N] [--dedupe]}
+ */
+public class GenerateBatch {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: GenerateBatch <output file> <generations per level> [EASY|MEDIUM|HARD ...] [--variants=N] [--seed=N] [--dedupe]");
+            return;
+        }
+        File file = new File(args[0]);
+        int count = Integer.parseInt(args[1]);
+        int variants = 0;
+        long batchSeed = SeededRandom.randomSeed();
+        boolean dedupe = false;
+        List<SudokuUtilities.SudokuLevel> chosenLevels = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith("--variants=")) {
+                variants = Integer.parseInt(args[i].substring("--variants=".length()));
+            } else if (args[i].startsWith("--seed=")) {
+                batchSeed = Long.parseLong(args[i].substring("--seed=".length()));
+            } else if (args[i].equals("--dedupe")) {
+                dedupe = true;
+            } else {
+                chosenLevels.add(SudokuUtilities.SudokuLevel.valueOf(args[i].toUpperCase()));
+            }
+        }
+        SudokuUtilities.SudokuLevel[] levels = chosenLevels.isEmpty()
+                ? SudokuUtilities.SudokuLevel.values()
+                : chosenLevels.toArray(new SudokuUtilities.SudokuLevel[0]);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        try (Writer out = new BufferedWriter(new FileWriter(file), 1 << 16)) {
+            BatchGenerator generator = new BatchGenerator(out, cores, variants, batchSeed);
+            if (dedupe) {
+                generator.skipDuplicates();
+            }
+            generator.generate(count, levels);
+            generator.shutdown();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long total = (long) count * levels.length * (1 + variants);
+            System.out.printf("Generated %d puzzles on %d threads in %.2fs (%.0f puzzles/sec)%n",
+                    total, cores, seconds, total / seconds);
+            if (dedupe) {
+                System.out.println("Skipped " + generator.getDuplicates() + " duplicates");
+            }
+            System.out.print(generator.latencyReport());
+        }
+    }
+}
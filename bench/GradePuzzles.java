@@ -0,0 +1,60 @@
+package javafx.fxtest.model.bench;
+
+import javafx.fxtest.model.model.BatchGenerator;
+import javafx.fxtest.model.model.DifficultyGrader;
+import javafx.fxtest.model.model.Technique;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static javafx.fxtest.model.model.SudokuUtilities.GRID_SIZE;
+
+/**
+ * Grades every puzzle of a file with a {@link DifficultyGrader} and prints how many puzzles needed each technique
+ * and how fast it went. Each line starts with the 81 cells of a puzzle, with '.' or '0' for empty cells,
+ * such as the files written by {@link BatchGenerator}.
+ *
+ * Usage: {@code GradePuzzles <puzzle file>}
+ */
+public class GradePuzzles {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: GradePuzzles <puzzle file>");
+            return;
+        }
+        DifficultyGrader grader = new DifficultyGrader();
+        Map<Technique, Integer> counts = new EnumMap<>(Technique.class);
+        int[] grid = new int[GRID_SIZE * GRID_SIZE];
+        long puzzles = 0;
+        long nanos = 0;
+
+        try (BufferedReader in = new BufferedReader(new FileReader(args[0]))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.length() < grid.length) {
+                    continue;
+                }
+                for (int cell = 0; cell < grid.length; cell++) {
+                    char c = line.charAt(cell);
+                    grid[cell] = c >= '1' && c <= '9' ? c - '0' : 0;
+                }
+                long start = System.nanoTime();
+                DifficultyGrader.Grade grade = grader.grade(grid);
+                nanos += System.nanoTime() - start;
+                puzzles++;
+                if (grade.getHardestTechnique() != null) {
+                    counts.merge(grade.getHardestTechnique(), 1, Integer::sum);
+                }
+            }
+        }
+
+        for (Map.Entry<Technique, Integer> entry : counts.entrySet()) {
+            System.out.printf("%-16s %d%n", entry.getKey(), entry.getValue());
+        }
+        System.out.printf("Graded %d puzzles (%.0f puzzles/sec)%n", puzzles, puzzles / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,42 @@
+package javafx.fxtest.model.bench;
+
+import javafx.fxtest.model.model.HintEngine;
+import javafx.fxtest.model.model.SudokuBoard;
+import javafx.fxtest.model.model.SudokuUtilities;
+import javafx.fxtest.model.model.Technique;
+
+/**
+ * Plays puzzles to the end by {@link HintEngine} hints alone and prints how long finding a hint takes
+ * and which techniques were used.
+ *
+ * Usage: {@code HintEngineBenchmark [number of puzzles]}
+ */
+public class HintEngineBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        HintEngine engine = new HintEngine();
+        int[] techniques = new int[Technique.values().length];
+        long hints = 0;
+        long nanos = 0;
+        for (int i = 0; i < count; i++) {
+            SudokuUtilities.SudokuLevel level = SudokuUtilities.SudokuLevel.values()[i % SudokuUtilities.SudokuLevel.values().length];
+            SudokuBoard board = new SudokuBoard(SudokuUtilities.generateSudokuMatrix(level), level);
+            while (true) {
+                long start = System.nanoTime();
+                HintEngine.Hint hint = engine.findHint(board);
+                nanos += System.nanoTime() - start;
+                if (hint == null) {
+                    break;
+                }
+                hints++;
+                techniques[hint.getTechnique().ordinal()]++;
+                board.setCell(hint.getRow(), hint.getCol(), hint.getDigit());
+            }
+        }
+        System.out.printf("%d hints in %d puzzles, %.1f us per hint%n", hints, count, nanos / 1e3 / hints);
+        for (Technique technique : Technique.values()) {
+            System.out.println(technique + ": " + techniques[technique.ordinal()]);
+        }
+    }
+}
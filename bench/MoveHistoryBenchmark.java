@@ -0,0 +1,53 @@
+package javafx.fxtest.model.bench;
+
+import javafx.fxtest.model.model.MoveHistory;
+import javafx.fxtest.model.model.SeededRandom;
+import javafx.fxtest.model.model.SudokuBoard;
+import javafx.fxtest.model.model.SudokuUtilities;
+
+import static javafx.fxtest.model.model.MoveHistory.CLEAR;
+import static javafx.fxtest.model.model.MoveHistory.PLACE;
+
+/**
+ * Plays random moves on a board recorded in a {@link MoveHistory}, then undoes and redoes all of them,
+ * and prints how long each took.
+ *
+ * Usage: {@code MoveHistoryBenchmark [number of moves]}
+ */
+public class MoveHistoryBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        SudokuBoard board = new SudokuBoard(SudokuUtilities.generateSudokuMatrix(SudokuUtilities.SudokuLevel.EASY),
+                SudokuUtilities.SudokuLevel.EASY);
+        int gridSize = board.getGridSize();
+        int[] free = new int[gridSize * gridSize];
+        int freeCount = 0;
+        for (int cell = 0; cell < free.length; cell++) {
+            if (!board.isCellImmutable(cell / gridSize, cell % gridSize)) {
+                free[freeCount++] = cell;
+            }
+        }
+        MoveHistory history = new MoveHistory(Math.max(2, count));
+        SeededRandom random = new SeededRandom(1);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            int cell = free[random.nextInt(freeCount)];
+            int oldValue = board.getCurrentValue(cell / gridSize, cell % gridSize);
+            int newValue = random.nextInt(gridSize + 1);
+            board.setCell(cell / gridSize, cell % gridSize, newValue);
+            history.record(newValue == 0 ? CLEAR : PLACE, cell, oldValue, newValue, i % 10 != 0);
+        }
+        long played = System.nanoTime();
+        int[] changed = new int[1];
+        while (history.undo(board, cell -> changed[0]++) > 0) {
+        }
+        long undone = System.nanoTime();
+        while (history.redo(board, cell -> changed[0]++) > 0) {
+        }
+        long redone = System.nanoTime();
+        System.out.printf("%d moves: play and record %.1f ns, undo %.1f ns, redo %.1f ns per move, %d cells changed%n",
+                count, (played - start) / (double) count, (undone - played) / (double) count,
+                (redone - undone) / (double) count, changed[0]);
+    }
+}
@@ -0,0 +1,57 @@
+package javafx.fxtest.model.bench;
+
+import javafx.fxtest.model.model.FileHandler;
+import javafx.fxtest.model.model.MoveJournal;
+import javafx.fxtest.model.model.SudokuBoard;
+import javafx.fxtest.model.model.SudokuUtilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures what autosaving a move costs with the {@link MoveJournal}, and with saving the whole board to a file.
+ *
+ * Usage: {@code MoveJournalBenchmark [number of moves]}
+ */
+public class MoveJournalBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int moves = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        Path directory = Files.createTempDirectory("journal");
+        SudokuBoard board = new SudokuBoard(SudokuUtilities.generateSudokuMatrix(SudokuUtilities.SudokuLevel.MEDIUM),
+                SudokuUtilities.SudokuLevel.MEDIUM);
+        int gridSize = board.getGridSize();
+        int empty = 0;
+        while (board.isCellImmutable(empty / gridSize, empty % gridSize)) {
+            empty++;
+        }
+        int row = empty / gridSize;
+        int col = empty % gridSize;
+
+        long journalNanos;
+        MoveJournal journal = new MoveJournal(directory);
+        try {
+            journal.startSession(board);
+            long start = System.nanoTime();
+            for (int move = 0; move < moves; move++) {
+                int value = move % 2 == 0 ? board.getCorrectValue(row, col) : 0;
+                board.setCell(row, col, value);
+                journal.recordMove(row, col, value);
+            }
+            journalNanos = System.nanoTime() - start;
+        } finally {
+            journal.close();
+        }
+        System.out.printf("Journal: %.2f us per move including compactions, %d ns per append, %d snapshots written%n",
+                journalNanos / 1e3 / moves, journal.getAverageAppendNanos(), journal.getCompactions());
+        File file = directory.resolve("board.sudoku").toFile();
+        int saves = Math.min(moves, 2_000);
+        long start = System.nanoTime();
+        for (int move = 0; move < saves; move++) {
+            FileHandler.serializeToFile(board, file);
+        }
+        System.out.printf("Saving the whole board: %.2f us per move%n", (System.nanoTime() - start) / 1e3 / saves);
+    }
+}
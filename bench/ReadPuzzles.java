@@ -0,0 +1,78 @@
+package javafx.fxtest.model.bench;
+
+import javafx.fxtest.model.model.LongHashSet;
+import javafx.fxtest.model.model.PuzzleCanonicalizer;
+import javafx.fxtest.model.model.PuzzleTextReader;
+import javafx.fxtest.model.model.PuzzleTextWriter;
+import javafx.fxtest.model.model.SudokuUtilities;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Reads a puzzle file with a {@link PuzzleTextReader} and prints how fast it was read. The puzzles can be written
+ * to another file at the same time, in the format given by its extension, and can be solved and graded into boards
+ * as the game would load them. With --dedupe, puzzles equivalent to one read before are skipped,
+ * by their {@link PuzzleCanonicalizer} hash.
+ *
+ * Usage: {@code ReadPuzzles <puzzle file> [--export=<file>] [--boards] [--dedupe]}
+ */
+public class ReadPuzzles {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: ReadPuzzles <puzzle file> [--export=<file>] [--boards] [--dedupe]");
+            return;
+        }
+        Path exportFile = null;
+        boolean boards = false;
+        boolean dedupe = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--export=")) {
+                exportFile = Paths.get(args[i].substring("--export=".length()));
+            } else if (args[i].equals("--boards")) {
+                boards = true;
+            } else if (args[i].equals("--dedupe")) {
+                dedupe = true;
+            } else {
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        long start = System.nanoTime();
+        try (PuzzleTextReader reader = PuzzleTextReader.open(Paths.get(args[0]));
+             PuzzleTextWriter writer = exportFile == null ? null : PuzzleTextWriter.open(exportFile)) {
+            long count;
+            if (boards) {
+                int[] levels = new int[SudokuUtilities.SudokuLevel.values().length];
+                count = reader.boards().peek(board -> levels[board.getDifficulty().ordinal()]++).count();
+                System.out.println("Boards by level: " + Arrays.toString(levels)
+                        + ", without a unique solution: " + reader.getUnsolvable());
+            } else {
+                count = 0;
+                PuzzleCanonicalizer canonicalizer = new PuzzleCanonicalizer();
+                LongHashSet seen = new LongHashSet();
+                long duplicates = 0;
+                while (reader.next()) {
+                    if (dedupe && !seen.add(canonicalizer.canonicalHash(reader.getPuzzle()))) {
+                        duplicates++;
+                        continue;
+                    }
+                    if (writer != null) {
+                        writer.write(reader.getPuzzle());
+                    }
+                    count++;
+                }
+                if (dedupe) {
+                    System.out.println("Skipped " + duplicates + " duplicates");
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d puzzles, %d lines, %d rejected in %.2f s: %.0f lines/s, %.0f puzzles/s, %.1f MB/s%n",
+                    count, reader.getLines(), reader.getRejected(), seconds, reader.getLines() / seconds,
+                    count / seconds, reader.getBytesRead() / 1e6 / seconds);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package javafx.fxtest.model.bench;
+
+import javafx.fxtest.model.model.SaveArchive;
+import javafx.fxtest.model.model.SudokuBoard;
+import javafx.fxtest.model.model.SudokuUtilities;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Fills a {@link SaveArchive} with games and measures opening it and listing the slots,
+ * loading one slot, and replacing the game in one slot.
+ *
+ * Usage: {@code SaveArchiveBenchmark [number of slots]}
+ */
+public class SaveArchiveBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        Path file = Files.createTempFile("archive", ".sdka");
+        Files.delete(file);
+        try (SaveArchive archive = SaveArchive.open(file)) {
+            SudokuBoard board = new SudokuBoard(SudokuUtilities.generateSudokuMatrix(SudokuUtilities.SudokuLevel.MEDIUM),
+                    SudokuUtilities.SudokuLevel.MEDIUM);
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                archive.save("Game " + i, board);
+            }
+            System.out.printf("Saved %d slots in %.1f ms, file is %d bytes%n", count,
+                    (System.nanoTime() - start) / 1e6, Files.size(file));
+        }
+        for (int pass = 0; pass < 5; pass++) {
+            long start = System.nanoTime();
+            try (SaveArchive archive = SaveArchive.open(file)) {
+                List<SaveArchive.Slot> listed = archive.list();
+                long listedAt = System.nanoTime();
+                SudokuBoard loaded = archive.load(listed.get(listed.size() / 2));
+                long loadedAt = System.nanoTime();
+                archive.save(listed.get(0).getName(), loaded);
+                long savedAt = System.nanoTime();
+                if (pass == 4) {
+                    System.out.printf("Open and list %d slots %.1f us, load one %.1f us, replace one %.1f us, size %d bytes%n",
+                            listed.size(), (listedAt - start) / 1e3, (loadedAt - listedAt) / 1e3, (savedAt - loadedAt) / 1e3,
+                            Files.size(file));
+                    System.out.println(listed.get(0));
+                }
+            }
+        }
+        Files.delete(file);
+    }
+}
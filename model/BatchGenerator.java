@@ -0,0 +1,233 @@
+package javafx.fxtest.model.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static javafx.fxtest.model.model.SudokuUtilities.GRID_SIZE;
+
+/**
+ * Generates large numbers of puzzles without starting the user interface.
+ * Generations run in parallel on a fork/join pool with one thread per core and every puzzle is
+ * written to the output file as soon as it is done, one line per puzzle:
+ * the 81 initial values with '.' for empty cells, the 81 values of the solution and the level,
+ * separated by commas.
+ * Each generation can also write a number of variants derived from it with a {@link PuzzleTransformer},
+ * which are nearly free compared to a generation.
+ * Generation i of a level uses a seed mixed from the batch seed and i, so a batch started with the same
+ * seed writes the same puzzles, and any single puzzle can be regenerated from its {@link PuzzleId}.
+ * When all puzzles are done {@link #latencyReport()} gives the generation time percentiles of each level,
+ * together with the id of the slowest generation.
+ * Puzzles equivalent to one already written can be skipped, see {@link #skipDuplicates()}.
+ * <p>
+ * The {@code GenerateBatch} tool runs a batch from the command line.
+ */
+public class BatchGenerator {
+
+    private static final int SPLIT_THRESHOLD = 32;
+
+    private final ForkJoinPool pool;
+    private final Writer out;
+    private final int variants;
+    private final long batchSeed;
+    private final Map<SudokuUtilities.SudokuLevel, long[]> latencies = new EnumMap<>(SudokuUtilities.SudokuLevel.class);
+    private LongHashSet written; // canonical hashes of the puzzles written, null when duplicates are kept
+    private long duplicates;
+
+    /**
+     * Creates a generator writing to the given output.
+     *
+     * @param out Receives one line per generated puzzle.
+     * @param parallelism The number of threads generating puzzles.
+     */
+    public BatchGenerator(Writer out, int parallelism) {
+        this(out, parallelism, 0, SeededRandom.randomSeed());
+    }
+
+    /**
+     * Creates a generator writing to the given output that also writes derived variants of every puzzle.
+     *
+     * @param out Receives one line per generated or derived puzzle.
+     * @param parallelism The number of threads generating puzzles.
+     * @param variants The number of puzzles derived from each generated puzzle.
+     * @param batchSeed The seed all generation seeds of the batch are made from.
+     */
+    public BatchGenerator(Writer out, int parallelism, int variants, long batchSeed) {
+        this.out = out;
+        this.pool = new ForkJoinPool(parallelism);
+        this.variants = variants;
+        this.batchSeed = batchSeed;
+    }
+
+    /**
+     * Returns the seed of generation number index of a level.
+     *
+     * @param level The difficulty level.
+     * @param index The number of the generation within the level.
+     * @return The seed of the generation.
+     */
+    public long seedOf(SudokuUtilities.SudokuLevel level, int index) {
+        return SeededRandom.mix(batchSeed + ((long) level.ordinal() << 40) + index);
+    }
+
+    /**
+     * Makes the generator skip every puzzle that is equivalent to one it has already written,
+     * as recognized by the canonical form of {@link PuzzleCanonicalizer}. Derived variants are always equivalent
+     * to the puzzle they were derived from, so with this only the generated puzzles are written.
+     */
+    public void skipDuplicates() {
+        written = new LongHashSet();
+    }
+
+    /**
+     * Returns the number of puzzles that were skipped as duplicates
+     * @return number of duplicates
+     */
+    public long getDuplicates() {
+        synchronized (out) {
+            return duplicates;
+        }
+    }
+
+    /**
+     * Generates the given number of puzzles for each level and waits until all are written.
+     *
+     * @param count The number of generations per level.
+     * @param levels The levels to generate.
+     * @throws IOException if the output could not be written.
+     */
+    public void generate(int count, SudokuUtilities.SudokuLevel... levels) throws IOException {
+        try {
+            for (SudokuUtilities.SudokuLevel level : levels) {
+                long[] levelLatencies = new long[count];
+                latencies.put(level, levelLatencies);
+                pool.invoke(new GenerateTask(level, levelLatencies, 0, count));
+            }
+            out.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Stops the generator threads once the generator is no longer needed.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Generates one range of puzzles, splitting it in halves until it is small enough to do directly.
+     */
+    // tasks only live in the pool of one batch and are never serialized, they also hold the generator that isn't
+    @SuppressWarnings("serial")
+    private class GenerateTask extends RecursiveAction {
+
+        private final SudokuUtilities.SudokuLevel level;
+        private final long[] latencies;
+        private final int from;
+        private final int to;
+
+        GenerateTask(SudokuUtilities.SudokuLevel level, long[] latencies, int from, int to) {
+            this.level = level;
+            this.latencies = latencies;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new GenerateTask(level, latencies, from, middle),
+                        new GenerateTask(level, latencies, middle, to));
+                return;
+            }
+            PuzzleCanonicalizer canonicalizer = written != null ? new PuzzleCanonicalizer() : null;
+            for (int i = from; i < to; i++) {
+                long seed = seedOf(level, i);
+                PuzzleTransformer transformer = new PuzzleTransformer(new SeededRandom(~seed));
+                long start = System.nanoTime();
+                int[][][] puzzle = SudokuUtilities.generateSudokuMatrix(level, seed);
+                latencies[i] = System.nanoTime() - start;
+                write(puzzle, level, canonicalizer);
+                for (int variant = 0; variant < variants; variant++) {
+                    write(transformer.derive(puzzle), level, canonicalizer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a puzzle, unless duplicates are skipped and an equivalent puzzle has been written before.
+     */
+    private void write(int[][][] puzzle, SudokuUtilities.SudokuLevel level, PuzzleCanonicalizer canonicalizer) {
+        long hash = canonicalizer != null ? canonicalizer.canonicalHash(puzzle) : 0;
+        String line = toLine(puzzle, level);
+        try {
+            synchronized (out) {
+                if (canonicalizer != null && !written.add(hash)) {
+                    duplicates++;
+                    return;
+                }
+                out.write(line);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String toLine(int[][][] puzzle, SudokuUtilities.SudokuLevel level) {
+        StringBuilder line = new StringBuilder(2 * GRID_SIZE * GRID_SIZE + 10);
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                int value = puzzle[row][col][0];
+                line.append(value == 0 ? '.' : (char) ('0' + value));
+            }
+        }
+        line.append(',');
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                line.append((char) ('0' + puzzle[row][col][1]));
+            }
+        }
+        return line.append(',').append(level).append('\n').toString();
+    }
+
+    /**
+     * Returns a report with the generation time percentiles of each level.
+     *
+     * @return The report, one line per level.
+     */
+    public String latencyReport() {
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<SudokuUtilities.SudokuLevel, long[]> entry : latencies.entrySet()) {
+            long[] levelLatencies = entry.getValue();
+            int slowest = 0;
+            for (int i = 1; i < levelLatencies.length; i++) {
+                if (levelLatencies[i] > levelLatencies[slowest]) {
+                    slowest = i;
+                }
+            }
+            long[] sorted = levelLatencies.clone();
+            Arrays.sort(sorted);
+            report.append(String.format("%-6s p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms slowest=%s%n", entry.getKey(),
+                    percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), percentile(sorted, 100),
+                    new PuzzleId(seedOf(entry.getKey(), slowest), entry.getKey())));
+        }
+        return report.toString();
+    }
+
+    private static double percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,15 @@
+package javafx.fxtest.model.model;
+
+/**
+ * Told of the changes to a {@link SudokuBoard}, a batch at a time, by {@link SudokuBoard#addChangeListener}.
+ * Views, autosaving or a network game can all follow the same board this way.
+ */
+public interface BoardChangeListener {
+
+    /**
+     * Called with the changes made since the last batch, on the thread the board's change executor runs on.
+     *
+     * @param changes The changes, only valid during the call.
+     */
+    void boardChanged(BoardChanges changes);
+}
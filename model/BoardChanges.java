@@ -0,0 +1,143 @@
+package javafx.fxtest.model.model;
+
+import java.util.Arrays;
+
+/**
+ * A batch of changes to the cells of a {@link SudokuBoard}, handed to its {@link BoardChangeListener}s.
+ * Each change is the cell, its value before and after, and the cause, packed into one int,
+ * and the board reuses two batches in turn, so publishing changes allocates nothing once the batches have grown.
+ * A batch is only valid while it is being delivered; copy what is needed to keep it.
+ */
+public class BoardChanges {
+
+    /**
+     * What made a cell change.
+     */
+    public enum Cause {
+        /** A number placed or cleared by the player. */
+        PLAYER,
+        /** A value filled in or corrected by a hint. */
+        HINT,
+        /** The player's numbers cleared all at once. */
+        CLEAR,
+        /** A move undone. */
+        UNDO,
+        /** A move redone. */
+        REDO
+    }
+
+    private static final Cause[] CAUSES = Cause.values();
+
+    // cell in bits 0-9, value before in 10-14, value after in 15-19, cause from bit 20
+    private static final int OLD_SHIFT = 10;
+    private static final int NEW_SHIFT = 15;
+    private static final int CAUSE_SHIFT = 20;
+    private static final int VALUE_MASK = (1 << 5) - 1;
+
+    private final SudokuBoard board;
+    private int[] changes = new int[16];
+    private int size;
+    private boolean notesChanged;
+
+    BoardChanges(SudokuBoard board) {
+        this.board = board;
+    }
+
+    void add(int cell, int oldValue, int newValue, Cause cause) {
+        if (size == changes.length) {
+            changes = Arrays.copyOf(changes, size * 2);
+        }
+        changes[size++] = cell | oldValue << OLD_SHIFT | newValue << NEW_SHIFT | cause.ordinal() << CAUSE_SHIFT;
+    }
+
+    void markNotesChanged() {
+        notesChanged = true;
+    }
+
+    boolean isEmpty() {
+        return size == 0 && !notesChanged;
+    }
+
+    void clear() {
+        size = 0;
+        notesChanged = false;
+    }
+
+    /**
+     * Returns the board that changed
+     * @return board
+     */
+    public SudokuBoard getBoard() {
+        return board;
+    }
+
+    /**
+     * Returns the number of cell changes in the batch, in the order they were made. A cell changed twice appears twice.
+     * @return number of changes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the index of the cell of a change
+     * @param i The change, from 0 to size() - 1
+     * @return cell index, {@code row * gridSize + col}
+     */
+    public int getCell(int i) {
+        return changes[i] & ((1 << OLD_SHIFT) - 1);
+    }
+
+    /**
+     * Returns the row of the cell of a change
+     * @param i The change
+     * @return row
+     */
+    public int getRow(int i) {
+        return getCell(i) / board.getGridSize();
+    }
+
+    /**
+     * Returns the column of the cell of a change
+     * @param i The change
+     * @return column
+     */
+    public int getCol(int i) {
+        return getCell(i) % board.getGridSize();
+    }
+
+    /**
+     * Returns the value of the cell before a change
+     * @param i The change
+     * @return value, 0 if the cell was empty
+     */
+    public int getOldValue(int i) {
+        return (changes[i] >>> OLD_SHIFT) & VALUE_MASK;
+    }
+
+    /**
+     * Returns the value of the cell after a change
+     * @param i The change
+     * @return value, 0 if the cell was cleared
+     */
+    public int getNewValue(int i) {
+        return (changes[i] >>> NEW_SHIFT) & VALUE_MASK;
+    }
+
+    /**
+     * Returns what made a change
+     * @param i The change
+     * @return cause
+     */
+    public Cause getCause(int i) {
+        return CAUSES[changes[i] >>> CAUSE_SHIFT];
+    }
+
+    /**
+     * Checks if pencil marks changed as well; which ones is told by {@link SudokuBoard#pollChangedNotes}
+     * @return true if notes changed
+     */
+    public boolean areNotesChanged() {
+        return notesChanged;
+    }
+}
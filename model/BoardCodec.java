@@ -0,0 +1,248 @@
+package javafx.fxtest.model.model;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes boards in the compact binary save format.
+ * <p>
+ * A saved board is laid out as:
+ * <pre>
+ *   magic "SDKU"            4 bytes
+ *   version                 1 byte
+ *   section size            1 byte (3 for a 9x9 board)
+ *   level                   1 byte (ordinal of {@link SudokuUtilities.SudokuLevel})
+ *   reserved                1 byte, 0
+ *   givens                  one bit per cell, set for the immutable cells
+ *   solution                one value per cell, packed in as few bits as the largest digit needs
+ *   current values          one value per cell, packed the same way
+ *   CRC-32                  4 bytes, of everything before it
+ * </pre>
+ * Cells are stored row by row and bits are filled from the lowest bit of each byte.
+ * A 9x9 board takes 4 bits per value and 105 bytes in all.
+ * The version is checked on reading, so a later version can change the layout and still read older saves.
+ */
+public final class BoardCodec {
+
+    public static final int MAGIC = 0x53444B55; // "SDKU"
+    public static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 8;
+    static final int CRC_BYTES = 4;
+
+    private BoardCodec() {}
+
+    /**
+     * Returns the number of bytes a saved board of a size takes.
+     *
+     * @param sectionSize The width of a box of the board.
+     * @return The size of the encoded board.
+     */
+    public static int encodedSize(int sectionSize) {
+        int gridSize = sectionSize * sectionSize;
+        int cellCount = gridSize * gridSize;
+        return HEADER_BYTES + (cellCount + 7) / 8 + 2 * ((cellCount * bitsPerValue(gridSize) + 7) / 8) + CRC_BYTES;
+    }
+
+    /**
+     * Encodes a board in the binary save format.
+     *
+     * @param board The board to encode.
+     * @return The encoded board.
+     */
+    public static byte[] encode(SudokuBoard board) {
+        int gridSize = board.getGridSize();
+        int cellCount = gridSize * gridSize;
+        int bits = bitsPerValue(gridSize);
+        byte[] data = new byte[encodedSize(board.getSectionSize())];
+
+        putInt(data, 0, MAGIC);
+        data[4] = (byte) VERSION;
+        data[5] = (byte) board.getSectionSize();
+        data[6] = (byte) board.getDifficulty().ordinal();
+
+        int pos = HEADER_BYTES;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (board.isCellImmutable(cell / gridSize, cell % gridSize)) {
+                data[pos + (cell >>> 3)] |= 1 << (cell & 7);
+            }
+        }
+        pos += (cellCount + 7) / 8;
+
+        pos = packValues(board, data, pos, bits, true);
+        pos = packValues(board, data, pos, bits, false);
+
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, pos);
+        putInt(data, pos, (int) crc.getValue());
+        return data;
+    }
+
+    /**
+     * Packs the solution or the current value of every cell, bits bits per value.
+     *
+     * @return The position after the packed values.
+     */
+    private static int packValues(SudokuBoard board, byte[] data, int pos, int bits, boolean solution) {
+        int gridSize = board.getGridSize();
+        int buffer = 0;
+        int buffered = 0;
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                int value = solution ? board.getStoredCorrectValue(row, col) : board.getCurrentValue(row, col);
+                buffer |= value << buffered;
+                buffered += bits;
+                while (buffered >= 8) {
+                    data[pos++] = (byte) buffer;
+                    buffer >>>= 8;
+                    buffered -= 8;
+                }
+            }
+        }
+        if (buffered > 0) {
+            data[pos++] = (byte) buffer;
+        }
+        return pos;
+    }
+
+    /**
+     * Decodes a board saved in the binary save format.
+     *
+     * @param data The bytes holding the board.
+     * @param offset The position of the board in the bytes.
+     * @param length The number of bytes of the board.
+     * @return The board.
+     * @throws IOException if the bytes are not a valid saved board.
+     */
+    public static SudokuBoard decode(byte[] data, int offset, int length) throws IOException {
+        if (length < HEADER_BYTES + CRC_BYTES || getInt(data, offset) != MAGIC) {
+            throw new IOException("Not a saved Sudoku board");
+        }
+        int version = data[offset + 4] & 0xFF;
+        if (version > VERSION) {
+            throw new IOException("Saved by a newer version of the game (format " + version + ")");
+        }
+        int sectionSize = data[offset + 5] & 0xFF;
+        int levelOrdinal = data[offset + 6] & 0xFF;
+        SudokuUtilities.SudokuLevel[] levels = SudokuUtilities.SudokuLevel.values();
+        if (sectionSize < SudokuUtilities.MIN_SECTION_SIZE || sectionSize > SudokuUtilities.MAX_SECTION_SIZE
+                || levelOrdinal >= levels.length) {
+            throw new IOException("Corrupt save header");
+        }
+        if (length != encodedSize(sectionSize)) {
+            throw new IOException("Save has " + length + " bytes, expected " + encodedSize(sectionSize));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length - CRC_BYTES);
+        if ((int) crc.getValue() != getInt(data, offset + length - CRC_BYTES)) {
+            throw new IOException("Save is corrupt, checksum does not match");
+        }
+
+        int gridSize = sectionSize * sectionSize;
+        int cellCount = gridSize * gridSize;
+        int bits = bitsPerValue(gridSize);
+        int givensAt = offset + HEADER_BYTES;
+        int solutionAt = givensAt + (cellCount + 7) / 8;
+        int valuesAt = solutionAt + (cellCount * bits + 7) / 8;
+
+        long[] immutableCells = new long[(cellCount + 63) / 64];
+        for (int cell = 0; cell < cellCount; cell++) {
+            if ((data[givensAt + (cell >>> 3)] & (1 << (cell & 7))) != 0) {
+                immutableCells[cell >>> 6] |= 1L << cell;
+            }
+        }
+        byte[] solution = unpackValues(data, solutionAt, bits, gridSize);
+        byte[] values = unpackValues(data, valuesAt, bits, gridSize);
+        return new SudokuBoard(sectionSize, values, solution, immutableCells, levels[levelOrdinal]);
+    }
+
+    /**
+     * Unpacks one value per cell, bits bits per value.
+     *
+     * @throws IOException if a value is larger than the largest digit.
+     */
+    private static byte[] unpackValues(byte[] data, int pos, int bits, int gridSize) throws IOException {
+        byte[] values = new byte[gridSize * gridSize];
+        int mask = (1 << bits) - 1;
+        int buffer = 0;
+        int buffered = 0;
+        for (int cell = 0; cell < values.length; cell++) {
+            while (buffered < bits) {
+                buffer |= (data[pos++] & 0xFF) << buffered;
+                buffered += 8;
+            }
+            int value = buffer & mask;
+            buffer >>>= bits;
+            buffered -= bits;
+            if (value > gridSize) {
+                throw new IOException("Corrupt save, value " + value + " in cell (" + cell / gridSize + ", " + cell % gridSize + ")");
+            }
+            values[cell] = (byte) value;
+        }
+        return values;
+    }
+
+    /**
+     * Writes a board to a stream in the binary save format.
+     *
+     * @param board The board to write.
+     * @param out The stream to write to, it is not closed.
+     * @throws IOException if the stream fails.
+     */
+    public static void write(SudokuBoard board, OutputStream out) throws IOException {
+        out.write(encode(board));
+    }
+
+    /**
+     * Reads a board in the binary save format from a stream.
+     *
+     * @param in The stream to read from, it is not closed.
+     * @return The board.
+     * @throws IOException if the stream fails or does not hold a valid saved board.
+     */
+    public static SudokuBoard read(InputStream in) throws IOException {
+        DataInputStream dataIn = new DataInputStream(in);
+        byte[] header = new byte[HEADER_BYTES];
+        dataIn.readFully(header);
+        int sectionSize = header[5] & 0xFF;
+        if (getInt(header, 0) != MAGIC
+                || sectionSize < SudokuUtilities.MIN_SECTION_SIZE || sectionSize > SudokuUtilities.MAX_SECTION_SIZE) {
+            throw new IOException("Not a saved Sudoku board");
+        }
+        byte[] data = new byte[encodedSize(sectionSize)];
+        System.arraycopy(header, 0, data, 0, HEADER_BYTES);
+        dataIn.readFully(data, HEADER_BYTES, data.length - HEADER_BYTES);
+        return decode(data, 0, data.length);
+    }
+
+    /**
+     * Checks if the bytes start like a board in the binary save format.
+     *
+     * @param data The bytes to check.
+     * @return true if the bytes start with the magic number of the format.
+     */
+    public static boolean isEncodedBoard(byte[] data) {
+        return data.length >= 4 && getInt(data, 0) == MAGIC;
+    }
+
+    /**
+     * Returns the number of bits needed for a value from 0 to gridSize.
+     */
+    static int bitsPerValue(int gridSize) {
+        return 32 - Integer.numberOfLeadingZeros(gridSize);
+    }
+
+    static void putInt(byte[] data, int pos, int value) {
+        data[pos] = (byte) (value >>> 24);
+        data[pos + 1] = (byte) (value >>> 16);
+        data[pos + 2] = (byte) (value >>> 8);
+        data[pos + 3] = (byte) value;
+    }
+
+    static int getInt(byte[] data, int pos) {
+        return (data[pos] & 0xFF) << 24 | (data[pos + 1] & 0xFF) << 16 | (data[pos + 2] & 0xFF) << 8 | data[pos + 3] & 0xFF;
+    }
+}
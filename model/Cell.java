@@ -1,107 +1,106 @@
-package javafx.fxtest.model.model;
-
-import java.io.Serializable;
-
-public class Cell implements Serializable {
-
-    private int currentCellValue;
-    private boolean isImmutable;
-    private final int correctValue;
-
-    /**
-     * Constructs a new Cell with the given values.
-     *
-     * @param currentCellValue The current value of the cell (0 for empty).
-     * @param isImmutable Whether the cell is immutable.
-     * @param correctValue The correct solution value for the cell.
-     */
-    public Cell(int currentCellValue, boolean isImmutable, int correctValue) {
-        this.currentCellValue = currentCellValue;
-        this.isImmutable = isImmutable;
-        this.correctValue = correctValue;
-    }
-    /**
-     * Gets the correct solution value of the cell.
-     *
-     * @return The correct value for the cell.
-     */
-    public int getCorrectValue() {
-        return this.correctValue;
-    }
-
-    /**
-     * Gets the current value of the cell.
-     *
-     * @return The current value of the cell, or 0 if it is empty.
-     */
-    public int getCurrentValue() {
-        return currentCellValue;
-    }
-
-    /**
-     * Sets the current value of the cell.
-     *
-     * @param currentValue The new value for the cell.
-     * @throws IllegalArgumentException if the cell is immutable and cannot be changed.
-     */
-    public void setCurrentValue(int currentValue) throws IllegalArgumentException {
-        if(!isImmutable()) {
-            currentCellValue = currentValue;
-        } else {
-            throw new IllegalArgumentException("Cell is immutable, ett finns tal redan");
-        }
-    }
-
-    /**
-     * Sets the immutability status of the cell.
-     *
-     * @param isImmutable {@code true} if the cell should be immutable, {@code false} otherwise.
-     */
-    public void setIsImmutable(boolean isImmutable) {
-        this.isImmutable = isImmutable;
-    }
-
-    /**
-     * Checks if the cell is immutable.
-     *
-     * @return {@code true} if the cell is immutable, {@code false} otherwise.
-     */
-    public boolean isImmutable() {
-        return isImmutable;
-    }
-
-    /**
-     * Checks if the cell is empty (i.e., if its current value is 0).
-     *
-     * @return {@code true} if the cell is empty, {@code false} otherwise.
-     */
-    public boolean isCellEmpty() {
-        return currentCellValue == 0;
-    }
-
-    /**
-     * Sets the cell to be empty by setting its value to 0.
-     *
-     * @throws IllegalArgumentException if the cell is immutable and cannot be cleared.
-     */
-    public void setCellToEmpty() throws IllegalArgumentException {
-        if(!isImmutable()) {
-            currentCellValue = 0;
-        } else {
-            throw new IllegalArgumentException("Cell is immutable, can't clear");
-        }
-    }
-
-    /**
-     * Returns a string representation of the cell, including its current value and immutability status.
-     *
-     * @return A string representing the cell.
-     */
-    @Override
-    public String toString() {
-        return "Cell{" +
-                ", currentValue=" + currentCellValue +
-                ", isImmutable=" + isImmutable +
-                '}';
-    }
-}
+package javafx.fxtest.model.model;
+
+/**
+ * A lightweight view of one cell of a {@link SudokuBoard}.
+ * The board stores its cells packed, so reading and changing a cell goes straight to the board
+ * and changes made through a cell are seen by the board and the other way around.
+ */
+public class Cell {
+
+    private final SudokuBoard board;
+    private final int row;
+    private final int col;
+
+    /**
+     * Constructs a view of the cell at the given position of a board.
+     *
+     * @param board The board the cell belongs to.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     */
+    Cell(SudokuBoard board, int row, int col) {
+        this.board = board;
+        this.row = row;
+        this.col = col;
+    }
+    /**
+     * Gets the correct solution value of the cell.
+     *
+     * @return The correct value for the cell.
+     */
+    public int getCorrectValue() {
+        return board.getCorrectValue(row, col);
+    }
+
+    /**
+     * Gets the current value of the cell.
+     *
+     * @return The current value of the cell, or 0 if it is empty.
+     */
+    public int getCurrentValue() {
+        return board.getCurrentValue(row, col);
+    }
+
+    /**
+     * Sets the current value of the cell.
+     *
+     * @param currentValue The new value for the cell.
+     * @throws IllegalArgumentException if the cell is immutable and cannot be changed.
+     */
+    public void setCurrentValue(int currentValue) throws IllegalArgumentException {
+        board.setCell(row, col, currentValue);
+    }
+
+    /**
+     * Sets the immutability status of the cell.
+     *
+     * @param isImmutable {@code true} if the cell should be immutable, {@code false} otherwise.
+     */
+    public void setIsImmutable(boolean isImmutable) {
+        board.setCellImmutable(row, col, isImmutable);
+    }
+
+    /**
+     * Checks if the cell is immutable.
+     *
+     * @return {@code true} if the cell is immutable, {@code false} otherwise.
+     */
+    public boolean isImmutable() {
+        return board.isCellImmutable(row, col);
+    }
+
+    /**
+     * Checks if the cell is empty (i.e., if its current value is 0).
+     *
+     * @return {@code true} if the cell is empty, {@code false} otherwise.
+     */
+    public boolean isCellEmpty() {
+        return getCurrentValue() == 0;
+    }
+
+    /**
+     * Sets the cell to be empty by setting its value to 0.
+     *
+     * @throws IllegalArgumentException if the cell is immutable and cannot be cleared.
+     */
+    public void setCellToEmpty() throws IllegalArgumentException {
+        if(!isImmutable()) {
+            board.setCell(row, col, 0);
+        } else {
+            throw new IllegalArgumentException("Cell is immutable, can't clear");
+        }
+    }
+
+    /**
+     * Returns a string representation of the cell, including its current value and immutability status.
+     *
+     * @return A string representing the cell.
+     */
+    @Override
+    public String toString() {
+        return "Cell{" +
+                ", currentValue=" + getCurrentValue() +
+                ", isImmutable=" + isImmutable() +
+                '}';
+    }
+}
@@ -0,0 +1,448 @@
+package javafx.fxtest.model.model;
+
+import java.util.Arrays;
+
+import static javafx.fxtest.model.model.SudokuUtilities.MAX_SECTION_SIZE;
+import static javafx.fxtest.model.model.SudokuUtilities.SECTION_SIZE;
+
+/**
+ * Solves Sudoku puzzles with Knuth's Algorithm X on a dancing links matrix.
+ * The puzzle is modelled as an exact cover problem: every cell, and every digit in each row,
+ * column and box, has to be covered exactly once.
+ * The links are kept in flat int arrays that are built once per solver and restored after
+ * every solve, so a solver can be reused for any number of puzzles without allocating.
+ * A solver is not thread safe, use one instance per thread.
+ */
+public class DancingLinksSolver {
+
+    private static final int CONSTRAINT_TYPES = 4;
+
+    // one solver per thread and board size, built the first time that size is asked for
+    private static final ThreadLocal<DancingLinksSolver[]> SOLVERS =
+            ThreadLocal.withInitial(() -> new DancingLinksSolver[MAX_SECTION_SIZE + 1]);
+
+    private final int boxSize;
+    private final int gridSize;
+    private final int cellCount;
+
+    // node links, node 0 is the root and nodes 1..columns are the column headers
+    private final int[] left;
+    private final int[] right;
+    private final int[] up;
+    private final int[] down;
+    private final int[] column;
+    private final int[] columnSize;
+    private final int[] candidateOfNode;
+
+    private final int[] chosenRows;
+    private final int[] givenRows;
+    private final int[] unitMasks;
+
+    private int[] solution;
+    private int solutionsLeft;
+    private long stepsLeft;
+    private boolean timed; // if the search gives up at the deadline
+    private long deadline;
+    private SeededRandom random;
+
+    /**
+     * Creates a solver for the standard 9x9 board.
+     */
+    public DancingLinksSolver() {
+        this(SECTION_SIZE);
+    }
+
+    /**
+     * Creates a solver for boards made of boxSize x boxSize boxes.
+     *
+     * @param boxSize The width of a box, 3 for the standard 9x9 board.
+     */
+    public DancingLinksSolver(int boxSize) {
+        if (boxSize < SudokuUtilities.MIN_SECTION_SIZE || boxSize > MAX_SECTION_SIZE) {
+            throw new IllegalArgumentException("Error: Not a valid box size " + boxSize);
+        }
+        this.boxSize = boxSize;
+        this.gridSize = boxSize * boxSize;
+        this.cellCount = gridSize * gridSize;
+
+        int columns = CONSTRAINT_TYPES * cellCount;
+        int candidates = cellCount * gridSize;
+        int nodes = 1 + columns + CONSTRAINT_TYPES * candidates;
+
+        left = new int[nodes];
+        right = new int[nodes];
+        up = new int[nodes];
+        down = new int[nodes];
+        column = new int[nodes];
+        columnSize = new int[columns + 1];
+        candidateOfNode = new int[nodes];
+        chosenRows = new int[cellCount];
+        givenRows = new int[cellCount];
+        unitMasks = new int[3 * gridSize];
+
+        for (int header = 0; header <= columns; header++) {
+            left[header] = header == 0 ? columns : header - 1;
+            right[header] = header == columns ? 0 : header + 1;
+            up[header] = header;
+            down[header] = header;
+            column[header] = header;
+        }
+
+        for (int candidate = 0; candidate < candidates; candidate++) {
+            int cell = candidate / gridSize;
+            int digit = candidate % gridSize;
+            int row = cell / gridSize;
+            int col = cell % gridSize;
+            int box = (row / boxSize) * boxSize + col / boxSize;
+
+            int first = rowNode(candidate);
+            int[] headers = {
+                    1 + cell,
+                    1 + cellCount + row * gridSize + digit,
+                    1 + 2 * cellCount + col * gridSize + digit,
+                    1 + 3 * cellCount + box * gridSize + digit
+            };
+            for (int i = 0; i < CONSTRAINT_TYPES; i++) {
+                int node = first + i;
+                int header = headers[i];
+                column[node] = header;
+                candidateOfNode[node] = candidate;
+                left[node] = i == 0 ? first + CONSTRAINT_TYPES - 1 : node - 1;
+                right[node] = i == CONSTRAINT_TYPES - 1 ? first : node + 1;
+                up[node] = up[header];
+                down[node] = header;
+                down[up[header]] = node;
+                up[header] = node;
+                columnSize[header]++;
+            }
+        }
+    }
+
+    /**
+     * Returns a 9x9 solver that belongs to the calling thread, so generators running
+     * on many threads can share solvers without building a new matrix for every puzzle.
+     *
+     * @return The solver of the current thread.
+     */
+    public static DancingLinksSolver forCurrentThread() {
+        return forCurrentThread(SECTION_SIZE);
+    }
+
+    /**
+     * Returns a solver for boards made of boxSize x boxSize boxes that belongs to the calling thread.
+     *
+     * @param boxSize The width of a box, 3 for the standard 9x9 board.
+     * @return The solver of the current thread.
+     */
+    public static DancingLinksSolver forCurrentThread(int boxSize) {
+        DancingLinksSolver[] solvers = SOLVERS.get();
+        if (boxSize < 0 || boxSize >= solvers.length) {
+            throw new IllegalArgumentException("Error: Not a valid box size " + boxSize);
+        }
+        if (solvers[boxSize] == null) {
+            solvers[boxSize] = new DancingLinksSolver(boxSize);
+        }
+        return solvers[boxSize];
+    }
+
+    /**
+     * Returns the width of a box of the boards this solver solves
+     * @return box size
+     */
+    public int getBoxSize() {
+        return boxSize;
+    }
+
+    /**
+     * Solves the board using its current values as clues.
+     *
+     * @param board The board to solve.
+     * @return The solved grid as [row][col], or {@code null} if the board has no solution.
+     */
+    public int[][] solve(SudokuBoard board) {
+        if (board.getGridSize() != gridSize) {
+            throw new IllegalArgumentException("Error: Board must have " + gridSize + " rows");
+        }
+        int[] grid = new int[cellCount];
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                grid[row * gridSize + col] = board.getCurrentValue(row, col);
+            }
+        }
+        return toMatrix(grid);
+    }
+
+    /**
+     * Solves a puzzle in the format made by {@link SudokuUtilities#generateSudokuMatrix}.
+     * Only the initial values in [row][col][0] are used.
+     *
+     * @param sudokuMatrix The puzzle to solve.
+     * @return The solved grid as [row][col], or {@code null} if the puzzle has no solution.
+     */
+    public int[][] solve(int[][][] sudokuMatrix) {
+        int[] grid = new int[cellCount];
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                grid[row * gridSize + col] = sudokuMatrix[row][col][0];
+            }
+        }
+        return toMatrix(grid);
+    }
+
+    private int[][] toMatrix(int[] grid) {
+        if (!solve(grid, grid)) {
+            return null;
+        }
+        int[][] solved = new int[gridSize][gridSize];
+        for (int row = 0; row < gridSize; row++) {
+            System.arraycopy(grid, row * gridSize, solved[row], 0, gridSize);
+        }
+        return solved;
+    }
+
+    /**
+     * Solves a puzzle stored cell by cell, row by row, with 0 for empty cells.
+     *
+     * @param grid The puzzle to solve.
+     * @param solution Array that receives the solution if one exists, may be the same array as grid.
+     * @return {@code true} if the puzzle has a solution, otherwise {@code false}.
+     */
+    public boolean solve(int[] grid, int[] solution) {
+        return search(grid, solution, 1, Long.MAX_VALUE) == 1;
+    }
+
+    /**
+     * Counts the solutions of a puzzle, stopping as soon as the limit is reached.
+     * A limit of 2 is enough to tell if a puzzle has a unique solution.
+     *
+     * @param grid The puzzle stored cell by cell, row by row, with 0 for empty cells.
+     * @param limit The number of solutions to stop at.
+     * @return The number of solutions found, at most limit.
+     */
+    public int countSolutions(int[] grid, int limit) {
+        return search(grid, null, limit, Long.MAX_VALUE);
+    }
+
+    /**
+     * Counts the solutions of a puzzle like {@link #countSolutions(int[], int)}, but gives up
+     * once the search has tried maxSteps candidates.
+     * On big boards with few clues a search can take very long before it finds a second solution
+     * or proves there is none, so generators use this to skip the cells that are too costly to decide.
+     *
+     * @param grid The puzzle stored cell by cell, row by row, with 0 for empty cells.
+     * @param limit The number of solutions to stop at.
+     * @param maxSteps The number of search steps to give up after.
+     * @return The number of solutions found, at most limit, or -1 if the search gave up.
+     */
+    public int countSolutions(int[] grid, int limit, long maxSteps) {
+        return search(grid, null, limit, maxSteps);
+    }
+
+    /**
+     * Counts the solutions of a puzzle like {@link #countSolutions(int[], int)}, keeping the last one found,
+     * but gives up once the search has run for a time budget.
+     * Used to solve a puzzle of unknown origin while the player waits, learning at the same time if its solution is unique.
+     * If the search gives up after finding a solution, the solution array still holds it and has no empty cell.
+     *
+     * @param grid The puzzle stored cell by cell, row by row, with 0 for empty cells.
+     * @param solution Array that receives the last solution found, may be the same array as grid.
+     * @param limit The number of solutions to stop at.
+     * @param budgetNanos The time to give up after, in nanoseconds.
+     * @return The number of solutions found, at most limit, or -1 if the search gave up.
+     */
+    public int solveWithin(int[] grid, int[] solution, int limit, long budgetNanos) {
+        deadline = System.nanoTime() + budgetNanos;
+        timed = true;
+        try {
+            return search(grid, solution, limit, Long.MAX_VALUE);
+        } finally {
+            timed = false;
+        }
+    }
+
+    /**
+     * Completes a grid with a random solution that keeps its clues.
+     * The search tries the candidates of each constraint in random order, so an empty grid
+     * becomes a random solved board, and the same seed always gives the same board.
+     *
+     * @param grid The clues stored cell by cell, row by row, with 0 for empty cells; receives the solution.
+     * @param random The random generator ordering the candidates.
+     * @return {@code true} if the grid could be completed, otherwise {@code false}.
+     */
+    public boolean fillRandomly(int[] grid, SeededRandom random) {
+        this.random = random;
+        try {
+            return search(grid, grid, 1, Long.MAX_VALUE) == 1;
+        } finally {
+            this.random = null;
+        }
+    }
+
+    /**
+     * Covers the rows of the given clues, runs the search and restores the matrix afterwards.
+     */
+    private int search(int[] grid, int[] solution, int limit, long maxSteps) {
+        if (grid.length != cellCount) {
+            throw new IllegalArgumentException("Error: Grid must have " + cellCount + " cells");
+        }
+        if (!areCluesValid(grid)) {
+            return 0;
+        }
+
+        int givens = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            int value = grid[cell];
+            if (value != 0) {
+                int node = rowNode(cell * gridSize + value - 1);
+                selectRow(node);
+                givenRows[givens++] = node;
+            }
+        }
+
+        this.solution = solution;
+        this.solutionsLeft = limit;
+        this.stepsLeft = maxSteps;
+        if (solution != null && solution != grid) {
+            System.arraycopy(grid, 0, solution, 0, cellCount);
+        }
+        int found = search(0);
+        this.solution = null;
+        if (stepsLeft < 0) {
+            found = -1;
+        }
+
+        while (givens > 0) {
+            unselectRow(givenRows[--givens]);
+        }
+        return found;
+    }
+
+    private int search(int depth) {
+        // the clock is read every 256 steps, at most a hundred microseconds apart on a 25x25 board
+        if (--stepsLeft < 0 || timed && (stepsLeft & 255) == 0 && System.nanoTime() - deadline > 0) {
+            // out of steps or time, end the loops of all levels
+            stepsLeft = -1;
+            solutionsLeft = 0;
+            return 0;
+        }
+        if (right[0] == 0) {
+            if (solution != null) {
+                for (int i = 0; i < depth; i++) {
+                    int candidate = candidateOfNode[chosenRows[i]];
+                    solution[candidate / gridSize] = candidate % gridSize + 1;
+                }
+            }
+            solutionsLeft--;
+            return 1;
+        }
+
+        // branch on the column with the fewest remaining rows
+        int chosen = right[0];
+        for (int header = right[chosen]; header != 0 && columnSize[chosen] > 1; header = right[header]) {
+            if (columnSize[header] < columnSize[chosen]) {
+                chosen = header;
+            }
+        }
+        if (columnSize[chosen] == 0) {
+            return 0;
+        }
+
+        // a random fill starts at a random row of the column and wraps around the header
+        int rows = columnSize[chosen];
+        int node = down[chosen];
+        if (random != null) {
+            for (int skip = random.nextInt(rows); skip > 0; skip--) {
+                node = down[node];
+            }
+        }
+
+        int found = 0;
+        cover(chosen);
+        for (int tried = 0; tried < rows && solutionsLeft > 0; tried++) {
+            if (node == chosen) {
+                node = down[node];
+            }
+            chosenRows[depth] = node;
+            for (int other = right[node]; other != node; other = right[other]) {
+                cover(column[other]);
+            }
+            found += search(depth + 1);
+            for (int other = left[node]; other != node; other = left[other]) {
+                uncover(column[other]);
+            }
+            node = down[node];
+        }
+        uncover(chosen);
+        return found;
+    }
+
+    /**
+     * Checks that no clue repeats a digit in a row, column or box,
+     * since covering such clues would break the matrix.
+     */
+    private boolean areCluesValid(int[] grid) {
+        Arrays.fill(unitMasks, 0);
+        for (int cell = 0; cell < cellCount; cell++) {
+            int value = grid[cell];
+            if (value == 0) {
+                continue;
+            }
+            if (value < 0 || value > gridSize) {
+                return false;
+            }
+            int row = cell / gridSize;
+            int col = cell % gridSize;
+            int box = (row / boxSize) * boxSize + col / boxSize;
+            int bit = 1 << (value - 1);
+            if (((unitMasks[row] | unitMasks[gridSize + col] | unitMasks[2 * gridSize + box]) & bit) != 0) {
+                return false;
+            }
+            unitMasks[row] |= bit;
+            unitMasks[gridSize + col] |= bit;
+            unitMasks[2 * gridSize + box] |= bit;
+        }
+        return true;
+    }
+
+    private int rowNode(int candidate) {
+        return 1 + CONSTRAINT_TYPES * cellCount + CONSTRAINT_TYPES * candidate;
+    }
+
+    private void selectRow(int node) {
+        cover(column[node]);
+        for (int other = right[node]; other != node; other = right[other]) {
+            cover(column[other]);
+        }
+    }
+
+    private void unselectRow(int node) {
+        for (int other = left[node]; other != node; other = left[other]) {
+            uncover(column[other]);
+        }
+        uncover(column[node]);
+    }
+
+    private void cover(int header) {
+        right[left[header]] = right[header];
+        left[right[header]] = left[header];
+        for (int row = down[header]; row != header; row = down[row]) {
+            for (int node = right[row]; node != row; node = right[node]) {
+                down[up[node]] = down[node];
+                up[down[node]] = up[node];
+                columnSize[column[node]]--;
+            }
+        }
+    }
+
+    private void uncover(int header) {
+        for (int row = up[header]; row != header; row = up[row]) {
+            for (int node = left[row]; node != row; node = left[node]) {
+                columnSize[column[node]]++;
+                down[up[node]] = node;
+                up[down[node]] = node;
+            }
+        }
+        right[left[header]] = header;
+        left[right[header]] = header;
+    }
+}
@@ -0,0 +1,134 @@
+package javafx.fxtest.model.model;
+
+
+import static javafx.fxtest.model.model.SudokuUtilities.GRID_SIZE;
+
+/**
+ * Rates how hard a puzzle is for a person by solving it with a {@link LogicalSolver}.
+ * The rating is the difficulty of the hardest technique the puzzle needs,
+ * so a puzzle that only needs singles is rated lower than one that needs an X-Wing,
+ * however many cells are empty.
+ * A grader is not thread safe, use one instance per thread.
+ */
+public class DifficultyGrader {
+
+    private final LogicalSolver solver = new LogicalSolver();
+
+    /**
+     * The result of grading a puzzle.
+     */
+    public static class Grade {
+
+        private final Technique hardestTechnique;
+        private final int steps;
+
+        Grade(Technique hardestTechnique, int steps) {
+            this.hardestTechnique = hardestTechnique;
+            this.steps = steps;
+        }
+
+        /**
+         * Returns the rating of the puzzle, the difficulty of its hardest technique
+         * @return rating, 0 for a puzzle that is already solved
+         */
+        public double getRating() {
+            return hardestTechnique == null ? 0 : hardestTechnique.getDifficulty();
+        }
+
+        /**
+         * Returns the hardest technique needed to solve the puzzle
+         * @return technique, {@link Technique#TRIAL_AND_ERROR} if the known techniques are not enough
+         */
+        public Technique getHardestTechnique() {
+            return hardestTechnique;
+        }
+
+        /**
+         * Returns the number of steps the logical solver made
+         * @return number of steps
+         */
+        public int getSteps() {
+            return steps;
+        }
+
+        /**
+         * Checks if the puzzle could be solved without guessing
+         * @return true if solved by the known techniques
+         */
+        public boolean isSolvedLogically() {
+            return hardestTechnique != Technique.TRIAL_AND_ERROR;
+        }
+
+        @Override
+        public String toString() {
+            return "Grade{" +
+                    "rating=" + getRating() +
+                    ", hardestTechnique=" + hardestTechnique +
+                    ", steps=" + steps +
+                    '}';
+        }
+    }
+
+    /**
+     * Grades a puzzle.
+     *
+     * @param grid The puzzle stored cell by cell, row by row, with 0 for empty cells.
+     * @return The grade of the puzzle.
+     * @throws IllegalArgumentException if the clues break the rules.
+     */
+    public Grade grade(int[] grid) throws IllegalArgumentException {
+        if (!solver.load(grid)) {
+            throw new IllegalArgumentException("Error: Not a valid Sudoku puzzle");
+        }
+        Technique hardest = null;
+        int steps = 0;
+        Technique technique;
+        while ((technique = solver.step()) != null) {
+            steps++;
+            if (hardest == null || technique.compareTo(hardest) > 0) {
+                hardest = technique;
+            }
+        }
+        if (!solver.isSolved()) {
+            hardest = Technique.TRIAL_AND_ERROR;
+        }
+        return new Grade(hardest, steps);
+    }
+
+    /**
+     * Grades a puzzle in the format made by {@link SudokuUtilities#generateSudokuMatrix}.
+     *
+     * Only standard 9x9 puzzles can be graded, the techniques are not rated for bigger boards.
+     *
+     * @param sudokuMatrix The puzzle to grade.
+     * @return The grade of the puzzle.
+     * @throws IllegalArgumentException if the clues break the rules or the puzzle is not 9x9.
+     */
+    public Grade grade(int[][][] sudokuMatrix) throws IllegalArgumentException {
+        if (sudokuMatrix.length != GRID_SIZE) {
+            throw new IllegalArgumentException("Error: Only 9x9 puzzles can be graded");
+        }
+        int[] grid = new int[GRID_SIZE * GRID_SIZE];
+        for (int cell = 0; cell < grid.length; cell++) {
+            grid[cell] = sudokuMatrix[cell / GRID_SIZE][cell % GRID_SIZE][0];
+        }
+        return grade(grid);
+    }
+
+    /**
+     * Returns the difficulty level a graded puzzle belongs to:
+     * singles only is easy, up to pairs and line/box interactions is medium, anything harder is hard.
+     *
+     * @param grade The grade of the puzzle.
+     * @return The level.
+     */
+    public static SudokuUtilities.SudokuLevel levelOf(Grade grade) {
+        if (grade.getRating() <= Technique.NAKED_SINGLE.getDifficulty()) {
+            return SudokuUtilities.SudokuLevel.EASY;
+        }
+        if (grade.getRating() <= Technique.HIDDEN_PAIR.getDifficulty()) {
+            return SudokuUtilities.SudokuLevel.MEDIUM;
+        }
+        return SudokuUtilities.SudokuLevel.HARD;
+    }
+}
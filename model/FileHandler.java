@@ -1,62 +1,127 @@
-package javafx.fxtest.model.model;
-
-import java.io.*;
-
-public class FileHandler {
-
-    /**
-     * Saves the current game to a file of your choosing /or new file
-     * @param model The current game
-     * @param file The file to save to
-     * @throws IOException if failed to save
-     */
-    public static void serializeToFile(SudokuBoard model, File file) throws IOException{
-
-        ObjectOutputStream out = null;
-
-        try{
-            out = new ObjectOutputStream(new FileOutputStream(file.getAbsolutePath()));
-            out.writeObject(model);
-        }
-        finally {
-            try{
-                if (out != null)
-                    out.close();
-            } catch (Exception e){}
-        }
-
-    }
-
-    /**
-     * Loads a game from a .sudoku file of your choosing
-     * @return The loaded game
-     * @param file The file to load from
-     * @throws IOException if failed to load
-     */
-    public static SudokuBoard deserializeFromFile(File file) throws IOException{
-
-        ObjectInputStream in = null;
-
-        try {
-
-            in = new ObjectInputStream(new FileInputStream(file.getAbsolutePath()));
-            SudokuBoard model = (SudokuBoard) in.readObject();
-            return model;
-        } catch (FileNotFoundException e){
-            System.out.println("FileNotFound");
-        } catch (EOFException e){
-            System.out.println("End Of File");
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
-        } finally{
-            try{
-                if(in!=null) in.close();
-            } catch (Exception e) {}
-        }
-
-        return null;
-    }
-
-}
-
-
+package javafx.fxtest.model.model;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.DoubleConsumer;
+
+public class FileHandler {
+
+    // the first two bytes of a file written by an ObjectOutputStream
+    private static final int JAVA_SERIALIZATION_MAGIC = 0xACED;
+    // saves are read and written in blocks of this size, to report progress in between
+    private static final int BLOCK_BYTES = 4096;
+    // no save of any version comes near this, so anything bigger is not a save
+    private static final long MAX_SAVE_BYTES = 1 << 20;
+
+    /**
+     * Saves the current game to a file of your choosing /or new file,
+     * in the binary format of {@link BoardCodec}
+     * @param model The current game
+     * @param file The file to save to
+     * @throws IOException if failed to save
+     */
+    public static void serializeToFile(SudokuBoard model, File file) throws IOException{
+
+        writeToFile(BoardCodec.encode(model), file, null);
+
+    }
+
+    /**
+     * Writes a saved game to a file, in blocks so the progress can be followed on a slow disk.
+     * The bytes are written to a temporary file next to it that then replaces the file,
+     * so a save that fails or is cancelled half way leaves the old file as it was.
+     * @param data The game encoded with {@link BoardCodec#encode}
+     * @param file The file to save to
+     * @param progress Receives the fraction written after every block, may be null
+     * @throws IOException if failed to save, or {@link java.nio.channels.ClosedByInterruptException} if the thread was interrupted
+     */
+    public static void writeToFile(byte[] data, File file, DoubleConsumer progress) throws IOException{
+
+        Path target = file.toPath().toAbsolutePath();
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                buffer.limit(Math.min(data.length, buffer.position() + BLOCK_BYTES));
+                out.write(buffer);
+                buffer.limit(data.length);
+                reportProgress(progress, buffer.position(), data.length);
+            }
+            out.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        try {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+    }
+
+    /**
+     * Loads a game from a .sudoku file of your choosing.
+     * Files saved by earlier versions of the game, which used Java serialization, are migrated
+     * when they are loaded and get the new format the next time they are saved.
+     * @return The loaded game
+     * @param file The file to load from
+     * @throws IOException if failed to load, {@link NoSuchFileException} if the file doesn't exist
+     */
+    public static SudokuBoard deserializeFromFile(File file) throws IOException{
+
+        return deserializeFromFile(file, null);
+
+    }
+
+    /**
+     * Loads a game from a .sudoku file like {@link #deserializeFromFile(File)}, reading it in blocks
+     * so the progress can be followed on a slow disk.
+     * @return The loaded game
+     * @param file The file to load from
+     * @param progress Receives the fraction read after every block, may be null
+     * @throws IOException if failed to load, or {@link java.nio.channels.ClosedByInterruptException} if the thread was interrupted
+     */
+    public static SudokuBoard deserializeFromFile(File file, DoubleConsumer progress) throws IOException{
+
+        byte[] data;
+        try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size > MAX_SAVE_BYTES) {
+                throw new IOException("Not a saved Sudoku board, the file is too big");
+            }
+            data = new byte[(int) size];
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                buffer.limit(Math.min(data.length, buffer.position() + BLOCK_BYTES));
+                if (in.read(buffer) < 0) {
+                    throw new EOFException("The file got shorter while it was read");
+                }
+                buffer.limit(data.length);
+                reportProgress(progress, buffer.position(), data.length);
+            }
+        }
+        if (BoardCodec.isEncodedBoard(data)) {
+            return BoardCodec.decode(data, 0, data.length);
+        }
+        if (data.length >= 2 && ((data[0] & 0xFF) << 8 | data[1] & 0xFF) == JAVA_SERIALIZATION_MAGIC) {
+            return LegacySaveReader.read(new ByteArrayInputStream(data));
+        }
+        throw new IOException("Not a saved Sudoku board");
+
+    }
+
+    private static void reportProgress(DoubleConsumer progress, int done, int total) {
+        if (progress != null) {
+            progress.accept((double) done / total);
+        }
+    }
+}
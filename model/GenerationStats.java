@@ -0,0 +1,140 @@
+package javafx.fxtest.model.model;
+
+/**
+ * Records what it cost to generate a puzzle: how many times the solver had to be asked
+ * if the puzzle was still unique, how many cells could be removed and how long it took.
+ * Stats can be added together to get the totals of many generations.
+ */
+public class GenerationStats {
+
+    private long solverCalls;
+    private long requestedRemovals;
+    private long removedCells;
+    private long fillNanos;
+    private long removeNanos;
+    private long puzzles;
+    private long rejectedPuzzles;
+
+    /**
+     * Records the filling of a solved board.
+     *
+     * @param nanos The time it took in nanoseconds.
+     */
+    void recordFill(long nanos) {
+        fillNanos += nanos;
+        puzzles++;
+    }
+
+    /**
+     * Records the removal of clues from a solved board.
+     *
+     * @param requested The number of cells the difficulty level asked to remove.
+     * @param removed The number of cells that could be removed with the puzzle still unique.
+     * @param calls The number of times the solver was called.
+     * @param nanos The time it took in nanoseconds.
+     */
+    void recordRemoval(int requested, int removed, int calls, long nanos) {
+        requestedRemovals += requested;
+        removedCells += removed;
+        solverCalls += calls;
+        removeNanos += nanos;
+    }
+
+    /**
+     * Records that a puzzle was generated again, as its grade was not of the level asked for.
+     */
+    void recordRejected() {
+        rejectedPuzzles++;
+    }
+
+    /**
+     * Adds the totals of other stats to these.
+     *
+     * @param other The stats to add.
+     */
+    public void add(GenerationStats other) {
+        solverCalls += other.solverCalls;
+        requestedRemovals += other.requestedRemovals;
+        removedCells += other.removedCells;
+        fillNanos += other.fillNanos;
+        removeNanos += other.removeNanos;
+        puzzles += other.puzzles;
+        rejectedPuzzles += other.rejectedPuzzles;
+    }
+
+    /**
+     * Returns the number of puzzles recorded, including the ones rejected by grading.
+     * @return number of puzzles
+     */
+    public long getPuzzles() {
+        return puzzles;
+    }
+
+    /**
+     * Returns the number of puzzles generated again because their grade was not of the level asked for.
+     * @return number of rejected puzzles
+     */
+    public long getRejectedPuzzles() {
+        return rejectedPuzzles;
+    }
+
+    /**
+     * Returns the number of uniqueness checks made by the solver.
+     * @return number of solver calls
+     */
+    public long getSolverCalls() {
+        return solverCalls;
+    }
+
+    /**
+     * Returns the number of cells the difficulty levels asked to remove.
+     * @return number of requested removals
+     */
+    public long getRequestedRemovals() {
+        return requestedRemovals;
+    }
+
+    /**
+     * Returns the number of cells that were removed.
+     * @return number of removed cells
+     */
+    public long getRemovedCells() {
+        return removedCells;
+    }
+
+    /**
+     * Returns the time spent filling solved boards.
+     * @return time in nanoseconds
+     */
+    public long getFillNanos() {
+        return fillNanos;
+    }
+
+    /**
+     * Returns the time spent removing clues, including the solver calls.
+     * @return time in nanoseconds
+     */
+    public long getRemoveNanos() {
+        return removeNanos;
+    }
+
+    /**
+     * Returns the total time spent generating.
+     * @return time in nanoseconds
+     */
+    public long getTotalNanos() {
+        return fillNanos + removeNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "GenerationStats{" +
+                "puzzles=" + puzzles +
+                ", rejectedPuzzles=" + rejectedPuzzles +
+                ", solverCalls=" + solverCalls +
+                ", removedCells=" + removedCells + "/" + requestedRemovals +
+                ", fillMicros=" + fillNanos / 1000 +
+                ", removeMicros=" + removeNanos / 1000 +
+                '}';
+    }
+}
@@ -0,0 +1,210 @@
+package javafx.fxtest.model.model;
+
+import static javafx.fxtest.model.model.SudokuUtilities.GRID_SIZE;
+
+/**
+ * Finds the next move a player could make on a board by logic, the way a person would find it:
+ * the easiest deduction available from the values on the board, with the technique that leads to it.
+ * <p>
+ * A 9x9 board is handed to a {@link LogicalSolver} in single step mode, which takes steps until one of them
+ * places a digit; the hint is that cell and digit, with the hardest technique needed on the way.
+ * The solver starts from the candidates the board keeps up to date in its row, column and box masks,
+ * so nothing is worked out again from the values for a hint.
+ * Bigger boards and positions the techniques can't continue fall back to a naked single from the
+ * candidates the board keeps, and failing that to the correct value of the cell with the fewest candidates.
+ * A wrong value on the board is pointed out before anything else, since no deduction can be trusted with it there.
+ * A board that came without a solution is solved for this the first time, see {@link SudokuBoard#hasSolution()}.
+ * Mistakes are only pointed out, and correct values only guessed, when the solution is unique;
+ * on a puzzle with several solutions the player's values may belong to another one.
+ * <p>
+ * The engine and the {@link Hint} it returns are reused, so finding a hint allocates nothing
+ * and takes a few microseconds, fast enough to run after every move. An engine is not thread safe.
+ */
+public class HintEngine {
+
+    /**
+     * A move found by the {@link HintEngine}. The same object is filled in by every call to
+     * {@link HintEngine#findHint(SudokuBoard)}, so read it before asking for the next hint.
+     */
+    public static class Hint {
+        private int row;
+        private int col;
+        private int digit;
+        private Technique technique;
+        private boolean mistake;
+
+        private Hint set(int row, int col, int digit, Technique technique, boolean mistake) {
+            this.row = row;
+            this.col = col;
+            this.digit = digit;
+            this.technique = technique;
+            this.mistake = mistake;
+            return this;
+        }
+
+        /**
+         * Returns the row of the cell
+         * @return row
+         */
+        public int getRow() {
+            return row;
+        }
+
+        /**
+         * Returns the column of the cell
+         * @return column
+         */
+        public int getCol() {
+            return col;
+        }
+
+        /**
+         * Returns the digit that goes in the cell
+         * @return digit
+         */
+        public int getDigit() {
+            return digit;
+        }
+
+        /**
+         * Returns the technique that finds the digit, {@link Technique#TRIAL_AND_ERROR} if no technique does,
+         * or {@code null} for a mistake
+         * @return technique
+         */
+        public Technique getTechnique() {
+            return technique;
+        }
+
+        /**
+         * Checks if the cell holds a wrong value, which the digit replaces
+         * @return true for a mistake
+         */
+        public boolean isMistake() {
+            return mistake;
+        }
+
+        /**
+         * Describes where to look without giving the digit away, rows and columns counted from 1.
+         */
+        @Override
+        public String toString() {
+            if (mistake) {
+                return "The value in row " + (row + 1) + ", column " + (col + 1) + " is wrong";
+            }
+            return technique.getDisplayName() + " in row " + (row + 1) + ", column " + (col + 1);
+        }
+    }
+
+    private final LogicalSolver solver = new LogicalSolver();
+    private final Hint hint = new Hint();
+
+    /**
+     * Creates a hint engine.
+     */
+    public HintEngine() {
+        solver.setSingleStep(true);
+    }
+
+    /**
+     * Finds the next move on a board.
+     *
+     * @param board The board as the player left it.
+     * @return The hint, or {@code null} if the board is full and correct, or if it has no unique solution that could be found
+     * and no deduction is left.
+     */
+    public Hint findHint(SudokuBoard board) {
+        int gridSize = board.getGridSize();
+        boolean solutionKnown = board.hasUniqueSolution();
+        if (solutionKnown && findMistake(board)) {
+            return hint;
+        }
+        if (board.isBoardFull()) {
+            return null;
+        }
+        if (gridSize == GRID_SIZE && findDeduction(board)) {
+            return hint;
+        }
+
+        // no technique gets further, so take the best guess the board's candidates give
+        int bestRow = -1;
+        int bestCol = -1;
+        int fewest = Integer.MAX_VALUE;
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                if (board.getCurrentValue(row, col) != 0) {
+                    continue;
+                }
+                int count = Integer.bitCount(board.getCandidates(row, col));
+                if (count == 1) {
+                    return hint.set(row, col, Integer.numberOfTrailingZeros(board.getCandidates(row, col)) + 1,
+                            Technique.NAKED_SINGLE, false);
+                }
+                if (count < fewest) {
+                    fewest = count;
+                    bestRow = row;
+                    bestCol = col;
+                }
+            }
+        }
+        if (!solutionKnown) {
+            return null;
+        }
+        return hint.set(bestRow, bestCol, board.getCorrectValue(bestRow, bestCol), Technique.TRIAL_AND_ERROR, false);
+    }
+
+    /**
+     * Looks for a value that is not the correct one, preferring one the player can see conflicts.
+     *
+     * @return true if one was found and set as the hint.
+     */
+    private boolean findMistake(SudokuBoard board) {
+        int gridSize = board.getGridSize();
+        int mistake = -1;
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                int value = board.getCurrentValue(row, col);
+                if (value == 0 || value == board.getCorrectValue(row, col)) {
+                    continue;
+                }
+                if (board.isConflicting(row, col)) {
+                    hint.set(row, col, board.getCorrectValue(row, col), null, true);
+                    return true;
+                }
+                if (mistake < 0) {
+                    mistake = row * gridSize + col;
+                }
+            }
+        }
+        if (mistake < 0) {
+            return false;
+        }
+        int row = mistake / gridSize;
+        int col = mistake % gridSize;
+        hint.set(row, col, board.getCorrectValue(row, col), null, true);
+        return true;
+    }
+
+    /**
+     * Steps the logical solver from the board's values until a step places a digit.
+     *
+     * @return true if a digit was placed and set as the hint.
+     */
+    private boolean findDeduction(SudokuBoard board) {
+        if (!solver.load(board)) {
+            return false;
+        }
+        Technique hardest = null;
+        Technique technique;
+        while ((technique = solver.step()) != null) {
+            if (hardest == null || technique.compareTo(hardest) > 0) {
+                hardest = technique;
+            }
+            int cell = solver.getLastCell();
+            if (cell >= 0) {
+                hint.set(cell / GRID_SIZE, cell % GRID_SIZE, solver.getLastDigit(), hardest, false);
+                return true;
+            }
+        }
+        return false;
+    }
+}
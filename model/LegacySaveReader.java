@@ -0,0 +1,136 @@
+package javafx.fxtest.model.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+
+/**
+ * Reads the .sudoku files written by earlier versions of the game, which saved the whole
+ * {@code SudokuBoard} object with Java serialization, holding a 9x9 array of {@code Cell} objects.
+ * The saved classes are read into private copies with the same fields, so the reading doesn't depend
+ * on how the current classes look, and any other class in the file is refused.
+ */
+class LegacySaveReader extends ObjectInputStream {
+
+    private static final String BOARD_CLASS = "javafx.fxtest.model.model.SudokuBoard";
+    private static final String CELL_CLASS = "javafx.fxtest.model.model.Cell";
+
+    /**
+     * The fields of a saved board.
+     */
+    private static class SavedBoard implements Serializable {
+        // the UID in the stream is never compared with this one, readClassDescriptor swaps in the local descriptor
+        private static final long serialVersionUID = 1L;
+
+        private SavedCell[][] sudokuBoard;
+        private SudokuUtilities.SudokuLevel theDifficulty;
+    }
+
+    /**
+     * The fields of a saved cell.
+     */
+    private static class SavedCell implements Serializable {
+        // ignored when reading like the one of SavedBoard, see readClassDescriptor
+        private static final long serialVersionUID = 1L;
+
+        private int currentCellValue;
+        private boolean isImmutable;
+        private int correctValue;
+    }
+
+    private LegacySaveReader(InputStream in) throws IOException {
+        super(in);
+    }
+
+    /**
+     * Reads a board saved by an earlier version of the game.
+     *
+     * @param in The stream holding the saved board.
+     * @return The board.
+     * @throws IOException if the stream fails or does not hold a saved board.
+     */
+    static SudokuBoard read(InputStream in) throws IOException {
+        SavedBoard saved;
+        try (LegacySaveReader reader = new LegacySaveReader(in)) {
+            saved = (SavedBoard) reader.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Not a saved Sudoku board", e);
+        }
+
+        SavedCell[][] cells = saved.sudokuBoard;
+        int gridSize = SudokuUtilities.GRID_SIZE;
+        if (cells == null || cells.length != gridSize || saved.theDifficulty == null) {
+            throw new IOException("Not a saved Sudoku board");
+        }
+        int[][][] sudokuMatrix = new int[gridSize][gridSize][2];
+        for (int row = 0; row < gridSize; row++) {
+            if (cells[row] == null || cells[row].length != gridSize) {
+                throw new IOException("Not a saved Sudoku board");
+            }
+            for (int col = 0; col < gridSize; col++) {
+                SavedCell cell = cells[row][col];
+                if (cell == null || cell.currentCellValue < 0 || cell.currentCellValue > gridSize
+                        || cell.correctValue < 0 || cell.correctValue > gridSize) {
+                    throw new IOException("Corrupt save in cell (" + row + ", " + col + ")");
+                }
+                sudokuMatrix[row][col][0] = cell.isImmutable ? cell.currentCellValue : 0;
+                sudokuMatrix[row][col][1] = cell.correctValue;
+            }
+        }
+
+        SudokuBoard board = new SudokuBoard(sudokuMatrix, saved.theDifficulty);
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                SavedCell cell = cells[row][col];
+                if (!cell.isImmutable && cell.currentCellValue != 0) {
+                    board.setCell(row, col, cell.currentCellValue);
+                }
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Replaces the descriptions of the saved board and cell classes, and of the cell arrays,
+     * with those of the private copies.
+     * The copies have the same fields, so the saved data is read the same way.
+     */
+    @Override
+    protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+        ObjectStreamClass descriptor = super.readClassDescriptor();
+        switch (descriptor.getName()) {
+            case BOARD_CLASS: return ObjectStreamClass.lookup(SavedBoard.class);
+            case CELL_CLASS: return ObjectStreamClass.lookup(SavedCell.class);
+            case "[L" + CELL_CLASS + ";": return ObjectStreamClass.lookup(SavedCell[].class);
+            case "[[L" + CELL_CLASS + ";": return ObjectStreamClass.lookup(SavedCell[][].class);
+            default: return descriptor;
+        }
+    }
+
+    /**
+     * Only lets the classes of a saved board be loaded.
+     */
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass descriptor) throws IOException, ClassNotFoundException {
+        String name = descriptor.getName();
+        if (name.equals(SavedBoard.class.getName())) {
+            return SavedBoard.class;
+        }
+        if (name.equals(SavedCell.class.getName())) {
+            return SavedCell.class;
+        }
+        if (name.equals(SavedCell[].class.getName())) {
+            return SavedCell[].class;
+        }
+        if (name.equals(SavedCell[][].class.getName())) {
+            return SavedCell[][].class;
+        }
+        if (name.equals(SudokuUtilities.SudokuLevel.class.getName()) || name.equals(Enum.class.getName())) {
+            return super.resolveClass(descriptor);
+        }
+        throw new InvalidClassException(name, "Not allowed in a saved Sudoku board");
+    }
+}
@@ -0,0 +1,630 @@
+package javafx.fxtest.model.model;
+
+import java.util.Arrays;
+
+import static javafx.fxtest.model.model.SudokuUtilities.GRID_SIZE;
+
+/**
+ * Solves a puzzle the way a person would, one deduction at a time, using the techniques in {@link Technique}.
+ * The candidates of every cell are kept as a 9-bit mask, bit {@code n - 1} standing for digit {@code n},
+ * and every placement removes its digit from the 20 peers of the cell.
+ * Each call to {@link #step()} uses the easiest technique that makes progress.
+ * A solver is not thread safe and is meant to be reused, it does not allocate while solving.
+ */
+public class LogicalSolver {
+
+    private static final int CELL_COUNT = GRID_SIZE * GRID_SIZE;
+    private static final int ALL_DIGITS = checkWinConditions.ALL_DIGITS;
+
+    // units 0-8 are the rows, 9-17 the columns and 18-26 the boxes
+    private static final int[][] UNITS = new int[3 * GRID_SIZE][GRID_SIZE];
+    private static final int[][] PEERS = new int[CELL_COUNT][20];
+    // boxes first, since a hidden single in a box is the easiest to spot
+    private static final int[] HIDDEN_SINGLE_ORDER = new int[3 * GRID_SIZE];
+
+    static {
+        for (int i = 0; i < GRID_SIZE; i++) {
+            for (int j = 0; j < GRID_SIZE; j++) {
+                UNITS[i][j] = i * GRID_SIZE + j;
+                UNITS[GRID_SIZE + i][j] = j * GRID_SIZE + i;
+                UNITS[2 * GRID_SIZE + i][j] = ((i / 3) * 3 + j / 3) * GRID_SIZE + (i % 3) * 3 + j % 3;
+            }
+        }
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            int row = cell / GRID_SIZE;
+            int col = cell % GRID_SIZE;
+            int count = 0;
+            for (int other = 0; other < CELL_COUNT; other++) {
+                int otherRow = other / GRID_SIZE;
+                int otherCol = other % GRID_SIZE;
+                if (other != cell && (otherRow == row || otherCol == col
+                        || checkWinConditions.boxIndex(row, col) == checkWinConditions.boxIndex(otherRow, otherCol))) {
+                    PEERS[cell][count++] = other;
+                }
+            }
+        }
+        for (int i = 0; i < 3 * GRID_SIZE; i++) {
+            HIDDEN_SINGLE_ORDER[i] = (i + 2 * GRID_SIZE) % (3 * GRID_SIZE);
+        }
+    }
+
+    private final int[] values = new int[CELL_COUNT];
+    private final int[] candidates = new int[CELL_COUNT];
+    private final int[] subset = new int[GRID_SIZE];
+    private final int[] unitMasks = new int[3 * GRID_SIZE];
+    // positions[digit][unit] holds the positions (0-8) within the unit where the digit is a candidate
+    private final int[][] positions = new int[GRID_SIZE][3 * GRID_SIZE];
+    private int emptyCells;
+    private boolean broken;
+    private boolean singleStep;
+
+    private int lastCell;
+    private int lastDigit;
+
+    /**
+     * Loads a puzzle and computes the candidates of all empty cells.
+     *
+     * @param grid The puzzle stored cell by cell, row by row, with 0 for empty cells.
+     * @return {@code false} if the clues break the rules, otherwise {@code true}.
+     */
+    public boolean load(int[] grid) {
+        Arrays.fill(unitMasks, 0);
+        emptyCells = CELL_COUNT;
+        broken = false;
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            int digit = grid[cell];
+            values[cell] = digit;
+            if (digit == 0) {
+                continue;
+            }
+            int row = cell / GRID_SIZE;
+            int col = cell % GRID_SIZE;
+            int box = GRID_SIZE + GRID_SIZE + checkWinConditions.boxIndex(row, col);
+            int bit = checkWinConditions.digitBit(digit);
+            if (((unitMasks[row] | unitMasks[GRID_SIZE + col] | unitMasks[box]) & bit) != 0) {
+                broken = true;
+                return false;
+            }
+            unitMasks[row] |= bit;
+            unitMasks[GRID_SIZE + col] |= bit;
+            unitMasks[box] |= bit;
+            emptyCells--;
+        }
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            if (values[cell] != 0) {
+                candidates[cell] = 0;
+                continue;
+            }
+            int row = cell / GRID_SIZE;
+            int col = cell % GRID_SIZE;
+            candidates[cell] = checkWinConditions.candidateMask(unitMasks[row], unitMasks[GRID_SIZE + col],
+                    unitMasks[GRID_SIZE + GRID_SIZE + checkWinConditions.boxIndex(row, col)]);
+            if (candidates[cell] == 0) {
+                broken = true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Loads the position on a 9x9 board. The candidates are taken from the row, column and box masks
+     * the board keeps up to date on every change, instead of being worked out again from the values.
+     *
+     * @param board The board.
+     * @return {@code false} if values on the board break the rules, otherwise {@code true}.
+     * @throws IllegalArgumentException if the board is not 9x9.
+     */
+    public boolean load(SudokuBoard board) throws IllegalArgumentException {
+        if (board.getGridSize() != GRID_SIZE) {
+            throw new IllegalArgumentException("Error: Only 9x9 boards can be solved logically");
+        }
+        broken = !board.isFilledNumbersCorrect();
+        if (broken) {
+            return false;
+        }
+        emptyCells = CELL_COUNT - board.getFilledCells();
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            int row = cell / GRID_SIZE;
+            int col = cell % GRID_SIZE;
+            values[cell] = board.getCurrentValue(row, col);
+            candidates[cell] = values[cell] == 0 ? board.getCandidates(row, col) : 0;
+            if (values[cell] == 0 && candidates[cell] == 0) {
+                broken = true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets if each step should stop after the first deduction, as needed when giving hints,
+     * or apply every deduction of the technique at once, which is faster when grading.
+     *
+     * @param singleStep {@code true} to stop after one deduction.
+     */
+    public void setSingleStep(boolean singleStep) {
+        this.singleStep = singleStep;
+    }
+
+    /**
+     * Makes progress with the easiest technique that finds something.
+     *
+     * @return The technique that was used, or {@code null} if the puzzle is solved, broken,
+     * or can't be continued without guessing.
+     */
+    public Technique step() {
+        lastCell = -1;
+        lastDigit = 0;
+        if (broken || emptyCells == 0) {
+            return null;
+        }
+        if (hiddenSingles()) {
+            return Technique.HIDDEN_SINGLE;
+        }
+        if (nakedSingles()) {
+            return Technique.NAKED_SINGLE;
+        }
+        if (broken) {
+            return null;
+        }
+        if (pointing()) {
+            return Technique.POINTING;
+        }
+        if (claiming()) {
+            return Technique.CLAIMING;
+        }
+        if (nakedSubsets(2)) {
+            return Technique.NAKED_PAIR;
+        }
+        if (fish(2)) {
+            return Technique.X_WING;
+        }
+        if (hiddenSubsets(2)) {
+            return Technique.HIDDEN_PAIR;
+        }
+        if (nakedSubsets(3)) {
+            return Technique.NAKED_TRIPLE;
+        }
+        if (fish(3)) {
+            return Technique.SWORDFISH;
+        }
+        if (hiddenSubsets(3)) {
+            return Technique.HIDDEN_TRIPLE;
+        }
+        return null;
+    }
+
+    /**
+     * Checks if every cell has a value.
+     * @return true if solved
+     */
+    public boolean isSolved() {
+        return emptyCells == 0 && !broken;
+    }
+
+    /**
+     * Checks if a contradiction was found, i.e. the puzzle has no solution from the current position.
+     * @return true if a cell or digit has no place left
+     */
+    public boolean isBroken() {
+        return broken;
+    }
+
+    /**
+     * Returns the cell filled by the last step, or -1 if the last step only removed candidates.
+     * Only meaningful in single step mode.
+     * @return cell index, row by row
+     */
+    public int getLastCell() {
+        return lastCell;
+    }
+
+    /**
+     * Returns the digit placed by the last step, or 0 if the last step only removed candidates.
+     * Only meaningful in single step mode.
+     * @return digit
+     */
+    public int getLastDigit() {
+        return lastDigit;
+    }
+
+    /**
+     * Returns the value of a cell.
+     * @param cell cell index, row by row
+     * @return value, 0 if still empty
+     */
+    public int getValue(int cell) {
+        return values[cell];
+    }
+
+    /**
+     * Returns the remaining candidates of a cell.
+     * @param cell cell index, row by row
+     * @return candidate mask, 0 for a filled cell
+     */
+    public int getCandidates(int cell) {
+        return candidates[cell];
+    }
+
+    /**
+     * Removes candidates from a cell, for example the ones a player has crossed out.
+     * @param cell cell index, row by row
+     * @param mask candidates to remove
+     */
+    public void removeCandidates(int cell, int mask) {
+        if (values[cell] == 0 && (candidates[cell] &= ~mask) == 0) {
+            broken = true;
+        }
+    }
+
+    private void place(int cell, int digit) {
+        int bit = checkWinConditions.digitBit(digit);
+        values[cell] = digit;
+        candidates[cell] = 0;
+        emptyCells--;
+        for (int peer : PEERS[cell]) {
+            if ((candidates[peer] & bit) != 0 && (candidates[peer] &= ~bit) == 0) {
+                broken = true;
+            }
+        }
+        lastCell = cell;
+        lastDigit = digit;
+    }
+
+    /**
+     * Removes a set of candidates from a cell.
+     * @return true if something was removed
+     */
+    private boolean eliminate(int cell, int mask) {
+        if ((candidates[cell] & mask) == 0) {
+            return false;
+        }
+        if ((candidates[cell] &= ~mask) == 0) {
+            broken = true;
+        }
+        return true;
+    }
+
+    /**
+     * A digit that has only one possible cell left in a unit goes there.
+     */
+    private boolean hiddenSingles() {
+        boolean progress = false;
+        for (int unit : HIDDEN_SINGLE_ORDER) {
+            int[] cells = UNITS[unit];
+            int once = 0;
+            int more = 0;
+            for (int cell : cells) {
+                more |= once & candidates[cell];
+                once |= candidates[cell];
+            }
+            int single = once & ~more;
+            while (single != 0) {
+                int bit = single & -single;
+                single ^= bit;
+                for (int cell : cells) {
+                    if ((candidates[cell] & bit) != 0) {
+                        place(cell, Integer.numberOfTrailingZeros(bit) + 1);
+                        if (singleStep) {
+                            return true;
+                        }
+                        progress = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * A cell that has only one candidate left gets that digit.
+     */
+    private boolean nakedSingles() {
+        boolean progress = false;
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            if (values[cell] != 0) {
+                continue;
+            }
+            int mask = candidates[cell];
+            if (mask == 0) {
+                broken = true;
+                return false;
+            }
+            if ((mask & (mask - 1)) == 0) {
+                place(cell, Integer.numberOfTrailingZeros(mask) + 1);
+                if (singleStep) {
+                    return true;
+                }
+                progress = true;
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * A digit that is confined to one row (or column) of a box can't be anywhere else in that row (or column).
+     */
+    private boolean pointing() {
+        boolean progress = false;
+        for (int box = 0; box < GRID_SIZE; box++) {
+            int[] cells = UNITS[2 * GRID_SIZE + box];
+            for (int line = 0; line < 3; line++) {
+                int inRow = 0;
+                int otherRows = 0;
+                int inCol = 0;
+                int otherCols = 0;
+                for (int i = 0; i < GRID_SIZE; i++) {
+                    int mask = candidates[cells[i]];
+                    if (i / 3 == line) {
+                        inRow |= mask;
+                    } else {
+                        otherRows |= mask;
+                    }
+                    if (i % 3 == line) {
+                        inCol |= mask;
+                    } else {
+                        otherCols |= mask;
+                    }
+                }
+                int rowOnly = inRow & ~otherRows;
+                int colOnly = inCol & ~otherCols;
+                int row = cells[line * 3] / GRID_SIZE;
+                int col = cells[line] % GRID_SIZE;
+                if (rowOnly != 0 && eliminateOutsideBox(UNITS[row], box, rowOnly)
+                        || colOnly != 0 && eliminateOutsideBox(UNITS[GRID_SIZE + col], box, colOnly)) {
+                    if (singleStep) {
+                        return true;
+                    }
+                    progress = true;
+                }
+            }
+        }
+        return progress;
+    }
+
+    private boolean eliminateOutsideBox(int[] line, int box, int mask) {
+        boolean progress = false;
+        for (int cell : line) {
+            if (checkWinConditions.boxIndex(cell / GRID_SIZE, cell % GRID_SIZE) != box) {
+                progress |= eliminate(cell, mask);
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * A digit that is confined to one box within a row (or column) can't be anywhere else in that box.
+     */
+    private boolean claiming() {
+        boolean progress = false;
+        for (int unit = 0; unit < 2 * GRID_SIZE; unit++) {
+            int[] cells = UNITS[unit];
+            for (int segment = 0; segment < 3; segment++) {
+                int inSegment = 0;
+                int outside = 0;
+                for (int i = 0; i < GRID_SIZE; i++) {
+                    if (i / 3 == segment) {
+                        inSegment |= candidates[cells[i]];
+                    } else {
+                        outside |= candidates[cells[i]];
+                    }
+                }
+                int claimed = inSegment & ~outside;
+                if (claimed == 0) {
+                    continue;
+                }
+                int first = cells[segment * 3];
+                int box = checkWinConditions.boxIndex(first / GRID_SIZE, first % GRID_SIZE);
+                boolean found = false;
+                for (int cell : UNITS[2 * GRID_SIZE + box]) {
+                    boolean inLine = unit < GRID_SIZE ? cell / GRID_SIZE == unit : cell % GRID_SIZE == unit - GRID_SIZE;
+                    if (!inLine) {
+                        found |= eliminate(cell, claimed);
+                    }
+                }
+                if (found) {
+                    if (singleStep) {
+                        return true;
+                    }
+                    progress = true;
+                }
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * When size cells of a unit have only size candidates between them,
+     * those candidates can be removed from the rest of the unit.
+     */
+    private boolean nakedSubsets(int size) {
+        boolean progress = false;
+        for (int[] cells : UNITS) {
+            int count = 0;
+            for (int i = 0; i < GRID_SIZE; i++) {
+                int bits = Integer.bitCount(candidates[cells[i]]);
+                if (bits >= 2 && bits <= size) {
+                    subset[count++] = i;
+                }
+            }
+            if (count < size) {
+                continue;
+            }
+            if (findNakedSubset(cells, count, size, 0, 0, 0, 0)) {
+                if (singleStep) {
+                    return true;
+                }
+                progress = true;
+            }
+        }
+        return progress;
+    }
+
+    private boolean findNakedSubset(int[] cells, int count, int size, int start, int depth, int chosen, int union) {
+        if (depth == size) {
+            if (Integer.bitCount(union) != size) {
+                return false;
+            }
+            boolean progress = false;
+            for (int i = 0; i < GRID_SIZE; i++) {
+                if ((chosen & (1 << i)) == 0) {
+                    progress |= eliminate(cells[i], union);
+                }
+            }
+            return progress;
+        }
+        for (int i = start; i < count; i++) {
+            int index = subset[i];
+            int newUnion = union | candidates[cells[index]];
+            if (Integer.bitCount(newUnion) <= size
+                    && findNakedSubset(cells, count, size, i + 1, depth + 1, chosen | (1 << index), newUnion)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * When size digits of a unit can only go in the same size cells,
+     * those cells can't hold any other digit.
+     */
+    private boolean hiddenSubsets(int size) {
+        boolean progress = false;
+        computePositions();
+        for (int unit = 0; unit < UNITS.length; unit++) {
+            int[] cells = UNITS[unit];
+            int count = 0;
+            for (int digit = 0; digit < GRID_SIZE; digit++) {
+                int places = positions[digit][unit];
+                int bits = Integer.bitCount(places);
+                if (bits >= 2 && bits <= size) {
+                    subset[count++] = digit;
+                }
+            }
+            if (count < size) {
+                continue;
+            }
+            if (findHiddenSubset(unit, count, size, 0, 0, 0, 0)) {
+                if (singleStep) {
+                    return true;
+                }
+                progress = true;
+            }
+        }
+        return progress;
+    }
+
+    private boolean findHiddenSubset(int unit, int count, int size, int start, int depth, int digits, int places) {
+        if (depth == size) {
+            if (Integer.bitCount(places) != size) {
+                return false;
+            }
+            int[] cells = UNITS[unit];
+            boolean progress = false;
+            for (int i = 0; i < GRID_SIZE; i++) {
+                if ((places & (1 << i)) != 0) {
+                    progress |= eliminate(cells[i], ~digits & ALL_DIGITS);
+                }
+            }
+            return progress;
+        }
+        for (int i = start; i < count; i++) {
+            int digit = subset[i];
+            int newPlaces = places | positions[digit][unit];
+            if (Integer.bitCount(newPlaces) <= size
+                    && findHiddenSubset(unit, count, size, i + 1, depth + 1, digits | (1 << digit), newPlaces)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fills in the positions of every digit in every unit in one pass over the cells.
+     * The table is only refreshed when a technique starts; eliminations made while the technique
+     * runs only make the real positions fewer, so deductions made from the table stay valid.
+     */
+    private void computePositions() {
+        for (int[] digitPositions : positions) {
+            Arrays.fill(digitPositions, 0);
+        }
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            int mask = candidates[cell];
+            if (mask == 0) {
+                continue;
+            }
+            int row = cell / GRID_SIZE;
+            int col = cell % GRID_SIZE;
+            int box = GRID_SIZE + GRID_SIZE + checkWinConditions.boxIndex(row, col);
+            int inBox = (row % 3) * 3 + col % 3;
+            while (mask != 0) {
+                int digit = Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+                int[] digitPositions = positions[digit];
+                digitPositions[row] |= 1 << col;
+                digitPositions[GRID_SIZE + col] |= 1 << row;
+                digitPositions[box] |= 1 << inBox;
+            }
+        }
+    }
+
+    /**
+     * When a digit is confined to the same size columns in size rows (X-Wing for 2, Swordfish for 3),
+     * it can be removed from those columns in every other row, and the same with rows and columns swapped.
+     */
+    private boolean fish(int size) {
+        boolean progress = false;
+        computePositions();
+        for (int digit = 0; digit < GRID_SIZE; digit++) {
+            int bit = 1 << digit;
+            for (int base = 0; base < 2 * GRID_SIZE; base += GRID_SIZE) {
+                int count = 0;
+                for (int line = 0; line < GRID_SIZE; line++) {
+                    int bits = Integer.bitCount(positions[digit][base + line]);
+                    if (bits >= 2 && bits <= size) {
+                        subset[count++] = line;
+                    }
+                }
+                if (count >= size && findFish(base, bit, count, size, 0, 0, 0, 0)) {
+                    if (singleStep) {
+                        return true;
+                    }
+                    progress = true;
+                }
+            }
+        }
+        return progress;
+    }
+
+    private boolean findFish(int base, int bit, int count, int size, int start, int depth, int lines, int covers) {
+        if (depth == size) {
+            if (Integer.bitCount(covers) != size) {
+                return false;
+            }
+            // the cover lines are columns when the base lines are rows, and rows otherwise
+            int coverBase = GRID_SIZE - base;
+            boolean progress = false;
+            for (int cover = 0; cover < GRID_SIZE; cover++) {
+                if ((covers & (1 << cover)) == 0) {
+                    continue;
+                }
+                int[] cells = UNITS[coverBase + cover];
+                for (int i = 0; i < GRID_SIZE; i++) {
+                    if ((lines & (1 << i)) == 0) {
+                        progress |= eliminate(cells[i], bit);
+                    }
+                }
+            }
+            return progress;
+        }
+        for (int i = start; i < count; i++) {
+            int line = subset[i];
+            int newCovers = covers | positions[Integer.numberOfTrailingZeros(bit)][base + line];
+            if (Integer.bitCount(newCovers) <= size
+                    && findFish(base, bit, count, size, i + 1, depth + 1, lines | (1 << line), newCovers)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,110 @@
+package javafx.fxtest.model.model;
+
+/**
+ * A set of long values stored in one open addressing table, without boxing,
+ * taking between 11 and 22 bytes per value. Used to remember the canonical hashes of millions of puzzles.
+ * Values can only be added. The set is not thread safe.
+ */
+public class LongHashSet {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] table;
+    private int size;
+    private boolean containsZero; // 0 marks empty slots, so it is kept apart
+
+    /**
+     * Creates an empty set.
+     */
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates an empty set with room for a number of values before it has to grow.
+     *
+     * @param expected The number of values expected.
+     */
+    public LongHashSet(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3L / 4 < expected) {
+            capacity <<= 1;
+        }
+        table = new long[capacity];
+    }
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param value The value.
+     * @return true if the value was not in the set yet.
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int mask = table.length - 1;
+        int slot = (int) SeededRandom.mix(value) & mask;
+        while (table[slot] != 0) {
+            if (table[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+        size++;
+        if (size > table.length * 3L / 4) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a value is in the set.
+     *
+     * @param value The value.
+     * @return true if the value is in the set.
+     */
+    public boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int mask = table.length - 1;
+        int slot = (int) SeededRandom.mix(value) & mask;
+        while (table[slot] != 0) {
+            if (table[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private void grow() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        int mask = table.length - 1;
+        for (long value : old) {
+            if (value != 0) {
+                int slot = (int) SeededRandom.mix(value) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = value;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of values in the set
+     * @return number of values
+     */
+    public int size() {
+        return size;
+    }
+}
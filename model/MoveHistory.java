@@ -0,0 +1,224 @@
+package javafx.fxtest.model.model;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * The moves of a game, for undo and redo. Each move is packed into one int in a growing array,
+ * so recording, undoing and redoing a move are O(1) and allocate nothing, and a session of
+ * a hundred thousand moves takes 400 KB.
+ * <p>
+ * A move holds the cell index, the value before and after it, its kind, and whether it was made
+ * together with the move before it, like the cells emptied by one clear: moves made together are undone and redone together.
+ * A placement that takes its number out of the notes of other cells is followed by a {@link #NOTE} move for each
+ * of them, made together with it, so undoing the placement gives the notes back.
+ * When the history is full the oldest half is dropped. A history is not thread safe.
+ */
+public class MoveHistory {
+
+    /** A number placed by the player. */
+    public static final int PLACE = 0;
+    /** A cell cleared by the player. */
+    public static final int CLEAR = 1;
+    /** A value filled in or corrected by a hint. */
+    public static final int HINT = 2;
+    /** A digit taken out of the notes of a cell by the placement it was made with; the digit is kept as the value before. */
+    public static final int NOTE = 3;
+
+    // cell in bits 0-9, value before in 10-14, value after in 15-19, kind in 20-21, made together with the move before in 22
+    private static final int CELL_BITS = 10;
+    private static final int VALUE_BITS = 5;
+    private static final int OLD_SHIFT = CELL_BITS;
+    private static final int NEW_SHIFT = OLD_SHIFT + VALUE_BITS;
+    private static final int KIND_SHIFT = NEW_SHIFT + VALUE_BITS;
+    private static final int LINKED_BIT = 1 << (KIND_SHIFT + 2);
+
+    public static final int DEFAULT_MAX_MOVES = 1 << 20;
+
+    private int[] moves;
+    private int done; // the moves before this index are done, the ones after it up to end can be redone
+    private int end;
+    private final int maxMoves;
+
+    /**
+     * Creates an empty history keeping up to {@link #DEFAULT_MAX_MOVES} moves.
+     */
+    public MoveHistory() {
+        this(DEFAULT_MAX_MOVES);
+    }
+
+    /**
+     * Creates an empty history.
+     *
+     * @param maxMoves The number of moves kept before the oldest half is dropped, at least 2.
+     */
+    public MoveHistory(int maxMoves) {
+        if (maxMoves < 2) {
+            throw new IllegalArgumentException("Error: A history must keep at least 2 moves");
+        }
+        this.maxMoves = maxMoves;
+        this.moves = new int[Math.min(64, maxMoves)];
+    }
+
+    /**
+     * Records a move that was just made. The moves that could be redone are forgotten.
+     *
+     * @param kind {@link #PLACE}, {@link #CLEAR}, {@link #HINT} or {@link #NOTE}.
+     * @param cell The index of the cell, {@code row * gridSize + col}.
+     * @param oldValue The value of the cell before the move, 0 if it was empty.
+     * @param newValue The value of the cell after the move, 0 if it was cleared.
+     * @param withPrevious true if the move was made together with the move recorded before it.
+     */
+    public void record(int kind, int cell, int oldValue, int newValue, boolean withPrevious) {
+        if (done == moves.length) {
+            if (done == maxMoves) {
+                // drop the oldest half; a move linked to a dropped one is simply undone on its own
+                int kept = maxMoves / 2;
+                System.arraycopy(moves, done - kept, moves, 0, kept);
+                done = kept;
+            } else {
+                moves = Arrays.copyOf(moves, Math.min(moves.length * 2, maxMoves));
+            }
+        }
+        int linked = withPrevious && done > 0 ? LINKED_BIT : 0;
+        moves[done++] = cell | oldValue << OLD_SHIFT | newValue << NEW_SHIFT | kind << KIND_SHIFT | linked;
+        end = done;
+    }
+
+    /**
+     * Records the notes a placement took its number out of, as {@link #NOTE} moves made together with it.
+     * Call it right after recording the placement.
+     *
+     * @param digit The number placed.
+     * @param cells The indexes of the cells whose notes lost the number.
+     * @param count The number of cells.
+     */
+    public void recordNotes(int digit, int[] cells, int count) {
+        for (int i = 0; i < count; i++) {
+            record(NOTE, cells[i], digit, 0, true);
+        }
+    }
+
+    /**
+     * Undoes the last move, together with the moves made with it, by setting their cells back on the board.
+     *
+     * @param board The board the moves were made on.
+     * @param changedCell Told the index of every cell set back or given back its notes, in the order they are set.
+     * @return The number of cells set back, 0 if there was nothing to undo.
+     */
+    public int undo(SudokuBoard board, IntConsumer changedCell) {
+        int gridSize = board.getGridSize();
+        int count = 0;
+        while (done > 0) {
+            int move = moves[--done];
+            int cell = cellOf(move);
+            if (kindOf(move) == NOTE) {
+                board.setNote(cell / gridSize, cell % gridSize, oldValueOf(move), true);
+            } else {
+                board.setCell(cell / gridSize, cell % gridSize, oldValueOf(move));
+            }
+            changedCell.accept(cell);
+            count++;
+            if ((move & LINKED_BIT) == 0) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Redoes the last undone move, together with the moves made with it.
+     *
+     * @param board The board the moves were made on.
+     * @param changedCell Told the index of every cell set again or whose notes are taken away again, in the order they are set.
+     * @return The number of cells set again, 0 if there was nothing to redo.
+     */
+    public int redo(SudokuBoard board, IntConsumer changedCell) {
+        int gridSize = board.getGridSize();
+        int count = 0;
+        while (done < end && (count == 0 || (moves[done] & LINKED_BIT) != 0)) {
+            int move = moves[done++];
+            int cell = cellOf(move);
+            if (kindOf(move) == NOTE) {
+                board.setNote(cell / gridSize, cell % gridSize, oldValueOf(move), false);
+            } else {
+                board.setCell(cell / gridSize, cell % gridSize, newValueOf(move));
+            }
+            changedCell.accept(cell);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Checks if there is a move to undo
+     * @return true if a move can be undone
+     */
+    public boolean canUndo() {
+        return done > 0;
+    }
+
+    /**
+     * Checks if there is a move to redo
+     * @return true if a move can be redone
+     */
+    public boolean canRedo() {
+        return done < end;
+    }
+
+    /**
+     * Returns the kind of the move that would be undone next, {@link #PLACE}, {@link #CLEAR} or {@link #HINT}
+     * @return kind of the move, -1 if there is nothing to undo
+     */
+    public int getUndoKind() {
+        if (done == 0) {
+            return -1;
+        }
+        // the kind of a group of moves is the kind of its first move, the notes a placement took away follow it
+        int first = done - 1;
+        while (first > 0 && (moves[first] & LINKED_BIT) != 0 && kindOf(moves[first]) == NOTE) {
+            first--;
+        }
+        return kindOf(moves[first]);
+    }
+
+    /**
+     * Returns the kind of the move that would be redone next, {@link #PLACE}, {@link #CLEAR} or {@link #HINT}
+     * @return kind of the move, -1 if there is nothing to redo
+     */
+    public int getRedoKind() {
+        return done < end ? kindOf(moves[done]) : -1;
+    }
+
+    /**
+     * Returns the number of moves that can be undone
+     * @return number of moves
+     */
+    public int size() {
+        return done;
+    }
+
+    /**
+     * Forgets all moves, for a new game.
+     */
+    public void clear() {
+        done = 0;
+        end = 0;
+    }
+
+    private static int cellOf(int move) {
+        return move & ((1 << CELL_BITS) - 1);
+    }
+
+    private static int oldValueOf(int move) {
+        return (move >>> OLD_SHIFT) & ((1 << VALUE_BITS) - 1);
+    }
+
+    private static int newValueOf(int move) {
+        return (move >>> NEW_SHIFT) & ((1 << VALUE_BITS) - 1);
+    }
+
+    private static int kindOf(int move) {
+        return (move >>> KIND_SHIFT) & 3;
+    }
+}
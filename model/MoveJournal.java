@@ -0,0 +1,370 @@
+package javafx.fxtest.model.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Autosaves the game being played as a snapshot of the board plus a journal of the moves made since,
+ * so the last session can be rebuilt after the game is closed or crashes.
+ * <p>
+ * Every move is appended to the journal as a 4 byte record: the cell (2 bytes), the value placed
+ * in it (0 when it was cleared) and a check byte. The record is written to the file right away,
+ * which costs a few microseconds, and the file is forced to the disk in batches by a background thread,
+ * so a crash of the game loses none of the moves written to the journal and a crash of the whole machine
+ * at most the last second of moves.
+ * When the journal has grown by {@link #DEFAULT_COMPACT_AFTER} moves it is compacted: the board is encoded
+ * to a new snapshot in the {@link BoardCodec} format right away, and the background thread writes it and starts
+ * the journal over, so recording a move never waits for the disk. The moves made until the new journal is started
+ * are only kept in memory and written to it first, so a crash during a compaction, which takes some milliseconds,
+ * loses them.
+ * <p>
+ * An error of the background thread can't be thrown to the caller right away, it is thrown by the next call instead.
+ * <p>
+ * The snapshot and the journal carry a generation number, which changes with every new snapshot,
+ * so a journal left behind by a crash during compaction is never replayed on the wrong snapshot.
+ */
+public class MoveJournal implements Closeable {
+
+    public static final String SNAPSHOT_FILE = "session.snapshot";
+    public static final String JOURNAL_FILE = "session.journal";
+    public static final int RECORD_BYTES = 4;
+    public static final int DEFAULT_COMPACT_AFTER = 256;
+    public static final long SYNC_INTERVAL_MILLIS = 1000;
+
+    private static final int MAGIC = 0x53444B4A; // "SDKJ"
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final int compactAfter;
+    private final FileChannel journal;
+    private final ByteBuffer record = ByteBuffer.allocateDirect(RECORD_BYTES);
+    private final ByteBuffer header = ByteBuffer.allocateDirect(HEADER_BYTES);
+    private final ScheduledExecutorService syncer; // forces the journal and writes the snapshots, in order
+    private final ByteBuffer pending; // the moves made since the last snapshot was asked for, until it is written
+
+    private SudokuBoard board;
+    private int generation; // of the last snapshot asked for
+    private boolean compacting; // true until the journal of the last snapshot asked for is started
+    private long position;
+    private int records;
+    private boolean unsynced;
+    private volatile IOException failure; // of the background thread, thrown by the next call
+
+    private long appendedMoves;
+    private long appendNanos;
+    private long compactions;
+
+    /**
+     * Opens the journal in a directory with the default compaction interval.
+     *
+     * @param directory The directory holding the snapshot and journal files, created if missing.
+     * @throws IOException if the journal can't be opened.
+     */
+    public MoveJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_COMPACT_AFTER);
+    }
+
+    /**
+     * Opens the journal in a directory. No moves are recorded until a session is started.
+     *
+     * @param directory The directory holding the snapshot and journal files, created if missing.
+     * @param compactAfter The number of moves after which the journal is compacted into a snapshot.
+     * @throws IOException if the journal can't be opened.
+     * @throws IllegalArgumentException if compactAfter is not positive.
+     */
+    public MoveJournal(Path directory, int compactAfter) throws IOException, IllegalArgumentException {
+        if (compactAfter < 1) {
+            throw new IllegalArgumentException("Error: Not a valid compaction interval");
+        }
+        this.directory = directory;
+        this.compactAfter = compactAfter;
+        Files.createDirectories(directory);
+        this.generation = readGeneration(directory.resolve(SNAPSHOT_FILE));
+        this.pending = ByteBuffer.allocate(compactAfter * RECORD_BYTES);
+        this.journal = FileChannel.open(directory.resolve(JOURNAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        syncer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "journal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncer.scheduleWithFixedDelay(() -> {
+            try {
+                sync();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }, SYNC_INTERVAL_MILLIS, SYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts journaling a board, for a new or loaded game, by encoding it as the snapshot
+     * which is written with an empty journal after it in the background.
+     * The board must not be changed afterwards without recording the move.
+     *
+     * @param board The board being played.
+     * @throws IOException if the background thread failed to write to the disk since the last call.
+     */
+    public synchronized void startSession(SudokuBoard board) throws IOException {
+        checkFailure();
+        this.board = board;
+        compact();
+    }
+
+    /**
+     * Appends a move to the journal. Call it after the move has been made on the board.
+     *
+     * @param row The row of the changed cell.
+     * @param col The column of the changed cell.
+     * @param value The value placed in the cell, 0 if it was cleared.
+     * @throws IOException if the record can't be written, or the background thread failed to write to the disk
+     * since the last call.
+     * @throws IllegalStateException if no session has been started.
+     */
+    public synchronized void recordMove(int row, int col, int value) throws IOException, IllegalStateException {
+        if (board == null) {
+            throw new IllegalStateException("No session started");
+        }
+        checkFailure();
+        long start = System.nanoTime();
+        int cell = row * board.getGridSize() + col;
+        record.clear();
+        record.putShort((short) cell).put((byte) value).put(checkByte(cell, value)).flip();
+        if (compacting) {
+            // the journal of the new snapshot isn't started yet
+            pending.put(record);
+        } else {
+            while (record.hasRemaining()) {
+                position += journal.write(record, position);
+            }
+            unsynced = true;
+        }
+        records++;
+        appendNanos += System.nanoTime() - start;
+        appendedMoves++;
+
+        if (records >= compactAfter) {
+            compact();
+        }
+    }
+
+    /**
+     * Encodes the board as a new snapshot and has the background thread write it and empty the journal.
+     * The moves recorded from now on are kept in memory until the journal is emptied.
+     */
+    private void compact() {
+        byte[] encoded = BoardCodec.encode(board);
+        int snapshotGeneration = ++generation;
+        compacting = true;
+        pending.clear(); // those moves are in the snapshot
+        records = 0;
+        syncer.execute(() -> {
+            try {
+                writeSnapshot(encoded, snapshotGeneration);
+            } catch (IOException e) {
+                failure = e;
+            }
+        });
+    }
+
+    /**
+     * Writes a snapshot and starts the journal over after it, with the moves recorded since it was encoded,
+     * only called on the background thread. The snapshot is written to a temporary file that replaces the old one
+     * in one step where the file system can, so there is always a complete snapshot on the disk, and the journal
+     * is only started over once it has. A snapshot is skipped if a newer one was asked for in the meantime.
+     *
+     * @param encoded The board, encoded when the snapshot was asked for.
+     * @param snapshotGeneration The generation of the snapshot.
+     */
+    private void writeSnapshot(byte[] encoded, int snapshotGeneration) throws IOException {
+        synchronized (this) {
+            if (snapshotGeneration != generation || !journal.isOpen()) {
+                return;
+            }
+        }
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer data = ByteBuffer.allocate(4 + encoded.length);
+            data.putInt(snapshotGeneration).put(encoded).flip();
+            while (data.hasRemaining()) {
+                out.write(data);
+            }
+            out.force(true);
+        }
+        try {
+            Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        synchronized (this) {
+            if (snapshotGeneration != generation) {
+                // the newer snapshot starts the journal over, until then the old journal is never replayed on this one
+                return;
+            }
+            journal.truncate(HEADER_BYTES);
+            header.clear();
+            header.putInt(MAGIC).putInt(snapshotGeneration).flip();
+            journal.write(header, 0);
+            position = HEADER_BYTES;
+            pending.flip();
+            while (pending.hasRemaining()) {
+                position += journal.write(pending, position);
+            }
+            pending.clear();
+            compacting = false;
+            unsynced = false;
+            compactions++;
+        }
+        journal.force(false);
+    }
+
+    /**
+     * Forces the moves written so far to the disk. Called every {@link #SYNC_INTERVAL_MILLIS}
+     * milliseconds by a background thread, and when the journal is closed.
+     * Moves can be recorded while the journal is forced, they are forced the next time.
+     *
+     * @throws IOException if the journal can't be forced to the disk.
+     */
+    public void sync() throws IOException {
+        synchronized (this) {
+            if (!unsynced || !journal.isOpen()) {
+                return;
+            }
+            unsynced = false;
+        }
+        journal.force(false);
+    }
+
+    /**
+     * Throws the error the background thread had, once.
+     */
+    private void checkFailure() throws IOException {
+        IOException error = failure;
+        if (error != null) {
+            failure = null;
+            throw error;
+        }
+    }
+
+    /**
+     * Rebuilds the last session from the snapshot and the journal in a directory.
+     * Journal records are replayed in order, stopping at the first one that is incomplete or damaged.
+     *
+     * @param directory The directory holding the snapshot and journal files.
+     * @return The board as it was after the last recorded move, or null if there is no session to recover.
+     * @throws IOException if the snapshot can't be read.
+     */
+    public static SudokuBoard recover(Path directory) throws IOException {
+        byte[] snapshot;
+        try {
+            snapshot = Files.readAllBytes(directory.resolve(SNAPSHOT_FILE));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (snapshot.length < 4) {
+            throw new IOException("Session snapshot is corrupt");
+        }
+        ByteBuffer data = ByteBuffer.wrap(snapshot);
+        int generation = data.getInt();
+        SudokuBoard board = BoardCodec.decode(snapshot, 4, snapshot.length - 4);
+
+        ByteBuffer moves;
+        try {
+            moves = ByteBuffer.wrap(Files.readAllBytes(directory.resolve(JOURNAL_FILE)));
+        } catch (NoSuchFileException e) {
+            return board;
+        }
+        if (moves.remaining() < HEADER_BYTES || moves.getInt() != MAGIC || moves.getInt() != generation) {
+            // the journal belongs to an older snapshot, whose moves the snapshot already holds
+            return board;
+        }
+        int gridSize = board.getGridSize();
+        while (moves.remaining() >= RECORD_BYTES) {
+            int cell = moves.getShort() & 0xFFFF;
+            int value = moves.get() & 0xFF;
+            if (moves.get() != checkByte(cell, value) || cell >= gridSize * gridSize || value > gridSize) {
+                break;
+            }
+            if (!board.isCellImmutable(cell / gridSize, cell % gridSize)) {
+                board.setCell(cell / gridSize, cell % gridSize, value);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Reads the generation of the snapshot in a file, 0 if there is none,
+     * so a new journal continues counting from the last session.
+     */
+    private static int readGeneration(Path snapshot) throws IOException {
+        try (FileChannel in = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            ByteBuffer generation = ByteBuffer.allocate(4);
+            return in.read(generation, 0) == 4 ? generation.getInt(0) : 0;
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    private static byte checkByte(int cell, int value) {
+        return (byte) (0xA5 ^ (cell >>> 8) ^ cell ^ value);
+    }
+
+    /**
+     * Returns the number of moves appended since the journal was opened
+     * @return number of moves
+     */
+    public synchronized long getAppendedMoves() {
+        return appendedMoves;
+    }
+
+    /**
+     * Returns the average time it took to append a move, not counting compactions.
+     * @return time in nanoseconds, 0 if no move has been appended
+     */
+    public synchronized long getAverageAppendNanos() {
+        return appendedMoves == 0 ? 0 : appendNanos / appendedMoves;
+    }
+
+    /**
+     * Returns the number of snapshots written since the journal was opened
+     * @return number of compactions
+     */
+    public synchronized long getCompactions() {
+        return compactions;
+    }
+
+    /**
+     * Waits for the snapshot asked for last to be written, forces the last moves to the disk and closes the journal.
+     *
+     * @throws IOException if the journal can't be forced to the disk, or the background thread failed to write to it.
+     */
+    @Override
+    public void close() throws IOException {
+        syncer.shutdown(); // the snapshots asked for are still written, the periodic sync stops
+        try {
+            syncer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            sync();
+        } finally {
+            journal.close();
+        }
+        checkFailure();
+    }
+}
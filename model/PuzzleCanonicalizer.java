@@ -0,0 +1,339 @@
+package javafx.fxtest.model.model;
+
+import java.util.Arrays;
+
+import static javafx.fxtest.model.model.SudokuUtilities.GRID_SIZE;
+import static javafx.fxtest.model.model.SudokuUtilities.SECTION_SIZE;
+
+/**
+ * Finds the canonical form of a 9x9 puzzle, so puzzles that are the same up to a symmetry of the grid,
+ * like the ones {@link PuzzleTransformer} derives, can be recognized as duplicates.
+ * <p>
+ * The canonical form is the smallest of all equivalent puzzles read row by row, with empty cells as 0
+ * and the digits relabelled 1, 2, 3... in the order they first appear. The equivalent puzzles are those
+ * reached by swapping rows within a band, columns within a stack, whole bands, whole stacks and transposing.
+ * Rather than trying all of them, the form is built one row at a time: the column orders that can give
+ * the smallest first row are tried with each of the 18 ways to pick it, only the ones giving the smallest
+ * first row are kept, and each following row only extends those. A puzzle with a normal number of givens
+ * takes some tens of microseconds, one with only a few givens, which has many equally small forms, much longer.
+ * <p>
+ * A canonicalizer reuses its buffers and is not thread safe, use one instance per thread.
+ */
+public class PuzzleCanonicalizer {
+
+    private static final int CELL_COUNT = GRID_SIZE * GRID_SIZE;
+    private static final int[][] PERMUTATIONS = {{0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}};
+    // every order of the columns, as the column of the puzzle shown at each position
+    private static final int[][] COLUMN_ORDERS = new int[1296][GRID_SIZE];
+
+    static {
+        int order = 0;
+        for (int[] stacks : PERMUTATIONS) {
+            for (int[] first : PERMUTATIONS) {
+                for (int[] second : PERMUTATIONS) {
+                    for (int[] third : PERMUTATIONS) {
+                        int[][] within = {first, second, third};
+                        for (int col = 0; col < GRID_SIZE; col++) {
+                            int stack = col / SECTION_SIZE;
+                            COLUMN_ORDERS[order][col] = stacks[stack] * SECTION_SIZE + within[stack][col % SECTION_SIZE];
+                        }
+                        order++;
+                    }
+                }
+            }
+        }
+    }
+
+    private final int[][] grids = new int[2][CELL_COUNT]; // the puzzle and its transpose
+    private final int[] canonical = new int[CELL_COUNT];
+    private final long[] rowCodes = new long[GRID_SIZE];
+    private final boolean[] seeded = new boolean[COLUMN_ORDERS.length];
+    private final int[] firstRows = new int[2]; // the rows of each grid that can come first
+
+    // the partial forms that are still smallest, in two sets of arrays swapped after every row
+    private Candidates current = new Candidates();
+    private Candidates next = new Candidates();
+
+    /**
+     * The partial forms kept after a row: which grid, which column order, which rows are used
+     * and which band is being filled, and the labels given to the digits so far.
+     */
+    private static final class Candidates {
+        int size;
+        int[] grid = new int[64];
+        int[] columns = new int[64];
+        int[] usedRows = new int[64];
+        int[] band = new int[64];
+        int[] labelCount = new int[64];
+        byte[] labels = new byte[64 * (GRID_SIZE + 1)];
+
+        void add(int grid, int columns, int usedRows, int band, int labelCount, byte[] labels, int labelsAt) {
+            if (size == this.grid.length) {
+                int capacity = size * 2;
+                this.grid = Arrays.copyOf(this.grid, capacity);
+                this.columns = Arrays.copyOf(this.columns, capacity);
+                this.usedRows = Arrays.copyOf(this.usedRows, capacity);
+                this.band = Arrays.copyOf(this.band, capacity);
+                this.labelCount = Arrays.copyOf(this.labelCount, capacity);
+                this.labels = Arrays.copyOf(this.labels, capacity * (GRID_SIZE + 1));
+            }
+            this.grid[size] = grid;
+            this.columns[size] = columns;
+            this.usedRows[size] = usedRows;
+            this.band[size] = band;
+            this.labelCount[size] = labelCount;
+            System.arraycopy(labels, labelsAt, this.labels, size * (GRID_SIZE + 1), GRID_SIZE + 1);
+            size++;
+        }
+    }
+
+    /**
+     * Finds the canonical form of a puzzle.
+     *
+     * @param puzzle The puzzle cell by cell, row by row, with 0 for empty cells.
+     * @return The canonical form in the same layout. The array is reused by the next call, so copy it to keep it.
+     * @throws IllegalArgumentException if the puzzle doesn't have 81 cells from 0 to 9.
+     */
+    public int[] canonicalize(int[] puzzle) throws IllegalArgumentException {
+        if (puzzle.length != CELL_COUNT) {
+            throw new IllegalArgumentException("Error: Only 9x9 puzzles can be canonicalized");
+        }
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            int value = puzzle[cell];
+            if (value < 0 || value > GRID_SIZE) {
+                throw new IllegalArgumentException("Error: Not a valid value " + value + " in cell " + cell);
+            }
+            grids[0][cell] = value;
+            grids[1][(cell % GRID_SIZE) * GRID_SIZE + cell / GRID_SIZE] = value;
+        }
+
+        boolean empty = true;
+        for (int cell = 0; cell < CELL_COUNT && empty; cell++) {
+            empty = puzzle[cell] == 0;
+        }
+        if (empty) {
+            // every order is the smallest, so there would be nothing to prune
+            Arrays.fill(canonical, 0);
+            Arrays.fill(rowCodes, 0);
+            return canonical;
+        }
+        seedFirstRow();
+        for (int row = 0; row < GRID_SIZE; row++) {
+            extend(row);
+        }
+
+        for (int row = 0; row < GRID_SIZE; row++) {
+            long code = rowCodes[row];
+            for (int col = GRID_SIZE - 1; col >= 0; col--) {
+                canonical[row * GRID_SIZE + col] = (int) (code & 0xF);
+                code >>>= 4;
+            }
+        }
+        return canonical;
+    }
+
+    /**
+     * Picks the column orders the first row can start from. With no digit labelled yet, the first row is smallest
+     * when its empty cells come as early as possible, which is when the stacks go from the fewest to the most givens
+     * with the empty cells first in each. So only the column orders giving that pattern of empty cells
+     * on a row with the smallest pattern need to be tried, instead of all of them.
+     */
+    private void seedFirstRow() {
+        int best = Integer.MAX_VALUE;
+        for (int[] grid : grids) {
+            for (int row = 0; row < GRID_SIZE; row++) {
+                best = Math.min(best, smallestPattern(grid, row));
+            }
+        }
+        byte[] labels = new byte[GRID_SIZE + 1];
+        current.size = 0;
+        for (int g = 0; g < grids.length; g++) {
+            int[] grid = grids[g];
+            Arrays.fill(seeded, false);
+            firstRows[g] = 0;
+            for (int row = 0; row < GRID_SIZE; row++) {
+                if (smallestPattern(grid, row) != best) {
+                    continue;
+                }
+                firstRows[g] |= 1 << row;
+                int filled = 0;
+                for (int col = 0; col < GRID_SIZE; col++) {
+                    filled |= (grid[row * GRID_SIZE + col] != 0 ? 1 : 0) << col;
+                }
+                seedOrders(g, filled, best, labels);
+            }
+        }
+    }
+
+    /**
+     * Adds the column orders that give a row with the given filled cells the wanted pattern, choosing the order
+     * of the stacks and then the order within each stack so its three cells match their part of the pattern.
+     */
+    private void seedOrders(int grid, int filled, int pattern, byte[] labels) {
+        int[][] within = new int[SECTION_SIZE][];
+        for (int stacks = 0; stacks < PERMUTATIONS.length; stacks++) {
+            boolean possible = true;
+            for (int position = 0; position < SECTION_SIZE && possible; position++) {
+                int cells = filled >>> (PERMUTATIONS[stacks][position] * SECTION_SIZE) & 7;
+                int wanted = pattern >>> ((SECTION_SIZE - 1 - position) * SECTION_SIZE) & 7;
+                within[position] = matchingOrders(cells, wanted);
+                possible = within[position].length > 0;
+            }
+            if (!possible) {
+                continue;
+            }
+            for (int first : within[0]) {
+                for (int second : within[1]) {
+                    for (int third : within[2]) {
+                        int order = ((stacks * 6 + first) * 6 + second) * 6 + third;
+                        if (!seeded[order]) {
+                            seeded[order] = true;
+                            current.add(grid, order, 0, -1, 0, labels, 0);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the orders of the three cells of a stack, with the given cells filled, that give the wanted pattern.
+     */
+    private static int[] matchingOrders(int cells, int wanted) {
+        int[] matching = new int[PERMUTATIONS.length];
+        int count = 0;
+        for (int order = 0; order < PERMUTATIONS.length; order++) {
+            int pattern = 0;
+            for (int cell : PERMUTATIONS[order]) {
+                pattern = pattern << 1 | (cells >>> cell & 1);
+            }
+            if (pattern == wanted) {
+                matching[count++] = order;
+            }
+        }
+        return Arrays.copyOf(matching, count);
+    }
+
+    /**
+     * Returns the smallest pattern of filled cells a row can be given by ordering the columns,
+     * one bit per cell with the first cell in the highest bit.
+     */
+    private static int smallestPattern(int[] grid, int row) {
+        int[] givens = new int[SECTION_SIZE];
+        for (int col = 0; col < GRID_SIZE; col++) {
+            if (grid[row * GRID_SIZE + col] != 0) {
+                givens[col / SECTION_SIZE]++;
+            }
+        }
+        Arrays.sort(givens);
+        int pattern = 0;
+        for (int count : givens) {
+            pattern = pattern << SECTION_SIZE | ((1 << count) - 1);
+        }
+        return pattern;
+    }
+
+    /**
+     * Extends every partial form by each row it may take next, and keeps the ones giving the smallest row.
+     * A new band can start with any row of a band not used yet, otherwise the rows left in the band are allowed.
+     */
+    private void extend(int row) {
+        next.size = 0;
+        long best = Long.MAX_VALUE;
+        boolean newBand = row % SECTION_SIZE == 0;
+        byte[] labels = current.labels;
+        int[] added = new int[GRID_SIZE];
+
+        for (int c = 0; c < current.size; c++) {
+            int[] grid = grids[current.grid[c]];
+            int[] columns = COLUMN_ORDERS[current.columns[c]];
+            int usedRows = current.usedRows[c];
+            int labelsAt = c * (GRID_SIZE + 1);
+            int allowedRows = row == 0 ? firstRows[current.grid[c]] : ~usedRows;
+            for (int source = 0; source < GRID_SIZE; source++) {
+                int band = source / SECTION_SIZE;
+                if ((allowedRows & (1 << source)) == 0 || (newBand ? usedBand(usedRows, band) : band != current.band[c])) {
+                    continue;
+                }
+                // the labels of the candidate are extended in place and put back after the row
+                int labelCount = current.labelCount[c];
+                int addedCount = 0;
+                long code = 0;
+                boolean larger = false;
+                for (int col = 0; col < GRID_SIZE; col++) {
+                    int value = grid[source * GRID_SIZE + columns[col]];
+                    if (value != 0) {
+                        if (labels[labelsAt + value] == 0) {
+                            labels[labelsAt + value] = (byte) ++labelCount;
+                            added[addedCount++] = value;
+                        }
+                        value = labels[labelsAt + value];
+                    }
+                    code = code << 4 | value;
+                    // stop as soon as the row is already larger than the best one
+                    if (code > best >>> (4 * (GRID_SIZE - 1 - col))) {
+                        larger = true;
+                        break;
+                    }
+                }
+                if (!larger) {
+                    if (code < best) {
+                        best = code;
+                        next.size = 0;
+                    }
+                    next.add(current.grid[c], current.columns[c], usedRows | 1 << source, band, labelCount, labels, labelsAt);
+                }
+                for (int i = 0; i < addedCount; i++) {
+                    labels[labelsAt + added[i]] = 0;
+                }
+            }
+        }
+        rowCodes[row] = best;
+        Candidates swap = current;
+        current = next;
+        next = swap;
+    }
+
+    private static boolean usedBand(int usedRows, int band) {
+        return (usedRows & (7 << (band * SECTION_SIZE))) != 0;
+    }
+
+    /**
+     * Returns a 64 bit hash of the canonical form of a puzzle, the same for all equivalent puzzles.
+     * Two different forms get the same hash with a chance of about one in 2^64, so for corpora of millions
+     * of puzzles the hash can stand for the form.
+     *
+     * @param puzzle The puzzle cell by cell, row by row, with 0 for empty cells.
+     * @return The hash.
+     * @throws IllegalArgumentException if the puzzle doesn't have 81 cells from 0 to 9.
+     */
+    public long canonicalHash(int[] puzzle) throws IllegalArgumentException {
+        canonicalize(puzzle);
+        long hash = 0;
+        for (long code : rowCodes) {
+            hash = SeededRandom.mix(hash ^ code);
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the hash of the canonical form of a puzzle in the format made by {@link SudokuUtilities#generateSudokuMatrix}.
+     * Only the initial values in [row][col][0] are used.
+     *
+     * @param sudokuMatrix The puzzle.
+     * @return The hash.
+     * @throws IllegalArgumentException if the puzzle is not 9x9.
+     */
+    public long canonicalHash(int[][][] sudokuMatrix) throws IllegalArgumentException {
+        if (sudokuMatrix.length != GRID_SIZE) {
+            throw new IllegalArgumentException("Error: Only 9x9 puzzles can be canonicalized");
+        }
+        int[] puzzle = new int[CELL_COUNT];
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                puzzle[row * GRID_SIZE + col] = sudokuMatrix[row][col][0];
+            }
+        }
+        return canonicalHash(puzzle);
+    }
+}
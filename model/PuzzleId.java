@@ -0,0 +1,199 @@
+package javafx.fxtest.model.model;
+
+/**
+ * Identifies a generated puzzle by the generator version, board size, seed and level it was generated with.
+ * Since generation is reproducible, the 11 bytes of an id (1 for the version, 1 for the section size,
+ * 8 for the seed and 1 for the level) are enough to store or send a puzzle instead of the whole board.
+ * A new version of the generator makes other puzzles from the same seeds, so an id can only be generated again
+ * by the version that made it. The 9-byte ids of the first version, which only made 9x9 puzzles, are still read.
+ */
+public class PuzzleId {
+
+    public static final int BYTES = 2 + Long.BYTES + 1;
+    // the first version had no version and size bytes
+    private static final int FIRST_VERSION_BYTES = Long.BYTES + 1;
+
+    private final int version;
+    private final int sectionSize;
+    private final long seed;
+    private final SudokuUtilities.SudokuLevel level;
+
+    /**
+     * Creates an id for the 9x9 puzzle the current generator makes from a seed at a level.
+     *
+     * @param seed The seed of the generation.
+     * @param level The difficulty level.
+     */
+    public PuzzleId(long seed, SudokuUtilities.SudokuLevel level) {
+        this(SudokuUtilities.SECTION_SIZE, seed, level);
+    }
+
+    /**
+     * Creates an id for the puzzle the current generator makes from a seed at a level on a board of any size.
+     *
+     * @param sectionSize The width of a box of the board.
+     * @param seed The seed of the generation.
+     * @param level The difficulty level.
+     * @throws IllegalArgumentException if the section size is not supported.
+     */
+    public PuzzleId(int sectionSize, long seed, SudokuUtilities.SudokuLevel level) throws IllegalArgumentException {
+        this(SudokuUtilities.GENERATOR_VERSION, sectionSize, seed, level);
+    }
+
+    private PuzzleId(int version, int sectionSize, long seed, SudokuUtilities.SudokuLevel level) {
+        if (sectionSize < SudokuUtilities.MIN_SECTION_SIZE || sectionSize > SudokuUtilities.MAX_SECTION_SIZE) {
+            throw new IllegalArgumentException("Error: Not a valid section size " + sectionSize);
+        }
+        this.version = version;
+        this.sectionSize = sectionSize;
+        this.seed = seed;
+        this.level = level;
+    }
+
+    /**
+     * Creates an id with a random seed.
+     *
+     * @param level The difficulty level.
+     * @return A new id.
+     */
+    public static PuzzleId random(SudokuUtilities.SudokuLevel level) {
+        return new PuzzleId(SeededRandom.randomSeed(), level);
+    }
+
+    /**
+     * Reads an id from its 11-byte form, or the 9-byte form of the first version.
+     *
+     * @param bytes The version, the section size, the seed in big-endian order and the level;
+     *              or only the seed and the level for the first version.
+     * @return The id.
+     * @throws IllegalArgumentException if the bytes are not a valid id.
+     */
+    public static PuzzleId fromBytes(byte[] bytes) throws IllegalArgumentException {
+        SudokuUtilities.SudokuLevel[] levels = SudokuUtilities.SudokuLevel.values();
+        if (bytes.length != BYTES && bytes.length != FIRST_VERSION_BYTES) {
+            throw new IllegalArgumentException("Error: Not a valid puzzle id");
+        }
+        int at = 0;
+        int version = 1;
+        int sectionSize = SudokuUtilities.SECTION_SIZE;
+        if (bytes.length == BYTES) {
+            version = bytes[at++] & 0xFF;
+            sectionSize = bytes[at++];
+            if (version < 2) {
+                throw new IllegalArgumentException("Error: Not a valid puzzle id");
+            }
+        }
+        long seed = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            seed = (seed << 8) | (bytes[at++] & 0xFF);
+        }
+        if (bytes[at] < 0 || bytes[at] >= levels.length) {
+            throw new IllegalArgumentException("Error: Not a valid puzzle id");
+        }
+        return new PuzzleId(version, sectionSize, seed, levels[bytes[at]]);
+    }
+
+    /**
+     * Reads an id from the hexadecimal form made by {@link #toString()}, or the 18 digits of the first version.
+     *
+     * @param text 22 hexadecimal digits.
+     * @return The id.
+     * @throws IllegalArgumentException if the text is not a valid id.
+     */
+    public static PuzzleId parse(String text) throws IllegalArgumentException {
+        if (text.length() != 2 * BYTES && text.length() != 2 * FIRST_VERSION_BYTES) {
+            throw new IllegalArgumentException("Error: Not a valid puzzle id");
+        }
+        byte[] bytes = new byte[text.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(text.substring(2 * i, 2 * i + 2), 16);
+        }
+        return fromBytes(bytes);
+    }
+
+    /**
+     * Returns the id in its 11-byte form.
+     *
+     * @return The version, the section size, the seed in big-endian order and the level.
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[BYTES];
+        bytes[0] = (byte) version;
+        bytes[1] = (byte) sectionSize;
+        for (int i = 0; i < Long.BYTES; i++) {
+            bytes[2 + i] = (byte) (seed >>> (8 * (Long.BYTES - 1 - i)));
+        }
+        bytes[BYTES - 1] = (byte) level.ordinal();
+        return bytes;
+    }
+
+    /**
+     * Generates the puzzle this id stands for.
+     *
+     * @return The puzzle in the format of {@link SudokuUtilities#generateSudokuMatrix}.
+     * @throws IllegalArgumentException if the id was made by another version of the generator.
+     */
+    public int[][][] generate() throws IllegalArgumentException {
+        if (version != SudokuUtilities.GENERATOR_VERSION) {
+            throw new IllegalArgumentException("Error: Puzzle id of generator version " + version
+                    + ", this is version " + SudokuUtilities.GENERATOR_VERSION);
+        }
+        return SudokuUtilities.generateSudokuMatrix(sectionSize, level, seed, new GenerationStats());
+    }
+
+    /**
+     * Returns the version of the generator that made the puzzle
+     * @return version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the width of a box of the puzzle
+     * @return section size
+     */
+    public int getSectionSize() {
+        return sectionSize;
+    }
+
+    /**
+     * Returns the seed of the generation
+     * @return seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the difficulty of the puzzle
+     * @return level
+     */
+    public SudokuUtilities.SudokuLevel getLevel() {
+        return level;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof PuzzleId)) {
+            return false;
+        }
+        PuzzleId id = (PuzzleId) other;
+        return version == id.version && sectionSize == id.sectionSize && seed == id.seed && level == id.level;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((version * 31 + sectionSize) * 31 + Long.hashCode(seed)) * 31 + level.hashCode();
+    }
+
+    /**
+     * Returns the id as 22 hexadecimal digits.
+     *
+     * @return The id as text.
+     */
+    @Override
+    public String toString() {
+        return String.format("%02x%02x%016x%02x", version, sectionSize, seed, level.ordinal());
+    }
+}
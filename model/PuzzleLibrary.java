@@ -0,0 +1,424 @@
+package javafx.fxtest.model.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A file of pre-generated puzzles, read through a memory-mapped buffer.
+ * <p>
+ * The file starts with a 32 byte header:
+ * <pre>
+ *   magic "SDKL"            4 bytes
+ *   version                 1 byte
+ *   section size            1 byte (3 for 9x9 puzzles)
+ *   reserved                2 bytes
+ *   record size             4 bytes
+ *   puzzles per level       4 bytes for each of EASY, MEDIUM and HARD
+ *   reserved                8 bytes
+ * </pre>
+ * followed by one fixed-size record per puzzle, all EASY puzzles first, then MEDIUM, then HARD:
+ * <pre>
+ *   givens                  one bit per cell, set for the cells given in the puzzle
+ *   solution                one value per cell, packed like in {@link BoardCodec}
+ *   level                   1 byte
+ *   rating                  2 bytes, the {@link DifficultyGrader} rating in tenths, 0 if not graded
+ * </pre>
+ * padded to a multiple of 4 bytes (56 bytes for 9x9).
+ * Since every record has the same size, puzzle i is found at a computed offset, and its cells are read
+ * straight from the mapped file without creating any objects until it is turned into a matrix or a board.
+ * The header is checked when the library is opened and a record when it is turned into a matrix or a board,
+ * so a corrupt record is reported by an {@link IllegalArgumentException} when it is used.
+ * A library can be read by many threads at once. A single mapping holds at most 2 GB,
+ * which is over 38 million 9x9 puzzles.
+ */
+public class PuzzleLibrary implements PuzzleSource, Closeable {
+
+    public static final int MAGIC = 0x53444B4C; // "SDKL"
+    public static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 32;
+    private static final int RECORD_SIZE_AT = 8;
+    private static final int LEVEL_COUNTS_AT = 12;
+
+    private static final SudokuUtilities.SudokuLevel[] LEVELS = SudokuUtilities.SudokuLevel.values();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int sectionSize;
+    private final int gridSize;
+    private final int bits;
+    private final int recordSize;
+    private final int solutionAt;
+    private final int levelAt;
+    private final int[] levelStarts = new int[LEVELS.length];
+    private final int[] levelCounts = new int[LEVELS.length];
+    private final int size;
+
+    private PuzzleLibrary(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long fileSize = channel.size();
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Puzzle library is larger than 2 GB");
+        }
+        if (fileSize < HEADER_BYTES) {
+            throw new IOException("Not a puzzle library");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a puzzle library");
+        }
+        if ((buffer.get(4) & 0xFF) > VERSION) {
+            throw new IOException("Puzzle library made by a newer version of the game");
+        }
+        sectionSize = buffer.get(5) & 0xFF;
+        if (sectionSize < SudokuUtilities.MIN_SECTION_SIZE || sectionSize > SudokuUtilities.MAX_SECTION_SIZE
+                || buffer.getInt(RECORD_SIZE_AT) != recordSize(sectionSize)) {
+            throw new IOException("Corrupt puzzle library header");
+        }
+        gridSize = sectionSize * sectionSize;
+        bits = BoardCodec.bitsPerValue(gridSize);
+        recordSize = recordSize(sectionSize);
+        solutionAt = (gridSize * gridSize + 7) / 8;
+        levelAt = solutionAt + (gridSize * gridSize * bits + 7) / 8;
+
+        long total = 0;
+        for (int level = 0; level < LEVELS.length; level++) {
+            levelCounts[level] = buffer.getInt(LEVEL_COUNTS_AT + 4 * level);
+            levelStarts[level] = (int) total;
+            total += levelCounts[level];
+            if (levelCounts[level] < 0) {
+                throw new IOException("Corrupt puzzle library header");
+            }
+        }
+        if (HEADER_BYTES + total * recordSize != fileSize) {
+            throw new IOException("Puzzle library has " + fileSize + " bytes, expected " + (HEADER_BYTES + total * recordSize));
+        }
+        size = (int) total;
+    }
+
+    /**
+     * Opens a puzzle library file for reading.
+     *
+     * @param file The library file.
+     * @return The library.
+     * @throws IOException if the file can't be read or is not a valid library.
+     */
+    public static PuzzleLibrary open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new PuzzleLibrary(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the size of one record of a library of puzzles of a size.
+     *
+     * @param sectionSize The width of a box of the puzzles.
+     * @return The record size in bytes.
+     */
+    public static int recordSize(int sectionSize) {
+        int gridSize = sectionSize * sectionSize;
+        int cellCount = gridSize * gridSize;
+        int bytes = (cellCount + 7) / 8 + (cellCount * BoardCodec.bitsPerValue(gridSize) + 7) / 8 + 3;
+        return (bytes + 3) & ~3;
+    }
+
+    /**
+     * Returns the number of puzzles in the library
+     * @return number of puzzles
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of puzzles of a level in the library.
+     *
+     * @param level The difficulty level.
+     * @return The number of puzzles.
+     */
+    public int size(SudokuUtilities.SudokuLevel level) {
+        return levelCounts[level.ordinal()];
+    }
+
+    /**
+     * Returns the index in the library of the n:th puzzle of a level.
+     *
+     * @param level The difficulty level.
+     * @param n The number of the puzzle within its level.
+     * @return The index of the puzzle.
+     * @throws IndexOutOfBoundsException if the level has no puzzle n.
+     */
+    public int indexOf(SudokuUtilities.SudokuLevel level, int n) throws IndexOutOfBoundsException {
+        if (n < 0 || n >= levelCounts[level.ordinal()]) {
+            throw new IndexOutOfBoundsException("Puzzle " + n + " of " + level);
+        }
+        return levelStarts[level.ordinal()] + n;
+    }
+
+    /**
+     * Returns the width of a box of the puzzles in the library
+     * @return section size
+     */
+    public int getSectionSize() {
+        return sectionSize;
+    }
+
+    /**
+     * Returns the level of a puzzle.
+     *
+     * @param index The index of the puzzle.
+     * @return The difficulty level.
+     * @throws IllegalArgumentException if the record holds no valid level.
+     */
+    public SudokuUtilities.SudokuLevel getLevel(int index) throws IllegalArgumentException {
+        int level = buffer.get(recordAt(index) + levelAt);
+        if (level < 0 || level >= LEVELS.length) {
+            throw new IllegalArgumentException("Error: Corrupt puzzle library, level " + level + " in puzzle " + index);
+        }
+        return LEVELS[level];
+    }
+
+    /**
+     * Returns the rating a puzzle got from the {@link DifficultyGrader}.
+     *
+     * @param index The index of the puzzle.
+     * @return The rating, 0 if the puzzle was not graded.
+     */
+    public double getRating(int index) {
+        int record = recordAt(index);
+        int tenths = (buffer.get(record + levelAt + 1) & 0xFF) << 8 | buffer.get(record + levelAt + 2) & 0xFF;
+        return tenths / 10.0;
+    }
+
+    /**
+     * Returns the value of a cell in the solution of a puzzle, read straight from the file.
+     *
+     * @param index The index of the puzzle.
+     * @param cell The cell, row by row.
+     * @return The value of the cell in the solution.
+     */
+    public int getSolution(int index, int cell) {
+        int bitPos = cell * bits;
+        int at = recordAt(index) + solutionAt + (bitPos >>> 3);
+        // a value can cross a byte boundary; the level byte follows the solution, so at + 1 is always in the record
+        int word = buffer.get(at) & 0xFF | (buffer.get(at + 1) & 0xFF) << 8;
+        return word >>> (bitPos & 7) & ((1 << bits) - 1);
+    }
+
+    /**
+     * Returns the value of a cell in a puzzle, read straight from the file.
+     *
+     * @param index The index of the puzzle.
+     * @param cell The cell, row by row.
+     * @return The given value of the cell, 0 if the cell is empty in the puzzle.
+     */
+    public int getGiven(int index, int cell) {
+        boolean given = (buffer.get(recordAt(index) + (cell >>> 3)) & (1 << (cell & 7))) != 0;
+        return given ? getSolution(index, cell) : 0;
+    }
+
+    /**
+     * Turns a puzzle into a matrix, checking that every value of its solution is a digit of the board.
+     *
+     * @param index The index of the puzzle.
+     * @return The puzzle in the format of {@link SudokuUtilities#generateSudokuMatrix}.
+     * @throws IllegalArgumentException if the record holds a value that is not a digit of the board.
+     */
+    public int[][][] getPuzzle(int index) throws IllegalArgumentException {
+        int[][][] sudokuMatrix = new int[gridSize][gridSize][2];
+        for (int cell = 0; cell < gridSize * gridSize; cell++) {
+            int[] values = sudokuMatrix[cell / gridSize][cell % gridSize];
+            values[1] = getSolution(index, cell);
+            if (values[1] < 1 || values[1] > gridSize) {
+                throw new IllegalArgumentException("Error: Corrupt puzzle library, value " + values[1]
+                        + " in cell (" + cell / gridSize + ", " + cell % gridSize + ") of puzzle " + index);
+            }
+            values[0] = getGiven(index, cell);
+        }
+        return sudokuMatrix;
+    }
+
+    /**
+     * Turns a puzzle into a board ready to be played.
+     *
+     * @param index The index of the puzzle.
+     * @return A new board.
+     * @throws IllegalArgumentException if the record is corrupt.
+     */
+    public SudokuBoard getBoard(int index) throws IllegalArgumentException {
+        return new SudokuBoard(getPuzzle(index), getLevel(index));
+    }
+
+    /**
+     * Returns a random puzzle of the given level from the library,
+     * or a generated one if the library has no puzzles of the level.
+     *
+     * @param level The difficulty level.
+     * @return A puzzle in the format of {@link SudokuUtilities#generateSudokuMatrix}.
+     * @throws IllegalArgumentException if the record picked is corrupt.
+     */
+    @Override
+    public int[][][] nextPuzzle(SudokuUtilities.SudokuLevel level) {
+        int count = levelCounts[level.ordinal()];
+        if (count == 0 || sectionSize != SudokuUtilities.SECTION_SIZE) {
+            return SudokuUtilities.generateSudokuMatrix(level);
+        }
+        return getPuzzle(levelStarts[level.ordinal()] + ThreadLocalRandom.current().nextInt(count));
+    }
+
+    private int recordAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Puzzle " + index + " of " + size);
+        }
+        return HEADER_BYTES + index * recordSize;
+    }
+
+    /**
+     * Closes the file. The mapped memory is released once the library is no longer used.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes a puzzle library. The number of puzzles of each level must be known in advance,
+     * since the levels are stored one after the other; puzzles can then be added in any order.
+     * The header is written last, so a library that was not completed can't be opened.
+     */
+    public static class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int sectionSize;
+        private final int gridSize;
+        private final int bits;
+        private final int recordSize;
+        private final int[] levelCounts;
+        private final int[] levelStarts = new int[LEVELS.length];
+        private final int[] added = new int[LEVELS.length];
+
+        /**
+         * Creates a library file with room for the given number of puzzles of each level.
+         *
+         * @param file The library file, replaced if it exists.
+         * @param sectionSize The width of a box of the puzzles.
+         * @param levelCounts The number of puzzles of each level, in the order of {@link SudokuUtilities.SudokuLevel}.
+         * @throws IOException if the file can't be created.
+         * @throws IllegalArgumentException if the size or the counts are not valid.
+         */
+        public Writer(Path file, int sectionSize, int[] levelCounts) throws IOException, IllegalArgumentException {
+            if (sectionSize < SudokuUtilities.MIN_SECTION_SIZE || sectionSize > SudokuUtilities.MAX_SECTION_SIZE
+                    || levelCounts.length != LEVELS.length) {
+                throw new IllegalArgumentException("Error: Not a valid library layout");
+            }
+            this.sectionSize = sectionSize;
+            this.gridSize = sectionSize * sectionSize;
+            this.bits = BoardCodec.bitsPerValue(gridSize);
+            this.recordSize = recordSize(sectionSize);
+            this.levelCounts = levelCounts.clone();
+            long total = 0;
+            for (int level = 0; level < LEVELS.length; level++) {
+                if (levelCounts[level] < 0) {
+                    throw new IllegalArgumentException("Error: Not a valid library layout");
+                }
+                levelStarts[level] = (int) total;
+                total += levelCounts[level];
+            }
+            long fileSize = HEADER_BYTES + total * recordSize;
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Error: Puzzle library would be larger than 2 GB");
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        }
+
+        /**
+         * Adds a puzzle to the library.
+         *
+         * @param puzzle The puzzle in the format of {@link SudokuUtilities#generateSudokuMatrix}.
+         * @param level The level of the puzzle.
+         * @param rating The rating of the puzzle, 0 if it was not graded.
+         * @throws IllegalArgumentException if the puzzle has the wrong size or the level is already full.
+         */
+        public void add(int[][][] puzzle, SudokuUtilities.SudokuLevel level, double rating) throws IllegalArgumentException {
+            if (puzzle.length != gridSize) {
+                throw new IllegalArgumentException("Error: Puzzle must have " + gridSize + " rows");
+            }
+            int ordinal = level.ordinal();
+            if (added[ordinal] == levelCounts[ordinal]) {
+                throw new IllegalArgumentException("Error: Library has no room for more " + level + " puzzles");
+            }
+            int record = HEADER_BYTES + (levelStarts[ordinal] + added[ordinal]++) * recordSize;
+            int cellCount = gridSize * gridSize;
+
+            int pos = record;
+            for (int first = 0; first < cellCount; first += 8) {
+                int givens = 0;
+                for (int cell = first; cell < Math.min(first + 8, cellCount); cell++) {
+                    if (puzzle[cell / gridSize][cell % gridSize][0] != 0) {
+                        givens |= 1 << (cell & 7);
+                    }
+                }
+                buffer.put(pos++, (byte) givens);
+            }
+
+            int packed = 0;
+            int buffered = 0;
+            for (int cell = 0; cell < cellCount; cell++) {
+                packed |= puzzle[cell / gridSize][cell % gridSize][1] << buffered;
+                buffered += bits;
+                while (buffered >= 8) {
+                    buffer.put(pos++, (byte) packed);
+                    packed >>>= 8;
+                    buffered -= 8;
+                }
+            }
+            if (buffered > 0) {
+                buffer.put(pos++, (byte) packed);
+            }
+
+            int tenths = (int) Math.max(0, Math.min(0xFFFF, Math.round(rating * 10)));
+            buffer.put(pos++, (byte) ordinal);
+            buffer.put(pos++, (byte) (tenths >>> 8));
+            buffer.put(pos, (byte) tenths);
+        }
+
+        /**
+         * Writes the header and closes the file.
+         *
+         * @throws IOException if the file can't be written or not all puzzles were added.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                for (int level = 0; level < LEVELS.length; level++) {
+                    if (added[level] != levelCounts[level]) {
+                        throw new IOException("Puzzle library is missing " + (levelCounts[level] - added[level])
+                                + " " + LEVELS[level] + " puzzles");
+                    }
+                }
+                buffer.put(4, (byte) VERSION);
+                buffer.put(5, (byte) sectionSize);
+                buffer.putInt(RECORD_SIZE_AT, recordSize);
+                for (int level = 0; level < LEVELS.length; level++) {
+                    buffer.putInt(LEVEL_COUNTS_AT + 4 * level, levelCounts[level]);
+                }
+                buffer.putInt(0, MAGIC);
+                buffer.force();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
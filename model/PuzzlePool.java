@@ -0,0 +1,305 @@
+package javafx.fxtest.model.model;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a bounded queue of ready-made puzzles for every difficulty level, so a new game
+ * can be started without waiting for a generation.
+ * Background worker threads refill a level from a {@link PuzzleSource}, the generator by default,
+ * when its queue drops below the low-water mark.
+ * If a queue is empty when a puzzle is asked for, a puzzle is derived from the last puzzle handed out
+ * for that level with a {@link PuzzleTransformer}, or taken from the source on the calling thread if there is none.
+ * The puzzles left in the pool can be saved as a {@link PuzzleLibrary} when the game closes and preloaded
+ * the next time, so the first game starts without a generation.
+ */
+public class PuzzlePool {
+
+    public static final int DEFAULT_CAPACITY = 8;
+    public static final int DEFAULT_LOW_WATER_MARK = 3;
+
+    private final int lowWaterMark;
+    private final Map<SudokuUtilities.SudokuLevel, BlockingQueue<int[][][]>> puzzles =
+            new EnumMap<>(SudokuUtilities.SudokuLevel.class);
+    private final Map<SudokuUtilities.SudokuLevel, AtomicBoolean> refilling =
+            new EnumMap<>(SudokuUtilities.SudokuLevel.class);
+    private final Map<SudokuUtilities.SudokuLevel, int[][][]> lastPuzzles =
+            new EnumMap<>(SudokuUtilities.SudokuLevel.class);
+    private final PuzzleTransformer transformer = new PuzzleTransformer();
+    private final PuzzleSource source;
+    private final ExecutorService workers;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refilledPuzzles = new AtomicLong();
+    private final AtomicLong refillNanos = new AtomicLong();
+    private final AtomicLong maxRefillNanos = new AtomicLong();
+
+    /**
+     * Creates a pool with the default capacity and low-water mark, refilled by one worker thread.
+     */
+    public PuzzlePool() {
+        this(PuzzleSource.GENERATOR);
+    }
+
+    /**
+     * Creates a pool with the default capacity and low-water mark, refilled from a source by one worker thread.
+     *
+     * @param source Where the puzzles come from, such as a {@link PuzzleLibrary}.
+     */
+    public PuzzlePool(PuzzleSource source) {
+        this(source, DEFAULT_CAPACITY, DEFAULT_LOW_WATER_MARK, 1);
+    }
+
+    /**
+     * Creates a pool of generated puzzles and starts filling it in the background.
+     *
+     * @param capacity The number of puzzles kept ready for each level.
+     * @param lowWaterMark A level is refilled when it has fewer puzzles than this.
+     * @param workerThreads The number of background threads generating puzzles.
+     * @throws IllegalArgumentException if the capacity, mark or thread count are not valid.
+     */
+    public PuzzlePool(int capacity, int lowWaterMark, int workerThreads) throws IllegalArgumentException {
+        this(PuzzleSource.GENERATOR, capacity, lowWaterMark, workerThreads);
+    }
+
+    /**
+     * Creates a pool and starts filling it from a source in the background.
+     *
+     * @param source Where the puzzles come from, such as a {@link PuzzleLibrary}.
+     * @param capacity The number of puzzles kept ready for each level.
+     * @param lowWaterMark A level is refilled when it has fewer puzzles than this.
+     * @param workerThreads The number of background threads taking puzzles from the source.
+     * @throws IllegalArgumentException if the capacity, mark or thread count are not valid.
+     */
+    public PuzzlePool(PuzzleSource source, int capacity, int lowWaterMark, int workerThreads)
+            throws IllegalArgumentException {
+        if (capacity < 1 || lowWaterMark < 0 || lowWaterMark > capacity || workerThreads < 1) {
+            throw new IllegalArgumentException("Error: Not a valid pool configuration");
+        }
+        this.source = source;
+        this.lowWaterMark = lowWaterMark;
+        for (SudokuUtilities.SudokuLevel level : SudokuUtilities.SudokuLevel.values()) {
+            puzzles.put(level, new ArrayBlockingQueue<>(capacity));
+            refilling.put(level, new AtomicBoolean());
+        }
+        workers = Executors.newFixedThreadPool(workerThreads, task -> {
+            Thread worker = new Thread(task, "puzzle-pool");
+            worker.setDaemon(true);
+            worker.setPriority(Thread.MIN_PRIORITY);
+            return worker;
+        });
+
+        for (SudokuUtilities.SudokuLevel level : SudokuUtilities.SudokuLevel.values()) {
+            refillIfLow(level);
+        }
+    }
+
+    /**
+     * Takes a ready puzzle of the given level, or generates one if the pool has none left.
+     *
+     * @param level The difficulty level.
+     * @return A puzzle in the format of {@link SudokuUtilities#generateSudokuMatrix}.
+     */
+    public synchronized int[][][] takePuzzle(SudokuUtilities.SudokuLevel level) {
+        int[][][] puzzle = puzzles.get(level).poll();
+        if (puzzle != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            int[][][] lastPuzzle = lastPuzzles.get(level);
+            puzzle = lastPuzzle != null ? transformer.derive(lastPuzzle) : source.nextPuzzle(level);
+        }
+        lastPuzzles.put(level, puzzle);
+        refillIfLow(level);
+        return puzzle;
+    }
+
+    /**
+     * Takes a ready puzzle of the given level if the pool has one, without generating or deriving one.
+     *
+     * @param level The difficulty level.
+     * @return A puzzle in the format of {@link SudokuUtilities#generateSudokuMatrix}, or null if none is ready.
+     */
+    public synchronized int[][][] pollPuzzle(SudokuUtilities.SudokuLevel level) {
+        int[][][] puzzle = puzzles.get(level).poll();
+        if (puzzle != null) {
+            hits.incrementAndGet();
+            lastPuzzles.put(level, puzzle);
+        }
+        refillIfLow(level);
+        return puzzle;
+    }
+
+    /**
+     * Adds the puzzles of a library, such as one written by {@link #save}, to the pool,
+     * as many of each level as there is room for. Libraries of other board sizes add nothing.
+     *
+     * @param library The library.
+     * @return The number of puzzles added.
+     */
+    public int preload(PuzzleLibrary library) {
+        if (library.getSectionSize() != SudokuUtilities.SECTION_SIZE) {
+            return 0;
+        }
+        int added = 0;
+        for (SudokuUtilities.SudokuLevel level : SudokuUtilities.SudokuLevel.values()) {
+            BlockingQueue<int[][][]> queue = puzzles.get(level);
+            for (int n = 0; n < library.size(level) && queue.offer(library.getPuzzle(library.indexOf(level, n))); n++) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Writes the puzzles ready in the pool to a puzzle library, leaving them in the pool.
+     * The library is written next to the file and then moved over it, so a failed save leaves the file as it was.
+     *
+     * @param file The library file, replaced if it exists.
+     * @return The number of puzzles saved.
+     * @throws IOException if the file can't be written.
+     */
+    public int save(Path file) throws IOException {
+        SudokuUtilities.SudokuLevel[] levels = SudokuUtilities.SudokuLevel.values();
+        int[][][][][] ready = new int[levels.length][][][][];
+        int[] counts = new int[levels.length];
+        int total = 0;
+        for (SudokuUtilities.SudokuLevel level : levels) {
+            ready[level.ordinal()] = puzzles.get(level).toArray(new int[0][][][]);
+            counts[level.ordinal()] = ready[level.ordinal()].length;
+            total += counts[level.ordinal()];
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (PuzzleLibrary.Writer writer = new PuzzleLibrary.Writer(temporary, SudokuUtilities.SECTION_SIZE, counts)) {
+            for (SudokuUtilities.SudokuLevel level : levels) {
+                for (int[][][] puzzle : ready[level.ordinal()]) {
+                    writer.add(puzzle, level, 0);
+                }
+            }
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return total;
+    }
+
+    /**
+     * Starts a background refill of a level if it is below the low-water mark
+     * and no refill of it is already running.
+     */
+    private void refillIfLow(SudokuUtilities.SudokuLevel level) {
+        BlockingQueue<int[][][]> queue = puzzles.get(level);
+        AtomicBoolean running = refilling.get(level);
+        if (queue.size() >= lowWaterMark || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    while (queue.remainingCapacity() > 0) {
+                        long start = System.nanoTime();
+                        int[][][] puzzle = source.nextPuzzle(level);
+                        recordRefill(System.nanoTime() - start);
+                        if (!queue.offer(puzzle)) {
+                            break;
+                        }
+                    }
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+        }
+    }
+
+    private void recordRefill(long nanos) {
+        refilledPuzzles.incrementAndGet();
+        refillNanos.addAndGet(nanos);
+        maxRefillNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Returns the number of puzzles ready for a level.
+     *
+     * @param level The difficulty level.
+     * @return The number of pooled puzzles.
+     */
+    public int getSize(SudokuUtilities.SudokuLevel level) {
+        return puzzles.get(level).size();
+    }
+
+    /**
+     * Returns the number of puzzles that were taken from the pool.
+     * @return number of hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of puzzles that had to be derived or taken from the source on the caller's thread.
+     * @return number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of puzzles the background workers took from the source.
+     * @return number of refilled puzzles
+     */
+    public long getRefilledPuzzles() {
+        return refilledPuzzles.get();
+    }
+
+    /**
+     * Returns the average time the workers spent getting one puzzle from the source.
+     * @return time in microseconds, 0 if nothing has been refilled yet
+     */
+    public long getAverageRefillMicros() {
+        long count = refilledPuzzles.get();
+        return count == 0 ? 0 : refillNanos.get() / count / 1000;
+    }
+
+    /**
+     * Returns the longest time the workers spent getting one puzzle from the source.
+     * @return time in microseconds
+     */
+    public long getMaxRefillMicros() {
+        return maxRefillNanos.get() / 1000;
+    }
+
+    /**
+     * Stops the background workers. Puzzles already in the pool can still be taken.
+     */
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "PuzzlePool{" +
+                "hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", refilled=" + getRefilledPuzzles() +
+                ", avgRefillMicros=" + getAverageRefillMicros() +
+                ", maxRefillMicros=" + getMaxRefillMicros() +
+                '}';
+    }
+}
@@ -0,0 +1,20 @@
+package javafx.fxtest.model.model;
+
+/**
+ * Something new puzzles can be taken from, such as the generator or a {@link PuzzleLibrary}.
+ */
+public interface PuzzleSource {
+
+    /**
+     * A source that generates every puzzle with {@link SudokuUtilities#generateSudokuMatrix(SudokuUtilities.SudokuLevel)}.
+     */
+    PuzzleSource GENERATOR = SudokuUtilities::generateSudokuMatrix;
+
+    /**
+     * Returns a new puzzle of the given level.
+     *
+     * @param level The difficulty level.
+     * @return A puzzle in the format of {@link SudokuUtilities#generateSudokuMatrix}.
+     */
+    int[][][] nextPuzzle(SudokuUtilities.SudokuLevel level);
+}
@@ -0,0 +1,317 @@
+package javafx.fxtest.model.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static javafx.fxtest.model.model.SudokuUtilities.GRID_SIZE;
+
+/**
+ * Reads 9x9 puzzles from text files one at a time, so files of any size can be read in constant memory.
+ * <p>
+ * The common text formats are recognized without being told which one a file uses:
+ * <ul>
+ *   <li>one puzzle per line, 81 cells, with anything after the 81st cell ignored,
+ *   such as the solution and level written by {@link BatchGenerator};</li>
+ *   <li>.sdk files, 9 lines of 9 cells, with header lines starting with '#' or '[';</li>
+ *   <li>.ss files, 9 lines of 9 cells with '|' between the boxes and lines of '-' between the bands.</li>
+ * </ul>
+ * A cell is a digit 1-9, or one of {@code 0 . * _ x X} for an empty cell.
+ * Spaces and the characters {@code | - + =} are skipped. A line holding anything else is not a puzzle line;
+ * a puzzle started before it, or one whose rows are broken up unevenly or by an empty line, is counted as rejected.
+ * <p>
+ * The file is read through a channel into one fixed buffer and each puzzle is parsed into the same array,
+ * so reading allocates nothing per line.
+ */
+public class PuzzleTextReader implements Closeable {
+
+    public static final int BUFFER_BYTES = 1 << 16;
+
+    private static final int CELL_COUNT = GRID_SIZE * GRID_SIZE;
+    private static final byte SKIP = -1;
+    private static final byte OTHER = -2;
+    private static final byte NEWLINE = -3;
+    private static final byte SPACE = -4;
+    private static final byte[] CHARACTERS = new byte[256];
+
+    static {
+        Arrays.fill(CHARACTERS, OTHER);
+        for (int digit = 1; digit <= GRID_SIZE; digit++) {
+            CHARACTERS['0' + digit] = (byte) digit;
+        }
+        for (char empty : "0.*_xX".toCharArray()) {
+            CHARACTERS[empty] = 0;
+        }
+        for (char skipped : "|-+=".toCharArray()) {
+            CHARACTERS[skipped] = SKIP;
+        }
+        for (char space : " \t\r".toCharArray()) {
+            CHARACTERS[space] = SPACE;
+        }
+        CHARACTERS['\n'] = NEWLINE;
+    }
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private final byte[] bytes = buffer.array();
+    private int position;
+    private int limit;
+
+    private final int[] cells = new int[CELL_COUNT];
+    private int filled;
+    private int lineCells;
+    private boolean skipLine;
+    private boolean completedOnLine;
+    private boolean blankLine = true;
+
+    private long lines;
+    private long bytesRead;
+    private long puzzles;
+    private long rejected;
+    private long unsolvable;
+
+    /**
+     * Creates a reader of a channel.
+     *
+     * @param channel The channel to read, closed when the reader is closed.
+     */
+    public PuzzleTextReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a reader of a file.
+     *
+     * @param file The file to read.
+     * @return The reader.
+     * @throws IOException if the file can't be opened.
+     */
+    public static PuzzleTextReader open(Path file) throws IOException {
+        return new PuzzleTextReader(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    /**
+     * Reads the next puzzle, which can then be taken from {@link #getPuzzle()}.
+     *
+     * @return true if a puzzle was read, false at the end of the file.
+     * @throws IOException if the file can't be read.
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) {
+                if (filled > 0) {
+                    rejected++;
+                    filled = 0;
+                }
+                return false;
+            }
+            byte kind = CHARACTERS[bytes[position++] & 0xFF];
+            if (kind == NEWLINE) {
+                endLine();
+                continue;
+            }
+            if (kind == SPACE) {
+                continue;
+            }
+            blankLine = false;
+            if (skipLine || kind == SKIP) {
+                continue;
+            }
+            if (kind == OTHER) {
+                discardPuzzle();
+                skipLine = true;
+                continue;
+            }
+            cells[filled++] = kind;
+            lineCells++;
+            if (filled == CELL_COUNT) {
+                filled = 0;
+                skipLine = true;
+                completedOnLine = true;
+                puzzles++;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Checks the line that ended: the rows of a puzzle spread over several lines must have 9 cells each,
+     * with no empty line between them.
+     */
+    private void endLine() {
+        lines++;
+        if (blankLine || !completedOnLine && lineCells != 0 && lineCells != GRID_SIZE) {
+            discardPuzzle();
+        }
+        lineCells = 0;
+        blankLine = true;
+        skipLine = false;
+        completedOnLine = false;
+    }
+
+    private void discardPuzzle() {
+        if (filled > 0) {
+            rejected++;
+            filled = 0;
+        }
+    }
+
+    /**
+     * Reads the next block of the file into the buffer.
+     *
+     * @return false at the end of the file.
+     */
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        if (read < 0) {
+            if (!blankLine) {
+                // the last line had no line break
+                endLine();
+            }
+            position = limit = 0;
+            return false;
+        }
+        bytesRead += read;
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    /**
+     * Returns the last puzzle read, cell by cell, row by row, with 0 for empty cells.
+     * The array is reused for the next puzzle, so copy it to keep it.
+     *
+     * @return The puzzle.
+     */
+    public int[] getPuzzle() {
+        return cells;
+    }
+
+    /**
+     * Returns the puzzles of the file as a lazy stream of copies of {@link #getPuzzle()}.
+     * A {@link IOException} while reading is thrown as an {@link UncheckedIOException}.
+     *
+     * @return The puzzles.
+     */
+    public Stream<int[]> puzzles() {
+        return stream(action -> action.accept(cells.clone()));
+    }
+
+    /**
+     * Returns the puzzles of the file as a lazy stream of boards, each solved and graded to give it
+     * its solution and level. Puzzles without a unique solution are left out and counted by {@link #getUnsolvable()}.
+     * Solving and grading take far longer than reading, around a millisecond per hard puzzle.
+     *
+     * @return The boards.
+     */
+    public Stream<SudokuBoard> boards() {
+        DancingLinksSolver solver = new DancingLinksSolver();
+        DifficultyGrader grader = new DifficultyGrader();
+        int[] solution = new int[CELL_COUNT];
+        return stream(action -> {
+            if (solver.countSolutions(cells, 2) != 1 || !solver.solve(cells, solution)) {
+                unsolvable++;
+                return;
+            }
+            int[][][] sudokuMatrix = new int[GRID_SIZE][GRID_SIZE][2];
+            for (int cell = 0; cell < CELL_COUNT; cell++) {
+                sudokuMatrix[cell / GRID_SIZE][cell % GRID_SIZE][0] = cells[cell];
+                sudokuMatrix[cell / GRID_SIZE][cell % GRID_SIZE][1] = solution[cell];
+            }
+            SudokuUtilities.SudokuLevel level = DifficultyGrader.levelOf(grader.grade(cells));
+            action.accept(new SudokuBoard(sudokuMatrix, level));
+        });
+    }
+
+    /**
+     * Makes a sequential stream that reads a puzzle and hands it to the consumer for every element.
+     * The consumer may skip a puzzle by not passing anything on.
+     */
+    private <T> Stream<T> stream(Consumer<Consumer<? super T>> convert) {
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                boolean[] accepted = new boolean[1];
+                try {
+                    while (!accepted[0] && next()) {
+                        convert.accept(element -> {
+                            accepted[0] = true;
+                            action.accept(element);
+                        });
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return accepted[0];
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of lines read so far
+     * @return number of lines
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * Returns the number of bytes read so far
+     * @return number of bytes
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the number of puzzles read so far
+     * @return number of puzzles
+     */
+    public long getPuzzles() {
+        return puzzles;
+    }
+
+    /**
+     * Returns the number of puzzles left out because they were incomplete or broken up unevenly
+     * @return number of rejected puzzles
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the number of puzzles {@link #boards()} left out because they have no unique solution
+     * @return number of unsolvable puzzles
+     */
+    public long getUnsolvable() {
+        return unsolvable;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
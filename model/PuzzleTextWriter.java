@@ -0,0 +1,177 @@
+package javafx.fxtest.model.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static javafx.fxtest.model.model.SudokuUtilities.GRID_SIZE;
+import static javafx.fxtest.model.model.SudokuUtilities.SECTION_SIZE;
+
+/**
+ * Writes 9x9 puzzles to a text file in one of the formats {@link PuzzleTextReader} reads,
+ * through a channel and one fixed buffer, so any number of puzzles can be written without allocating per puzzle.
+ */
+public class PuzzleTextWriter implements Closeable {
+
+    /**
+     * The text formats a puzzle can be written in. Empty cells are written as '.'.
+     */
+    public enum Format {
+        /** One puzzle per line, 81 cells. */
+        LINE,
+        /** 9 lines of 9 cells, puzzles separated by an empty line. */
+        SDK,
+        /** 9 lines of 9 cells with '|' between the boxes and lines of '-' between the bands, puzzles separated by an empty line. */
+        SS;
+
+        /**
+         * Returns the format of a file by its extension, {@link #LINE} for any extension other than .sdk and .ss.
+         *
+         * @param file The file.
+         * @return The format.
+         */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase();
+            if (name.endsWith(".sdk")) {
+                return SDK;
+            }
+            if (name.endsWith(".ss")) {
+                return SS;
+            }
+            return LINE;
+        }
+    }
+
+    private static final int CELL_COUNT = GRID_SIZE * GRID_SIZE;
+
+    private final WritableByteChannel channel;
+    private final Format format;
+    private final ByteBuffer buffer = ByteBuffer.allocate(PuzzleTextReader.BUFFER_BYTES);
+    private final int[] cells = new int[CELL_COUNT];
+    private long puzzles;
+
+    /**
+     * Creates a writer to a channel.
+     *
+     * @param channel The channel to write to, closed when the writer is closed.
+     * @param format The format to write in.
+     */
+    public PuzzleTextWriter(WritableByteChannel channel, Format format) {
+        this.channel = channel;
+        this.format = format;
+    }
+
+    /**
+     * Creates or replaces a file and opens a writer to it, in the format given by the extension of the file.
+     *
+     * @param file The file to write.
+     * @return The writer.
+     * @throws IOException if the file can't be created.
+     */
+    public static PuzzleTextWriter open(Path file) throws IOException {
+        return new PuzzleTextWriter(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), Format.of(file));
+    }
+
+    /**
+     * Writes a puzzle.
+     *
+     * @param puzzle The puzzle cell by cell, row by row, with 0 for empty cells.
+     * @throws IOException if the file can't be written.
+     * @throws IllegalArgumentException if the puzzle doesn't have 81 cells from 0 to 9.
+     */
+    public void write(int[] puzzle) throws IOException, IllegalArgumentException {
+        if (puzzle.length != CELL_COUNT) {
+            throw new IllegalArgumentException("Error: A puzzle must have " + CELL_COUNT + " cells");
+        }
+        // checked before anything is buffered, so a bad puzzle leaves nothing half written
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            if (puzzle[cell] < 0 || puzzle[cell] > GRID_SIZE) {
+                throw new IllegalArgumentException("Error: Not a valid value " + puzzle[cell]
+                        + " in cell (" + cell / GRID_SIZE + ", " + cell % GRID_SIZE + ")");
+            }
+        }
+        // the longest format takes 11 lines of 12 bytes and an empty line
+        if (buffer.remaining() < 140) {
+            flush();
+        }
+        if (puzzles > 0 && format != Format.LINE) {
+            buffer.put((byte) '\n');
+        }
+        for (int row = 0; row < GRID_SIZE; row++) {
+            if (format == Format.SS && row > 0 && row % SECTION_SIZE == 0) {
+                for (int i = 0; i < GRID_SIZE + SECTION_SIZE - 1; i++) {
+                    buffer.put((byte) '-');
+                }
+                buffer.put((byte) '\n');
+            }
+            for (int col = 0; col < GRID_SIZE; col++) {
+                int value = puzzle[row * GRID_SIZE + col];
+                if (format == Format.SS && col > 0 && col % SECTION_SIZE == 0) {
+                    buffer.put((byte) '|');
+                }
+                buffer.put((byte) (value == 0 ? '.' : '0' + value));
+            }
+            if (format != Format.LINE) {
+                buffer.put((byte) '\n');
+            }
+        }
+        if (format == Format.LINE) {
+            buffer.put((byte) '\n');
+        }
+        puzzles++;
+    }
+
+    /**
+     * Writes the givens of a board as a puzzle.
+     *
+     * @param board The board, which must be 9x9.
+     * @throws IOException if the file can't be written.
+     * @throws IllegalArgumentException if the board is not 9x9.
+     */
+    public void write(SudokuBoard board) throws IOException, IllegalArgumentException {
+        if (board.getGridSize() != GRID_SIZE) {
+            throw new IllegalArgumentException("Error: Only 9x9 puzzles can be written as text");
+        }
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                cells[row * GRID_SIZE + col] = board.isCellImmutable(row, col) ? board.getCurrentValue(row, col) : 0;
+            }
+        }
+        write(cells);
+    }
+
+    /**
+     * Writes the buffered puzzles to the file.
+     *
+     * @throws IOException if the file can't be written.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Returns the number of puzzles written
+     * @return number of puzzles
+     */
+    public long getPuzzles() {
+        return puzzles;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package javafx.fxtest.model.model;
+
+/**
+ * Derives new puzzles from an existing one by applying a random symmetry of the Sudoku grid:
+ * relabelling the digits, swapping rows within a band, columns within a stack, whole bands,
+ * whole stacks, and transposing the grid.
+ * The derived puzzle has the same number of solutions and needs the same solving techniques
+ * as the original, so it keeps its difficulty, and deriving it only touches each cell once.
+ * Boards of any size can be derived from.
+ * A transformer is not thread safe, use one instance per thread.
+ */
+public class PuzzleTransformer {
+
+    private final SeededRandom random;
+    private int sectionSize;
+    private int gridSize;
+    private int[] sourceRow;
+    private int[] sourceCol;
+    private int[] digitMap;
+    private int[] order;
+    private boolean transpose;
+
+    /**
+     * Creates a transformer with its own random generator.
+     */
+    public PuzzleTransformer() {
+        this(new SeededRandom(SeededRandom.randomSeed()));
+    }
+
+    /**
+     * Creates a transformer using the given random generator.
+     *
+     * @param random The random generator picking the transformations.
+     */
+    public PuzzleTransformer(SeededRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * Derives a new puzzle from a puzzle in the format made by {@link SudokuUtilities#generateSudokuMatrix}.
+     * The initial values and the solution are transformed in the same way.
+     *
+     * @param sudokuMatrix The puzzle to derive from.
+     * @return A new matrix with the derived puzzle and its solution.
+     */
+    public int[][][] derive(int[][][] sudokuMatrix) {
+        shuffleTransformation(SudokuUtilities.sectionSizeOf(sudokuMatrix.length));
+        int[][][] derived = new int[gridSize][gridSize][2];
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                int[] source = transpose
+                        ? sudokuMatrix[sourceCol[col]][sourceRow[row]]
+                        : sudokuMatrix[sourceRow[row]][sourceCol[col]];
+                derived[row][col][0] = digitMap[source[0]];
+                derived[row][col][1] = digitMap[source[1]];
+            }
+        }
+        return derived;
+    }
+
+    /**
+     * Derives a new solved board from a solved board, such as one made by
+     * {@link SudokuUtilities#generateFullSolvedBoard}, without filling a board again.
+     *
+     * @param solvedBoard The solved board to derive from.
+     * @return A new solved board with the same difficulty.
+     */
+    public SudokuBoard deriveSolvedBoard(SudokuBoard solvedBoard) {
+        shuffleTransformation(solvedBoard.getSectionSize());
+        SudokuBoard derived = new SudokuBoard(new int[gridSize][gridSize][2], solvedBoard.getDifficulty());
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                int value = transpose
+                        ? solvedBoard.getCurrentValue(sourceCol[col], sourceRow[row])
+                        : solvedBoard.getCurrentValue(sourceRow[row], sourceCol[col]);
+                derived.setCell(row, col, digitMap[value]);
+            }
+        }
+        return derived;
+    }
+
+    /**
+     * Picks a new random transformation.
+     * Row r of the result is taken from sourceRow[r] and column c from sourceCol[c],
+     * and digit d is renamed digitMap[d]; 0 stays 0 so empty cells stay empty.
+     * The arrays are only reallocated when the board size changes.
+     */
+    private void shuffleTransformation(int newSectionSize) {
+        if (newSectionSize != sectionSize) {
+            sectionSize = newSectionSize;
+            gridSize = newSectionSize * newSectionSize;
+            sourceRow = new int[gridSize];
+            sourceCol = new int[gridSize];
+            digitMap = new int[gridSize + 1];
+            order = new int[gridSize];
+        }
+        shuffleLines(sourceRow);
+        shuffleLines(sourceCol);
+
+        for (int digit = 0; digit < gridSize; digit++) {
+            order[digit] = digit + 1;
+        }
+        shuffle(order, gridSize);
+        digitMap[0] = 0;
+        System.arraycopy(order, 0, digitMap, 1, gridSize);
+        transpose = random.nextBoolean();
+    }
+
+    /**
+     * Shuffles the bands (or stacks) and the lines within each of them.
+     */
+    private void shuffleLines(int[] source) {
+        for (int band = 0; band < sectionSize; band++) {
+            order[band] = band;
+        }
+        shuffle(order, sectionSize);
+        for (int band = 0; band < sectionSize; band++) {
+            int first = band * sectionSize;
+            for (int line = 0; line < sectionSize; line++) {
+                source[first + line] = order[band] * sectionSize + line;
+            }
+        }
+        for (int band = 0; band < sectionSize; band++) {
+            for (int line = sectionSize - 1; line > 0; line--) {
+                int i = band * sectionSize + line;
+                int j = band * sectionSize + random.nextInt(line + 1);
+                int swap = source[i];
+                source[i] = source[j];
+                source[j] = swap;
+            }
+        }
+    }
+
+    /**
+     * Shuffles the first length values of an array.
+     */
+    private void shuffle(int[] values, int length) {
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+}
@@ -0,0 +1,410 @@
+package javafx.fxtest.model.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps many saved games in one file, each in a named slot.
+ * <p>
+ * The file starts with an index of fixed size entries, one per slot, so the slots can be listed
+ * by reading only the index, and a game is loaded by reading only its own bytes:
+ * <pre>
+ *   header                 64 bytes: magic "SDKA", version, 3 reserved bytes, capacity, number of slots,
+ *                          padded with 0 so every index entry lies within one 512 byte disk sector
+ *   index                  capacity entries of 64 bytes:
+ *     name                 32 bytes, UTF-8, padded with 0
+ *     level                1 byte (ordinal of {@link SudokuUtilities.SudokuLevel})
+ *     section size         1 byte
+ *     reserved             2 bytes
+ *     filled cells         2 bytes
+ *     cells                2 bytes
+ *     saved at             8 bytes, milliseconds since 1970
+ *     offset               8 bytes, of the saved game in the file
+ *     length               4 bytes, of the saved game
+ *     CRC-32               4 bytes, of the saved game
+ *   saved games            two areas per slot, each big enough for a game of the largest size, in the {@link BoardCodec} format:
+ *                          the first areas of all slots, then the second areas, which the file only grows to when used
+ * </pre>
+ * Saving to a slot that exists writes the game to the area of the slot its index entry doesn't point at, forces it
+ * to the disk, and only then rewrites the entry to point at it. The entry write is the commit point: a crash or an
+ * I/O error before it leaves the slot with the game it had, and the file never has to be rewritten.
+ * A new slot is only counted in the header once its game and entry are written.
+ * Archives written before slots had two areas are read as archives whose second areas were never used.
+ * Version 1 archives have a 16 byte header, so an entry can be split across two sectors and a torn write
+ * can damage it; they are still read and saved to in their own layout, and only new archives get version 2.
+ */
+public class SaveArchive implements Closeable {
+
+    public static final int MAGIC = 0x53444B41; // "SDKA"
+    public static final int VERSION = 2;
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int MAX_NAME_BYTES = 32;
+
+    static final int HEADER_BYTES = 64;
+    static final int VERSION_1_HEADER_BYTES = 16;
+    static final int ENTRY_BYTES = 64;
+    static final int SLOT_DATA_BYTES = BoardCodec.encodedSize(SudokuUtilities.MAX_SECTION_SIZE);
+
+    /**
+     * The index entry of a slot, describing the game saved in it without loading it.
+     */
+    public static final class Slot {
+        private final int index;
+        private final String name;
+        private final SudokuUtilities.SudokuLevel level;
+        private final int sectionSize;
+        private final int filledCells;
+        private final int cellCount;
+        private final long savedAt;
+        private final long offset;
+        private final int length;
+        private final int checksum;
+
+        private Slot(int index, String name, SudokuUtilities.SudokuLevel level, int sectionSize, int filledCells,
+                     int cellCount, long savedAt, long offset, int length, int checksum) {
+            this.index = index;
+            this.name = name;
+            this.level = level;
+            this.sectionSize = sectionSize;
+            this.filledCells = filledCells;
+            this.cellCount = cellCount;
+            this.savedAt = savedAt;
+            this.offset = offset;
+            this.length = length;
+            this.checksum = checksum;
+        }
+
+        /**
+         * Returns the name of the slot
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the difficulty of the saved game
+         * @return the level
+         */
+        public SudokuUtilities.SudokuLevel getLevel() {
+            return level;
+        }
+
+        /**
+         * Returns the width of a box of the saved game, 3 for 9x9
+         * @return the section size
+         */
+        public int getSectionSize() {
+            return sectionSize;
+        }
+
+        /**
+         * Returns the number of cells that had a value when the game was saved
+         * @return number of filled cells
+         */
+        public int getFilledCells() {
+            return filledCells;
+        }
+
+        /**
+         * Returns the number of cells of the board
+         * @return number of cells
+         */
+        public int getCellCount() {
+            return cellCount;
+        }
+
+        /**
+         * Returns how far the saved game had come, as the fraction of the cells that had a value
+         * @return progress from 0 to 1
+         */
+        public double getProgress() {
+            return (double) filledCells / cellCount;
+        }
+
+        /**
+         * Returns when the game was saved
+         * @return milliseconds since 1970
+         */
+        public long getSavedAt() {
+            return savedAt;
+        }
+
+        @Override
+        public String toString() {
+            int gridSize = sectionSize * sectionSize;
+            return String.format("%s (%dx%d %s, %d%%, saved %tF %<tR)", name, gridSize, gridSize, level,
+                    Math.round(getProgress() * 100), savedAt);
+        }
+    }
+
+    private final FileChannel channel;
+    private final int capacity;
+    private final int version;
+    private final int headerBytes; // where the index starts, the header of version 1 archives is shorter
+    private final List<Slot> slots = new ArrayList<>();
+    private final ByteBuffer entry = ByteBuffer.allocate(ENTRY_BYTES);
+
+    private SaveArchive(FileChannel channel, int capacity, int version) {
+        this.channel = channel;
+        this.capacity = capacity;
+        this.version = version;
+        this.headerBytes = version == 1 ? VERSION_1_HEADER_BYTES : HEADER_BYTES;
+    }
+
+    /**
+     * Opens an archive, creating it with room for {@link #DEFAULT_CAPACITY} slots if the file doesn't exist.
+     *
+     * @param file The archive file.
+     * @return The archive.
+     * @throws IOException if the file can't be opened or is not an archive.
+     */
+    public static SaveArchive open(Path file) throws IOException {
+        return open(file, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Opens an archive, creating it if the file doesn't exist. Only the header and the index are read.
+     *
+     * @param file The archive file.
+     * @param capacity The number of slots a new archive has room for.
+     * @return The archive.
+     * @throws IOException if the file can't be opened or is not an archive.
+     * @throws IllegalArgumentException if the capacity is not positive.
+     */
+    public static SaveArchive open(Path file, int capacity) throws IOException, IllegalArgumentException {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Error: Not a valid capacity " + capacity);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                SaveArchive archive = new SaveArchive(channel, capacity, VERSION);
+                archive.writeHeader();
+                return archive;
+            }
+            ByteBuffer header = ByteBuffer.allocate(VERSION_1_HEADER_BYTES);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a save archive");
+            }
+            int version = header.get() & 0xFF;
+            if (version > VERSION) {
+                throw new IOException("Save archive of a newer version of the game (format " + version + ")");
+            }
+            if (version < 1) {
+                throw new IOException("Save archive header is corrupt");
+            }
+            header.position(8);
+            int fileCapacity = header.getInt();
+            int count = header.getInt();
+            if (fileCapacity < 1 || count < 0 || count > fileCapacity) {
+                throw new IOException("Save archive header is corrupt");
+            }
+            SaveArchive archive = new SaveArchive(channel, fileCapacity, version);
+            archive.readIndex(count);
+            return archive;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the index entries of the slots in use, in one read.
+     */
+    private void readIndex(int count) throws IOException {
+        ByteBuffer index = ByteBuffer.allocate(count * ENTRY_BYTES);
+        readFully(channel, index, headerBytes);
+        index.flip();
+        SudokuUtilities.SudokuLevel[] levels = SudokuUtilities.SudokuLevel.values();
+        byte[] nameBytes = new byte[MAX_NAME_BYTES];
+        for (int i = 0; i < count; i++) {
+            index.get(nameBytes);
+            int nameLength = 0;
+            while (nameLength < MAX_NAME_BYTES && nameBytes[nameLength] != 0) {
+                nameLength++;
+            }
+            String name = new String(nameBytes, 0, nameLength, StandardCharsets.UTF_8);
+            int level = index.get() & 0xFF;
+            int sectionSize = index.get() & 0xFF;
+            index.getShort();
+            int filledCells = index.getShort() & 0xFFFF;
+            int cellCount = index.getShort() & 0xFFFF;
+            long savedAt = index.getLong();
+            long offset = index.getLong();
+            int length = index.getInt();
+            int checksum = index.getInt();
+            if (level >= levels.length || sectionSize < SudokuUtilities.MIN_SECTION_SIZE
+                    || sectionSize > SudokuUtilities.MAX_SECTION_SIZE || length < 0 || length > SLOT_DATA_BYTES
+                    || offset < dataStart() || offset > dataStart() + 2L * capacity * SLOT_DATA_BYTES - length) {
+                throw new IOException("Save archive index is corrupt in slot " + i);
+            }
+            slots.add(new Slot(i, name, levels[level], sectionSize, filledCells, cellCount, savedAt, offset, length, checksum));
+        }
+    }
+
+    /**
+     * Returns the slots in the order they were first saved
+     * @return the slots
+     */
+    public synchronized List<Slot> list() {
+        return Collections.unmodifiableList(new ArrayList<>(slots));
+    }
+
+    /**
+     * Returns the slot with a name
+     * @param name The name of the slot
+     * @return the slot, or null if there is none with the name
+     */
+    public synchronized Slot find(String name) {
+        for (Slot slot : slots) {
+            if (slot.name.equals(name)) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of slots the archive has room for
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Saves a game to the slot with a name, replacing the game in it if the slot exists.
+     * The game is written to the area of the slot that doesn't hold the current game and forced to the disk
+     * before its index entry, so the entry never points at a game that has not been written,
+     * and the game replaced is kept until the entry points at the new one.
+     *
+     * @param name The name of the slot, at most {@link #MAX_NAME_BYTES} bytes in UTF-8.
+     * @param board The game to save.
+     * @return The index entry of the slot.
+     * @throws IOException if the archive can't be written or is full.
+     * @throws IllegalArgumentException if the name is empty or too long.
+     */
+    public synchronized Slot save(String name, SudokuBoard board) throws IOException, IllegalArgumentException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length == 0 || nameBytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Error: A slot name must have 1 to " + MAX_NAME_BYTES + " bytes");
+        }
+        Slot existing = find(name);
+        int index = existing != null ? existing.index : slots.size();
+        if (index >= capacity) {
+            throw new IOException("The save archive is full, it has room for " + capacity + " games");
+        }
+        long offset = dataStart() + (long) index * SLOT_DATA_BYTES;
+        if (existing != null && existing.offset == offset) {
+            // the first area holds the game being replaced, so write to the second
+            offset += (long) capacity * SLOT_DATA_BYTES;
+        }
+
+        byte[] data = BoardCodec.encode(board);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        writeFully(ByteBuffer.wrap(data), offset);
+        channel.force(false);
+
+        int gridSize = board.getGridSize();
+        int filledCells = 0;
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                if (board.getCurrentValue(row, col) != 0) {
+                    filledCells++;
+                }
+            }
+        }
+        Slot slot = new Slot(index, name, board.getDifficulty(), board.getSectionSize(), filledCells,
+                gridSize * gridSize, System.currentTimeMillis(), offset, data.length, (int) crc.getValue());
+
+        entry.clear();
+        entry.put(nameBytes);
+        for (int i = nameBytes.length; i < MAX_NAME_BYTES; i++) {
+            entry.put((byte) 0);
+        }
+        entry.put((byte) slot.level.ordinal()).put((byte) slot.sectionSize).putShort((short) 0)
+                .putShort((short) slot.filledCells).putShort((short) slot.cellCount)
+                .putLong(slot.savedAt).putLong(slot.offset).putInt(slot.length).putInt(slot.checksum).flip();
+        writeFully(entry, headerBytes + (long) index * ENTRY_BYTES);
+        if (existing != null) {
+            slots.set(index, slot);
+        } else {
+            slots.add(slot);
+            writeHeader();
+        }
+        channel.force(false);
+        return slot;
+    }
+
+    /**
+     * Loads the game in a slot, reading only its own bytes.
+     *
+     * @param slot The slot, from {@link #list()} or {@link #find(String)}.
+     * @return The game.
+     * @throws IOException if the game can't be read or is corrupt.
+     */
+    public synchronized SudokuBoard load(Slot slot) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(slot.length);
+        readFully(channel, data, slot.offset);
+        CRC32 crc = new CRC32();
+        crc.update(data.array());
+        if ((int) crc.getValue() != slot.checksum) {
+            throw new IOException("The game in slot " + slot.name + " is corrupt, checksum does not match");
+        }
+        return BoardCodec.decode(data.array(), 0, slot.length);
+    }
+
+    private long dataStart() {
+        return headerBytes + (long) capacity * ENTRY_BYTES;
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(headerBytes);
+        header.putInt(MAGIC).put((byte) version).put((byte) 0).putShort((short) 0)
+                .putInt(capacity).putInt(slots.size()).clear();
+        writeFully(header, 0);
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Save archive is truncated");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Tells if the archive can still be used. A thread interrupted while it reads or writes the archive
+     * closes it, and it has to be opened again.
+     * @return true until the archive is closed
+     */
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
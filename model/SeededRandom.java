@@ -0,0 +1,77 @@
+package javafx.fxtest.model.model;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A small random number generator driven by a single 64-bit seed (the SplitMix64 algorithm).
+ * The same seed always gives the same sequence of numbers, which makes a generated puzzle
+ * reproducible from its seed. Drawing numbers does not allocate anything.
+ * A generator is not thread safe, use one instance per thread.
+ */
+public class SeededRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    /**
+     * Creates a generator with the given seed.
+     *
+     * @param seed The seed of the sequence.
+     */
+    public SeededRandom(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Returns a new seed picked at random, for generations that don't need to be reproduced.
+     *
+     * @return A random seed.
+     */
+    public static long randomSeed() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    /**
+     * Scrambles a value into a well distributed 64-bit number.
+     * Used to turn consecutive numbers into unrelated seeds.
+     *
+     * @param value The value to scramble.
+     * @return The scrambled value.
+     */
+    public static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns the next random 64-bit number.
+     *
+     * @return A random long.
+     */
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    /**
+     * Returns a random number from 0 (inclusive) to bound (exclusive).
+     *
+     * @param bound The upper bound, must be positive.
+     * @return A random int in the range.
+     */
+    public int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * Returns a random boolean.
+     *
+     * @return true or false with equal chance.
+     */
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+}
@@ -1,86 +1,192 @@
-package javafx.fxtest.model.model;
-
-import java.io.Serializable;
-
-public class SudokuUtilities implements Serializable {
-
-    public enum SudokuLevel {EASY, MEDIUM, HARD}
-
-    public static final int GRID_SIZE = 9;
-    public static final int SECTIONS_PER_ROW = 3;
-    public static final int SECTION_SIZE = 3;
-
-    /**
-     * Create a 3-dimensional matrix with initial values and solution in Sudoku.
-     *
-     * @param level The level, i.e. the difficulty, of the initial standing.
-     * @return A 3-dimensional int matrix.
-     * [row][col][0] represents the initial values, zero representing an empty cell.
-     * [row][col][1] represents the solution.
-     */
-    public static int[][][] generateSudokuMatrix(SudokuLevel level) {
-        SudokuBoard fullSolvedBoard = generateFullSolvedBoard();
-        SudokuBoard solutionCopy = copyBoard(fullSolvedBoard);
-
-        fullSolvedBoard.removeCells(fullSolvedBoard, level);
-        setImmutableCells(fullSolvedBoard);
-
-        int[][][] sudokuMatrix = new int[GRID_SIZE][GRID_SIZE][2];
-
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                Cell puzzleCell = fullSolvedBoard.getCell(row, col);
-                Cell solutionCell = solutionCopy.getCell(row, col);
-
-                sudokuMatrix[row][col][0] = puzzleCell.getCurrentValue();
-                sudokuMatrix[row][col][1] = solutionCell.getCurrentValue();
-            }
-        }
-        return sudokuMatrix;
-    }
-
-    /**
-     * Generates a fully solved Sudoku board.
-     *
-     * @return A {@code SudokuBoard} object representing a fully solved board.
-     */
-    public static SudokuBoard generateFullSolvedBoard() {
-        SudokuBoard fullSolvedBoard = new SudokuBoard(new int[GRID_SIZE][GRID_SIZE][2], SudokuLevel.EASY);
-        fullSolvedBoard.fillAllCells();
-        return fullSolvedBoard;
-    }
-
-    /**
-     * Creates a copy of the given Sudoku board.
-     *
-     * @param original The original {@code SudokuBoard} to copy.
-     * @return A new SudokuBoard with the same values as the original.
-     */
-    private static SudokuBoard copyBoard(SudokuBoard original) {
-        SudokuBoard copy = new SudokuBoard(new int[GRID_SIZE][GRID_SIZE][2], original.getDifficulty());
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                int value = original.getCell(row, col).getCurrentValue();
-                copy.setCell(row, col, value);
-            }
-        }
-        return copy;
-    }
-
-    /**
-     * Sets the immutability of all non-empty cells on the board.
-     * This is used to ensure that initial values cannot be modified by the player.
-     *
-     * @param board The {@code SudokuBoard} whose cells should be set as immutable.
-     */
-    private static void setImmutableCells(SudokuBoard board) {
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                Cell currentCell = board.getCell(row, col);
-                if (currentCell.getCurrentValue() != 0) {
-                    currentCell.setIsImmutable(true);
-                }
-            }
-        }
-    }
-}
+package javafx.fxtest.model.model;
+
+import java.io.Serializable;
+
+public class SudokuUtilities implements Serializable {
+
+    public enum SudokuLevel {EASY, MEDIUM, HARD}
+
+    public static final int GRID_SIZE = 9;
+    public static final int SECTIONS_PER_ROW = 3;
+    public static final int SECTION_SIZE = 3;
+
+    // boards are made of sectionSize x sectionSize boxes, from 4x4 up to 25x25;
+    // the digits of a unit have to fit in the bits of an int mask
+    public static final int MIN_SECTION_SIZE = 2;
+    public static final int MAX_SECTION_SIZE = 5;
+
+    // the version of the generation: the same seed gives another puzzle when it changes, so it is part of a PuzzleId.
+    // 1 filled the solution by backtracking on a 9x9 board, 2 fills boards of any size with the dancing links solver,
+    // 3 grades 9x9 puzzles and generates them again until the grade matches the level
+    public static final int GENERATOR_VERSION = 3;
+
+    // the generations a 9x9 puzzle gets to reach the grade of its level, about 5 are needed for MEDIUM and 3 for HARD
+    static final int MAX_GRADING_ATTEMPTS = 64;
+
+    // a grader is not thread safe and puzzles are generated on many threads at once
+    private static final ThreadLocal<DifficultyGrader> GRADERS = ThreadLocal.withInitial(DifficultyGrader::new);
+
+    /**
+     * Returns the section (box) size of a board with the given number of rows.
+     *
+     * @param gridSize The number of rows and columns of the board, e.g. 9, 16 or 25.
+     * @return The width of a box.
+     * @throws IllegalArgumentException if no supported board has that many rows.
+     */
+    public static int sectionSizeOf(int gridSize) throws IllegalArgumentException {
+        for (int sectionSize = MIN_SECTION_SIZE; sectionSize <= MAX_SECTION_SIZE; sectionSize++) {
+            if (sectionSize * sectionSize == gridSize) {
+                return sectionSize;
+            }
+        }
+        throw new IllegalArgumentException("Error: Not a valid board size " + gridSize);
+    }
+
+    /**
+     * Create a 3-dimensional matrix with initial values and solution in Sudoku.
+     *
+     * @param level The level, i.e. the difficulty, of the initial standing.
+     * @return A 3-dimensional int matrix.
+     * [row][col][0] represents the initial values, zero representing an empty cell.
+     * [row][col][1] represents the solution.
+     */
+    public static int[][][] generateSudokuMatrix(SudokuLevel level) {
+        return generateSudokuMatrix(level, SeededRandom.randomSeed(), new GenerationStats());
+    }
+
+    /**
+     * Create a 3-dimensional matrix with initial values and solution in Sudoku from a seed.
+     * The same seed and level always give the same puzzle with one {@link #GENERATOR_VERSION}, see {@link PuzzleId}.
+     *
+     * @param level The level, i.e. the difficulty, of the initial standing.
+     * @param seed The seed of all random choices made by the generation.
+     * @return A 3-dimensional int matrix in the same format as {@link #generateSudokuMatrix(SudokuLevel)}.
+     */
+    public static int[][][] generateSudokuMatrix(SudokuLevel level, long seed) {
+        return generateSudokuMatrix(level, seed, new GenerationStats());
+    }
+
+    /**
+     * Create a 3-dimensional matrix with initial values and solution in Sudoku,
+     * recording what the generation cost.
+     *
+     * @param level The level, i.e. the difficulty, of the initial standing.
+     * @param seed The seed of all random choices made by the generation.
+     * @param stats Receives the solver calls and time spent on the generation.
+     * @return A 3-dimensional int matrix in the same format as {@link #generateSudokuMatrix(SudokuLevel)}.
+     */
+    public static int[][][] generateSudokuMatrix(SudokuLevel level, long seed, GenerationStats stats) {
+        return generateSudokuMatrix(SECTION_SIZE, level, seed, stats);
+    }
+
+    /**
+     * Create a 3-dimensional matrix with initial values and solution for a board of any size.
+     *
+     * @param sectionSize The width of a box: 3 for a 9x9 board, 4 for 16x16 and 5 for 25x25.
+     * @param level The level, i.e. the difficulty, of the initial standing.
+     * @return A gridSize x gridSize x 2 matrix in the same format as {@link #generateSudokuMatrix(SudokuLevel)}.
+     */
+    public static int[][][] generateSudokuMatrix(int sectionSize, SudokuLevel level) {
+        return generateSudokuMatrix(sectionSize, level, SeededRandom.randomSeed(), new GenerationStats());
+    }
+
+    /**
+     * Create a 3-dimensional matrix with initial values and solution for a board of any size,
+     * recording what the generation cost.
+     * <p>
+     * A 9x9 puzzle is rated by a {@link DifficultyGrader} and generated again until its grade is of the level,
+     * see {@link DifficultyGrader#levelOf}, so the level says which techniques the puzzle needs.
+     * Easy puzzles get the clues of the EASY level, medium and hard ones the fewer clues of the HARD level,
+     * which graded medium puzzles are far more often made from. If no generation has the grade after
+     * {@link #MAX_GRADING_ATTEMPTS}, the last one is taken. Bigger boards can't be graded, their level is only
+     * the number of cells removed.
+     *
+     * @param sectionSize The width of a box: 3 for a 9x9 board, 4 for 16x16 and 5 for 25x25.
+     * @param level The level, i.e. the difficulty, of the initial standing.
+     * @param seed The seed of all random choices made by the generation.
+     * @param stats Receives the solver calls and time spent on the generation.
+     * @return A gridSize x gridSize x 2 matrix in the same format as {@link #generateSudokuMatrix(SudokuLevel)}.
+     */
+    public static int[][][] generateSudokuMatrix(int sectionSize, SudokuLevel level, long seed, GenerationStats stats) {
+        SeededRandom random = new SeededRandom(seed);
+        if (sectionSize != SECTION_SIZE) {
+            return generateUngraded(sectionSize, level, random, stats);
+        }
+        SudokuLevel removal = level == SudokuLevel.EASY ? SudokuLevel.EASY : SudokuLevel.HARD;
+        DifficultyGrader grader = GRADERS.get();
+        for (int attempt = 1; ; attempt++) {
+            int[][][] sudokuMatrix = generateUngraded(sectionSize, removal, random, stats);
+            if (attempt == MAX_GRADING_ATTEMPTS || DifficultyGrader.levelOf(grader.grade(sudokuMatrix)) == level) {
+                return sudokuMatrix;
+            }
+            stats.recordRejected();
+        }
+    }
+
+    /**
+     * Fills a board and removes as many cells as a level asks for, whatever techniques the puzzle then needs.
+     *
+     * @param sectionSize The width of a box.
+     * @param level The level deciding how many cells are removed.
+     * @param random The random generator of the generation.
+     * @param stats Receives the solver calls and time spent on the generation.
+     * @return A gridSize x gridSize x 2 matrix in the same format as {@link #generateSudokuMatrix(SudokuLevel)}.
+     */
+    private static int[][][] generateUngraded(int sectionSize, SudokuLevel level, SeededRandom random,
+                                              GenerationStats stats) {
+        long start = System.nanoTime();
+        SudokuBoard board = generateFullSolvedBoard(sectionSize, random);
+        stats.recordFill(System.nanoTime() - start);
+
+        // the solution is read from the board before the clues are removed, so one board is enough
+        int gridSize = board.getGridSize();
+        int[][][] sudokuMatrix = new int[gridSize][gridSize][2];
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                sudokuMatrix[row][col][1] = board.getCurrentValue(row, col);
+            }
+        }
+
+        board.removeCells(board, level, stats, random);
+
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                sudokuMatrix[row][col][0] = board.getCurrentValue(row, col);
+            }
+        }
+        return sudokuMatrix;
+    }
+
+    /**
+     * Generates a fully solved Sudoku board.
+     *
+     * @return A {@code SudokuBoard} object representing a fully solved board.
+     */
+    public static SudokuBoard generateFullSolvedBoard() {
+        return generateFullSolvedBoard(new SeededRandom(SeededRandom.randomSeed()));
+    }
+
+    /**
+     * Generates a fully solved Sudoku board from a seeded random generator.
+     *
+     * @param random The random generator picking the numbers.
+     * @return A {@code SudokuBoard} object representing a fully solved board.
+     */
+    public static SudokuBoard generateFullSolvedBoard(SeededRandom random) {
+        return generateFullSolvedBoard(SECTION_SIZE, random);
+    }
+
+    /**
+     * Generates a fully solved board of any size from a seeded random generator.
+     *
+     * @param sectionSize The width of a box: 3 for a 9x9 board, 4 for 16x16 and 5 for 25x25.
+     * @param random The random generator picking the numbers.
+     * @return A {@code SudokuBoard} object representing a fully solved board.
+     */
+    public static SudokuBoard generateFullSolvedBoard(int sectionSize, SeededRandom random) {
+        int gridSize = sectionSize * sectionSize;
+        SudokuBoard fullSolvedBoard = new SudokuBoard(new int[gridSize][gridSize][2], SudokuLevel.EASY);
+        fullSolvedBoard.fillAllCells(random);
+        return fullSolvedBoard;
+    }
+}
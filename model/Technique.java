@@ -0,0 +1,49 @@
+package javafx.fxtest.model.model;
+
+/**
+ * The human solving techniques used by the {@link LogicalSolver}, from the easiest to the hardest.
+ * Each technique has a difficulty on the scale commonly used by Sudoku raters,
+ * where a puzzle solved with singles only is below 2.5 and a puzzle that needs guessing is above 9.
+ */
+public enum Technique {
+    HIDDEN_SINGLE("Hidden single", 1.5),
+    NAKED_SINGLE("Naked single", 2.3),
+    POINTING("Pointing", 2.6),
+    CLAIMING("Claiming", 2.8),
+    NAKED_PAIR("Naked pair", 3.0),
+    X_WING("X-Wing", 3.2),
+    HIDDEN_PAIR("Hidden pair", 3.4),
+    NAKED_TRIPLE("Naked triple", 3.6),
+    SWORDFISH("Swordfish", 3.8),
+    HIDDEN_TRIPLE("Hidden triple", 4.0),
+    TRIAL_AND_ERROR("Trial and error", 10.0);
+
+    private final String displayName;
+    private final double difficulty;
+
+    Technique(String displayName, double difficulty) {
+        this.displayName = displayName;
+        this.difficulty = difficulty;
+    }
+
+    /**
+     * Returns the difficulty of the technique
+     * @return difficulty rating
+     */
+    public double getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * Returns the name of the technique as shown to the player
+     * @return name
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -1,124 +1,84 @@
-
-package javafx.fxtest.model.model;
-
-public class checkWinConditions {
-
-    private checkWinConditions() {}
-
-    /**
-     * Checks if all rows in the Sudoku board have unique numbers (1-9).
-     *
-     * @param currentBoard The 2D array of {@code Cell} objects representing the Sudoku board.
-     * @return true if each row contains unique numbers, otherwise false.
-     */
-    public static boolean isRowUnique(Cell[][] currentBoard) {
-        for (int row = 0; row < 9; row++) {
-            boolean[] seen = new boolean[9];
-
-            for (int col = 0; col < 9; col++) {
-                int currentValue = currentBoard[row][col].getCurrentValue();
-
-                if(currentValue == 0) {
-                    continue;
-                }
-
-
-                if (seen[currentValue - 1] == true) {
-                    return false;
-                }
-                seen[currentValue - 1] = true;
-            }
-        }
-        return true;
-    }
-
-    /**
-     * Checks if all columns in the Sudoku board have unique numbers (1-9).
-     *
-     * @param currentBoard The 2D array of {@code Cell} objects representing the Sudoku board.
-     * @return true if each column contains unique numbers, otherwise false.
-     */
-    public static boolean isColumnUnique(Cell[][] currentBoard) {
-        for (int col = 0; col < 9; col++) {
-            boolean[] seen = new boolean[9];
-
-            for (int row = 0; row < 9; row++) {
-                int currentValue = currentBoard[row][col].getCurrentValue();
-
-                if(currentValue == 0) {
-                    continue;
-                }
-
-                if (seen[currentValue - 1] == true) {
-                    return false;
-                }
-                seen[currentValue - 1] = true;
-            }
-        }
-        return true;
-    }
-
-    /**
-     * Checks if all 3x3 boxes in the Sudoku board have unique numbers (1-9).
-     *
-     * @param currentBoard The 2D array of {@code Cell} objects representing the Sudoku board.
-     * @return true if each 3x3 box contains unique numbers, otherwise false.
-     */
-    public static boolean isBoxUnique(Cell[][] currentBoard) {
-        // Loopar igenom varje 3x3 box (hela spelplanen)
-        for (int boxRow = 0; boxRow < 3; boxRow++) {
-            for (int boxCol = 0; boxCol < 3; boxCol++) {
-                boolean[] seen = new boolean[9];
-
-                for (int subBoxRow = 0; subBoxRow < 3; subBoxRow++) {
-                    for (int subBoxCol = 0; subBoxCol < 3; subBoxCol++) {
-                        int row = boxRow * 3 + subBoxRow;
-                        int col = boxCol * 3 + subBoxCol;
-
-                        int currentValue = currentBoard[row][col].getCurrentValue();
-
-                        if (currentValue != 0) {
-                            if (seen[currentValue - 1]) {
-                                return false;
-                            }
-                            seen[currentValue - 1] = true;
-                        }
-                    }
-                }
-            }
-        }
-        return true;
-    }
-
-    /**
-     * Checks if a given number can be placed in a specific cell without violating Sudoku rules.
-     *
-     * @param row The row index of the cell.
-     * @param col The column index of the cell.
-     * @param number The number to be checked for uniqueness.
-     * @param currentBoard The 2D array of Cell objects representing the Sudoku board.
-     * @return true if the number is unique in the given row, column, and 3x3 box, otherwise false.
-     */
-    public static boolean isNumberUnique(int row, int col, int number, Cell[][] currentBoard) {
-        for (int i = 0; i < 9; i++) {
-            if (currentBoard[row][i].getCurrentValue() == number) {
-                return false;
-            }
-        }
-        for (int i = 0; i < 9; i++) {
-            if (currentBoard[i][col].getCurrentValue() == number) {
-                return false;
-            }
-        }
-        int boxRowStart = (row / 3) * 3;
-        int boxColStart = (col / 3) * 3;
-        for (int r = boxRowStart; r < boxRowStart + 3; r++) {
-            for (int c = boxColStart; c < boxColStart + 3; c++) {
-                if (currentBoard[r][c].getCurrentValue() == number) {
-                    return false;
-                }
-            }
-        }
-        return true;
-    }
-}
\ No newline at end of file
+
+package javafx.fxtest.model.model;
+
+public class checkWinConditions {
+
+    /**
+     * Mask with one bit set for each of the digits 1-9, bit {@code n - 1} standing for digit {@code n}.
+     * Only the 9x9 {@link LogicalSolver} uses it, boards of any size use {@link #allDigits(int)}.
+     */
+    public static final int ALL_DIGITS = 0x1FF;
+
+    private checkWinConditions() {}
+
+    /**
+     * Returns the bit that represents a digit in a row, column or box mask.
+     *
+     * @param number The digit (1-9).
+     * @return The mask bit of the digit.
+     */
+    public static int digitBit(int number) {
+        return 1 << (number - 1);
+    }
+
+    /**
+     * Returns the mask with one bit set for each digit of a grid.
+     *
+     * @param gridSize The number of digits, 9 for the standard board.
+     * @return A mask with the lowest gridSize bits set.
+     */
+    public static int allDigits(int gridSize) {
+        return (1 << gridSize) - 1;
+    }
+
+    /**
+     * Returns the index (0-8, row by row) of the 3x3 box that contains a cell.
+     * Only the 9x9 {@link LogicalSolver} uses it, boards of any size use {@link #boxIndex(int, int, int)}.
+     *
+     * @param row The row index of the cell.
+     * @param col The column index of the cell.
+     * @return The box index.
+     */
+    public static int boxIndex(int row, int col) {
+        return boxIndex(row, col, SudokuUtilities.SECTION_SIZE);
+    }
+
+    /**
+     * Returns the index (row by row) of the box that contains a cell, on a board made of
+     * sectionSize x sectionSize boxes.
+     *
+     * @param row The row index of the cell.
+     * @param col The column index of the cell.
+     * @param sectionSize The width of a box.
+     * @return The box index.
+     */
+    public static int boxIndex(int row, int col, int sectionSize) {
+        return (row / sectionSize) * sectionSize + col / sectionSize;
+    }
+
+    /**
+     * Returns the digits that can still be placed in a cell of a 9x9 board, given the occupancy masks of its row,
+     * column and box. Only the {@link LogicalSolver} uses it, boards of any size use {@link #candidateMask(int, int, int, int)}.
+     *
+     * @param rowMask The digits used in the cell's row.
+     * @param colMask The digits used in the cell's column.
+     * @param boxMask The digits used in the cell's box.
+     * @return A mask of the digits not used in any of the three units.
+     */
+    public static int candidateMask(int rowMask, int colMask, int boxMask) {
+        return candidateMask(rowMask, colMask, boxMask, ALL_DIGITS);
+    }
+
+    /**
+     * Returns the digits that can still be placed in a cell of a board of any size.
+     *
+     * @param rowMask The digits used in the cell's row.
+     * @param colMask The digits used in the cell's column.
+     * @param boxMask The digits used in the cell's box.
+     * @param allDigits The digits of the board, see {@link #allDigits(int)}.
+     * @return A mask of the digits not used in any of the three units.
+     */
+    public static int candidateMask(int rowMask, int colMask, int boxMask, int allDigits) {
+        return ~(rowMask | colMask | boxMask) & allDigits;
+    }
+}
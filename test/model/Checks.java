@@ -0,0 +1,67 @@
+package javafx.fxtest.model.model;
+
+/**
+ * Assertions for the model tests, which run as plain programs: a failed check throws an {@link AssertionError}
+ * so the test stops with a non-zero exit status.
+ */
+final class Checks {
+
+    private Checks() {
+    }
+
+    /**
+     * Fails the test if a condition doesn't hold.
+     *
+     * @param condition The condition that must hold.
+     * @param message Tells what went wrong.
+     */
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * Fails the test if a value is not the expected one.
+     *
+     * @param expected The expected value.
+     * @param actual The value found.
+     * @param message Tells what was compared.
+     */
+    static void checkEquals(long expected, long actual, String message) {
+        if (expected != actual) {
+            throw new AssertionError(message + ": expected " + expected + " but was " + actual);
+        }
+    }
+
+    /**
+     * Fails the test if two arrays of cells don't hold the same values.
+     *
+     * @param expected The expected value of each cell.
+     * @param actual The value found in each cell.
+     * @param message Tells what was compared.
+     */
+    static void checkSameValues(int[] expected, int[] actual, String message) {
+        checkEquals(expected.length, actual.length, message + ", number of cells");
+        for (int cell = 0; cell < expected.length; cell++) {
+            checkEquals(expected[cell], actual[cell], message + ", cell " + cell);
+        }
+    }
+
+    /**
+     * Fails the test if two boards don't hold the same values.
+     *
+     * @param expected The expected board.
+     * @param actual The board found.
+     */
+    static void checkSameValues(SudokuBoard expected, SudokuBoard actual) {
+        checkEquals(expected.getGridSize(), actual.getGridSize(), "Grid size");
+        int gridSize = expected.getGridSize();
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                checkEquals(expected.getCurrentValue(row, col), actual.getCurrentValue(row, col),
+                        "Value of cell (" + row + ", " + col + ")");
+            }
+        }
+    }
+}
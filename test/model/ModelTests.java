@@ -0,0 +1,15 @@
+package javafx.fxtest.model.model;
+
+/**
+ * Runs all model tests. There is no test framework in the build, so each test is a plain program
+ * that throws an {@link AssertionError} when a check fails.
+ */
+public class ModelTests {
+
+    public static void main(String[] args) throws Exception {
+        PuzzleCanonicalizerTest.main(args);
+        MoveHistoryTest.main(args);
+        MoveJournalTest.main(args);
+        SaveArchiveTest.main(args);
+    }
+}
@@ -0,0 +1,117 @@
+package javafx.fxtest.model.model;
+
+import static javafx.fxtest.model.model.Checks.check;
+import static javafx.fxtest.model.model.Checks.checkEquals;
+import static javafx.fxtest.model.model.Checks.checkSameValues;
+
+/**
+ * Tests for {@link MoveHistory}.
+ */
+public class MoveHistoryTest {
+
+    public static void main(String[] args) {
+        undoingEveryMoveGivesBackTheBoard();
+        undoingAPlacementGivesBackTheNotes();
+        aFullHistoryDropsTheOldestMoves();
+        System.out.println("MoveHistoryTest passed");
+    }
+
+    private static SudokuBoard newBoard() {
+        return new SudokuBoard(SudokuUtilities.generateSudokuMatrix(SudokuUtilities.SudokuLevel.EASY, 7),
+                SudokuUtilities.SudokuLevel.EASY);
+    }
+
+    private static void undoingEveryMoveGivesBackTheBoard() {
+        SudokuBoard board = newBoard();
+        int[] before = valuesOf(board);
+        int gridSize = board.getGridSize();
+        MoveHistory history = new MoveHistory();
+        SeededRandom random = new SeededRandom(1);
+        for (int i = 0; i < 10_000; i++) {
+            int cell = random.nextInt(gridSize * gridSize);
+            if (board.isCellImmutable(cell / gridSize, cell % gridSize)) {
+                continue;
+            }
+            int oldValue = board.getCurrentValue(cell / gridSize, cell % gridSize);
+            int newValue = random.nextInt(gridSize + 1);
+            board.setCell(cell / gridSize, cell % gridSize, newValue);
+            history.record(newValue == 0 ? MoveHistory.CLEAR : MoveHistory.PLACE, cell, oldValue, newValue, i % 10 != 0);
+        }
+        int[] after = valuesOf(board);
+
+        while (history.undo(board, cell -> { }) > 0) {
+        }
+        check(!history.canUndo(), "Moves left to undo");
+        checkSameValues(before, valuesOf(board), "undoing every move");
+
+        while (history.redo(board, cell -> { }) > 0) {
+        }
+        check(!history.canRedo(), "Moves left to redo");
+        checkSameValues(after, valuesOf(board), "redoing every move");
+    }
+
+    private static void undoingAPlacementGivesBackTheNotes() {
+        SudokuBoard board = newBoard();
+        int gridSize = board.getGridSize();
+        int cell = 0;
+        while (board.isCellImmutable(cell / gridSize, cell % gridSize)) {
+            cell++;
+        }
+        int row = cell / gridSize;
+        int col = cell % gridSize;
+        int digit = board.getCorrectValue(row, col);
+        for (int peer = 0; peer < gridSize; peer++) {
+            if (peer != col && !board.isCellImmutable(row, peer)) {
+                board.setNote(row, peer, digit, true);
+            }
+            if (peer != row && !board.isCellImmutable(peer, col)) {
+                board.setNote(peer, col, digit, true);
+            }
+        }
+        int[] notesBefore = notesOf(board);
+
+        MoveHistory history = new MoveHistory();
+        int[] eliminated = new int[3 * gridSize];
+        int count = board.placeNumber(row, col, digit, eliminated);
+        history.record(MoveHistory.PLACE, cell, 0, digit, false);
+        history.recordNotes(digit, eliminated, count);
+        check(count > 0, "The placement took no notes away");
+
+        checkEquals(count + 1, history.undo(board, changed -> { }), "Cells set back by one undo");
+        checkEquals(0, board.getCurrentValue(row, col), "Value after undo");
+        checkSameValues(notesBefore, notesOf(board), "Notes after undo");
+    }
+
+    private static void aFullHistoryDropsTheOldestMoves() {
+        SudokuBoard board = newBoard();
+        int gridSize = board.getGridSize();
+        int cell = 0;
+        while (board.isCellImmutable(cell / gridSize, cell % gridSize)) {
+            cell++;
+        }
+        MoveHistory history = new MoveHistory(8);
+        for (int i = 0; i < 20; i++) {
+            history.record(MoveHistory.PLACE, cell, i % gridSize, (i + 1) % gridSize, false);
+        }
+        check(history.size() <= 8, "History holds " + history.size() + " moves, more than its maximum");
+        check(history.canUndo(), "Nothing to undo after dropping the oldest moves");
+    }
+
+    private static int[] notesOf(SudokuBoard board) {
+        int gridSize = board.getGridSize();
+        int[] notes = new int[gridSize * gridSize];
+        for (int cell = 0; cell < notes.length; cell++) {
+            notes[cell] = board.getNotes(cell / gridSize, cell % gridSize);
+        }
+        return notes;
+    }
+
+    private static int[] valuesOf(SudokuBoard board) {
+        int gridSize = board.getGridSize();
+        int[] values = new int[gridSize * gridSize];
+        for (int cell = 0; cell < values.length; cell++) {
+            values[cell] = board.getCurrentValue(cell / gridSize, cell % gridSize);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,123 @@
+package javafx.fxtest.model.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static javafx.fxtest.model.model.Checks.check;
+import static javafx.fxtest.model.model.Checks.checkSameValues;
+
+/**
+ * Tests for {@link MoveJournal}.
+ */
+public class MoveJournalTest {
+
+    public static void main(String[] args) throws IOException {
+        recoversTheLastMoveAfterClose();
+        recoversTheMovesOfAGameThatWasNotClosed();
+        recoversTheMovesAcrossCompactions();
+        nothingToRecoverInAnEmptyDirectory();
+        System.out.println("MoveJournalTest passed");
+    }
+
+    private static SudokuBoard newBoard() {
+        return new SudokuBoard(SudokuUtilities.generateSudokuMatrix(SudokuUtilities.SudokuLevel.MEDIUM, 3),
+                SudokuUtilities.SudokuLevel.MEDIUM);
+    }
+
+    private static void playMoves(SudokuBoard board, MoveJournal journal, int moves) throws IOException {
+        int gridSize = board.getGridSize();
+        SeededRandom random = new SeededRandom(moves);
+        for (int move = 0; move < moves; move++) {
+            int cell = random.nextInt(gridSize * gridSize);
+            if (board.isCellImmutable(cell / gridSize, cell % gridSize)) {
+                continue;
+            }
+            int value = random.nextInt(gridSize + 1);
+            board.setCell(cell / gridSize, cell % gridSize, value);
+            journal.recordMove(cell / gridSize, cell % gridSize, value);
+        }
+    }
+
+    private static void recoversTheLastMoveAfterClose() throws IOException {
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            SudokuBoard board = newBoard();
+            MoveJournal journal = new MoveJournal(directory);
+            try {
+                journal.startSession(board);
+                playMoves(board, journal, 200);
+            } finally {
+                journal.close();
+            }
+            checkSameValues(board, MoveJournal.recover(directory));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static void recoversTheMovesOfAGameThatWasNotClosed() throws IOException {
+        Path directory = Files.createTempDirectory("journal");
+        MoveJournal journal = new MoveJournal(directory);
+        try {
+            SudokuBoard board = newBoard();
+            journal.startSession(board);
+            awaitFirstSnapshot(journal);
+            playMoves(board, journal, 200);
+            // recovering before close reads what a crash of the game would leave behind
+            checkSameValues(board, MoveJournal.recover(directory));
+        } finally {
+            journal.close();
+            delete(directory);
+        }
+    }
+
+    private static void recoversTheMovesAcrossCompactions() throws IOException {
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            SudokuBoard board = newBoard();
+            MoveJournal journal = new MoveJournal(directory, 16);
+            try {
+                journal.startSession(board);
+                playMoves(board, journal, 1_000);
+            } finally {
+                journal.close();
+            }
+            check(journal.getCompactions() > 0, "The journal was never compacted");
+            checkSameValues(board, MoveJournal.recover(directory));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static void nothingToRecoverInAnEmptyDirectory() throws IOException {
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            check(MoveJournal.recover(directory) == null, "Recovered a session from an empty directory");
+        } finally {
+            delete(directory);
+        }
+    }
+
+    /**
+     * Waits for the background thread to write the snapshot of the session and start its journal,
+     * until then the moves are only in memory.
+     */
+    private static void awaitFirstSnapshot(MoveJournal journal) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (journal.getCompactions() == 0) {
+            check(System.currentTimeMillis() < deadline, "The snapshot of the session was never written");
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package javafx.fxtest.model.model;
+
+import static javafx.fxtest.model.model.Checks.check;
+import static javafx.fxtest.model.model.Checks.checkEquals;
+
+/**
+ * Tests for {@link PuzzleCanonicalizer}.
+ */
+public class PuzzleCanonicalizerTest {
+
+    public static void main(String[] args) {
+        derivedPuzzlesHaveTheSameCanonicalForm();
+        differentPuzzlesHaveDifferentCanonicalForms();
+        System.out.println("PuzzleCanonicalizerTest passed");
+    }
+
+    private static void derivedPuzzlesHaveTheSameCanonicalForm() {
+        PuzzleCanonicalizer canonicalizer = new PuzzleCanonicalizer();
+        PuzzleTransformer transformer = new PuzzleTransformer(new SeededRandom(1));
+        for (int i = 0; i < 30; i++) {
+            SudokuUtilities.SudokuLevel level = SudokuUtilities.SudokuLevel.values()[i % 3];
+            int[][][] puzzle = SudokuUtilities.generateSudokuMatrix(level, i);
+            long hash = canonicalizer.canonicalHash(puzzle);
+            for (int variant = 0; variant < 5; variant++) {
+                checkEquals(hash, canonicalizer.canonicalHash(transformer.derive(puzzle)),
+                        "Canonical hash of variant " + variant + " of puzzle " + i);
+            }
+        }
+    }
+
+    private static void differentPuzzlesHaveDifferentCanonicalForms() {
+        PuzzleCanonicalizer canonicalizer = new PuzzleCanonicalizer();
+        LongHashSet seen = new LongHashSet();
+        for (int i = 0; i < 30; i++) {
+            int[][][] puzzle = SudokuUtilities.generateSudokuMatrix(SudokuUtilities.SudokuLevel.MEDIUM, 1000 + i);
+            check(seen.add(canonicalizer.canonicalHash(puzzle)), "Puzzle " + i + " has the canonical form of another one");
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package javafx.fxtest.model.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import static javafx.fxtest.model.model.Checks.check;
+import static javafx.fxtest.model.model.Checks.checkEquals;
+import static javafx.fxtest.model.model.Checks.checkSameValues;
+
+/**
+ * Tests for {@link SaveArchive}.
+ */
+public class SaveArchiveTest {
+
+    public static void main(String[] args) throws IOException {
+        loadsWhatWasSaved();
+        replacingAGameKeepsTheOtherSlots();
+        aFullArchiveRefusesNewSlots();
+        anInterruptedSaveKeepsTheOldGame();
+        readsAndSavesVersion1Archives();
+        System.out.println("SaveArchiveTest passed");
+    }
+
+    private static SudokuBoard newBoard(SudokuUtilities.SudokuLevel level, long seed) {
+        return new SudokuBoard(SudokuUtilities.generateSudokuMatrix(level, seed), level);
+    }
+
+    private static Path newFile() throws IOException {
+        Path file = Files.createTempFile("archive", ".sdka");
+        Files.delete(file);
+        return file;
+    }
+
+    private static void loadsWhatWasSaved() throws IOException {
+        Path file = newFile();
+        try {
+            SudokuBoard easy = newBoard(SudokuUtilities.SudokuLevel.EASY, 1);
+            SudokuBoard hard = newBoard(SudokuUtilities.SudokuLevel.HARD, 2);
+            try (SaveArchive archive = SaveArchive.open(file)) {
+                archive.save("easy", easy);
+                archive.save("hard", hard);
+            }
+            try (SaveArchive archive = SaveArchive.open(file)) {
+                checkEquals(2, archive.list().size(), "Number of slots");
+                SaveArchive.Slot slot = archive.find("hard");
+                check(slot != null, "Slot hard not found");
+                check(slot.getLevel() == SudokuUtilities.SudokuLevel.HARD, "Level of slot hard");
+                checkSameValues(hard, archive.load(slot));
+                checkSameValues(easy, archive.load(archive.find("easy")));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void replacingAGameKeepsTheOtherSlots() throws IOException {
+        Path file = newFile();
+        try {
+            SudokuBoard other = newBoard(SudokuUtilities.SudokuLevel.EASY, 3);
+            try (SaveArchive archive = SaveArchive.open(file)) {
+                archive.save("game", newBoard(SudokuUtilities.SudokuLevel.EASY, 4));
+                archive.save("other", other);
+            }
+            // every save goes to the area the slot doesn't use, so save a few times to use both
+            for (long seed = 5; seed < 8; seed++) {
+                SudokuBoard replacement = newBoard(SudokuUtilities.SudokuLevel.MEDIUM, seed);
+                try (SaveArchive archive = SaveArchive.open(file)) {
+                    archive.save("game", replacement);
+                }
+                try (SaveArchive archive = SaveArchive.open(file)) {
+                    checkEquals(2, archive.list().size(), "Number of slots");
+                    checkSameValues(replacement, archive.load(archive.find("game")));
+                    checkSameValues(other, archive.load(archive.find("other")));
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void aFullArchiveRefusesNewSlots() throws IOException {
+        Path file = newFile();
+        try (SaveArchive archive = SaveArchive.open(file, 2)) {
+            SudokuBoard board = newBoard(SudokuUtilities.SudokuLevel.EASY, 9);
+            archive.save("first", board);
+            archive.save("second", board);
+            boolean refused = false;
+            try {
+                archive.save("third", board);
+            } catch (IOException e) {
+                refused = true;
+            }
+            check(refused, "A full archive took another slot");
+            archive.save("first", board);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void anInterruptedSaveKeepsTheOldGame() throws IOException {
+        Path file = newFile();
+        try {
+            SudokuBoard saved = newBoard(SudokuUtilities.SudokuLevel.EASY, 10);
+            SaveArchive archive = SaveArchive.open(file);
+            try {
+                archive.save("game", saved);
+                Thread.currentThread().interrupt();
+                boolean interrupted = false;
+                try {
+                    archive.save("game", newBoard(SudokuUtilities.SudokuLevel.EASY, 11));
+                } catch (ClosedByInterruptException e) {
+                    interrupted = true;
+                }
+                Thread.interrupted();
+                check(interrupted, "The save was not interrupted");
+                check(!archive.isOpen(), "The archive is still open after an interrupt");
+            } finally {
+                Thread.interrupted();
+                archive.close();
+            }
+            try (SaveArchive reopened = SaveArchive.open(file)) {
+                checkSameValues(saved, reopened.load(reopened.find("game")));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void readsAndSavesVersion1Archives() throws IOException {
+        Path file = newFile();
+        try {
+            SudokuBoard saved = newBoard(SudokuUtilities.SudokuLevel.HARD, 12);
+            byte[] data = BoardCodec.encode(saved);
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            int capacity = 2;
+            long dataStart = SaveArchive.VERSION_1_HEADER_BYTES + (long) capacity * SaveArchive.ENTRY_BYTES;
+            ByteBuffer archive = ByteBuffer.allocate((int) dataStart + data.length);
+            archive.putInt(SaveArchive.MAGIC).put((byte) 1).put((byte) 0).putShort((short) 0)
+                    .putInt(capacity).putInt(1);
+            byte[] name = "old".getBytes(StandardCharsets.UTF_8);
+            archive.put(name).put(new byte[SaveArchive.MAX_NAME_BYTES - name.length])
+                    .put((byte) saved.getDifficulty().ordinal()).put((byte) saved.getSectionSize()).putShort((short) 0)
+                    .putShort((short) saved.getFilledCells()).putShort((short) 81).putLong(0)
+                    .putLong(dataStart).putInt(data.length).putInt((int) crc.getValue());
+            archive.position((int) dataStart);
+            archive.put(data);
+            Files.write(file, archive.array());
+
+            SudokuBoard added = newBoard(SudokuUtilities.SudokuLevel.EASY, 13);
+            try (SaveArchive opened = SaveArchive.open(file)) {
+                checkSameValues(saved, opened.load(opened.find("old")));
+                opened.save("new", added);
+            }
+            try (SaveArchive opened = SaveArchive.open(file)) {
+                checkEquals(2, opened.list().size(), "Number of slots");
+                checkSameValues(saved, opened.load(opened.find("old")));
+                checkSameValues(added, opened.load(opened.find("new")));
+            }
+            checkEquals(1, Files.readAllBytes(file)[4], "Version of the archive after saving to it");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package javafx.fxtest.model.view;
+
+import javafx.fxtest.model.model.SudokuBoard;
+import javafx.scene.Node;
+
+/**
+ * Draws the cells of a board for the {@link GridView} and tells it which cell was clicked.
+ * The view decides which cells need drawing and how each is highlighted; a renderer only draws
+ * the cells it is asked to, so a move redraws the few cells it changed and not the whole board.
+ */
+interface BoardRenderer {
+
+    /** A cell drawn as usual. */
+    int NORMAL = 0;
+    /** A cell whose value is repeated in its row, column or box. */
+    int CONFLICT = 1;
+    /** The cell of the next hint. */
+    int HINT = 2;
+
+    /**
+     * Told the cell the player clicked.
+     */
+    interface CellClickListener {
+        void cellClicked(int row, int col);
+    }
+
+    /**
+     * Returns the node showing the board, to put in the view
+     * @return The node
+     */
+    Node getNode();
+
+    /**
+     * Sets the board to draw, making the grid anew when its size differs from the board drawn before.
+     * Nothing is drawn until the cells are.
+     * @param board The board
+     */
+    void setBoard(SudokuBoard board);
+
+    /**
+     * Draws the value or the notes of a cell.
+     * @param row The row
+     * @param col The col
+     * @param highlight {@link #NORMAL}, {@link #CONFLICT} or {@link #HINT}
+     */
+    void drawCell(int row, int col, int highlight);
+
+    /**
+     * Sets who is told when a cell is clicked
+     * @param listener The listener
+     */
+    void setOnCellClicked(CellClickListener listener);
+}
@@ -0,0 +1,180 @@
+package javafx.fxtest.model.view;
+
+import javafx.fxtest.model.model.SudokuBoard;
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * Draws a board on a single {@link Canvas}, so the scene graph holds one node whatever the size of the board,
+ * with no CSS to apply. A cell is redrawn on its own by painting over its square inside the grid lines,
+ * so a move costs a few drawing calls; the whole grid is only drawn again when the canvas is resized,
+ * which scales the board to the space it gets. A click is turned into a cell from its coordinates.
+ */
+class CanvasBoardRenderer implements BoardRenderer {
+
+    private static final Color BACKGROUND = Color.WHITE;
+    private static final Color CONFLICT_BACKGROUND = Color.web("#ffd6d6");
+    private static final Color HINT_BACKGROUND = Color.web("#fff3b0");
+    private static final Color GIVEN_TEXT = Color.BLACK;
+    private static final Color PLAYER_TEXT = Color.web("#1f4e9c");
+    private static final Color CONFLICT_TEXT = Color.web("#c00000");
+    private static final Color NOTE_TEXT = Color.GRAY;
+    private static final Color CELL_LINE = Color.web("#a0a0a0");
+    private static final Color BOX_LINE = Color.BLACK;
+
+    // the digits as text, so drawing a cell creates no strings
+    private static final String[] DIGITS = new String[26];
+
+    static {
+        for (int digit = 0; digit < DIGITS.length; digit++) {
+            DIGITS[digit] = Integer.toString(digit);
+        }
+    }
+
+    private final Pane pane = new Pane(); // gives the canvas the space the view has for the board
+    private final Canvas canvas = new Canvas();
+    private final GraphicsContext gc = canvas.getGraphicsContext2D();
+    private SudokuBoard board;
+    private byte[] highlights; // the highlight each cell was last drawn with, to draw it again after a resize
+    private CellClickListener listener;
+
+    // the layout of the grid in the canvas, worked out when the canvas is resized
+    private double cellSize;
+    private double left;
+    private double top;
+    private Font valueFont;
+    private Font noteFont;
+
+    /**
+     * Creates a renderer whose canvas follows the size of its pane.
+     */
+    CanvasBoardRenderer() {
+        pane.getChildren().add(canvas);
+        canvas.widthProperty().bind(pane.widthProperty());
+        canvas.heightProperty().bind(pane.heightProperty());
+        canvas.widthProperty().addListener((observable, oldWidth, newWidth) -> drawGrid());
+        canvas.heightProperty().addListener((observable, oldHeight, newHeight) -> drawGrid());
+        canvas.setOnMouseClicked(event -> {
+            if (listener == null || board == null || cellSize <= 0) {
+                return;
+            }
+            int col = (int) Math.floor((event.getX() - left) / cellSize);
+            int row = (int) Math.floor((event.getY() - top) / cellSize);
+            if (row >= 0 && row < board.getGridSize() && col >= 0 && col < board.getGridSize()) {
+                listener.cellClicked(row, col);
+            }
+        });
+    }
+
+    @Override
+    public Node getNode() {
+        return pane;
+    }
+
+    @Override
+    public void setBoard(SudokuBoard board) {
+        boolean resized = this.board == null || board.getGridSize() != this.board.getGridSize();
+        this.board = board;
+        if (resized) {
+            int gridSize = board.getGridSize();
+            highlights = new byte[gridSize * gridSize];
+            // the same space per cell as the tiles had, but any size is drawn
+            double preferredCell = gridSize <= 9 ? 36 : gridSize <= 16 ? 30 : 26;
+            pane.setPrefSize(gridSize * preferredCell + 2, gridSize * preferredCell + 2);
+            pane.setMinSize(gridSize * 12 + 2, gridSize * 12 + 2);
+            drawGrid();
+        }
+    }
+
+    @Override
+    public void setOnCellClicked(CellClickListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Works out the size of the cells for the size of the canvas and draws the lines and every cell.
+     */
+    private void drawGrid() {
+        // clearing everything also lets the canvas drop the drawing commands it has buffered
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        if (board == null) {
+            return;
+        }
+        int gridSize = board.getGridSize();
+        int sectionSize = board.getSectionSize();
+        // whole pixels per cell keep the lines sharp
+        cellSize = Math.floor((Math.min(canvas.getWidth(), canvas.getHeight()) - 2) / gridSize);
+        if (cellSize < 4) {
+            cellSize = 0;
+            return;
+        }
+        double size = cellSize * gridSize;
+        left = Math.floor((canvas.getWidth() - size) / 2);
+        top = Math.floor((canvas.getHeight() - size) / 2);
+        valueFont = Font.font("Monospaced", FontWeight.NORMAL, cellSize * (gridSize <= 9 ? 0.6 : 0.5));
+        noteFont = Font.font("Monospaced", FontWeight.NORMAL, cellSize / sectionSize * (gridSize <= 9 ? 0.8 : 0.9));
+
+        gc.setFill(BACKGROUND);
+        gc.fillRect(left, top, size, size);
+        for (int line = 0; line <= gridSize; line++) {
+            boolean boxLine = line % sectionSize == 0;
+            gc.setStroke(boxLine ? BOX_LINE : CELL_LINE);
+            gc.setLineWidth(boxLine ? 2 : 1);
+            // a 1 pixel line is drawn on the middle of a pixel to cover exactly that pixel
+            double offset = boxLine ? 0 : 0.5;
+            double at = line * cellSize + offset;
+            gc.strokeLine(left + at, top, left + at, top + size);
+            gc.strokeLine(left, top + at, left + size, top + at);
+        }
+        for (int cell = 0; cell < highlights.length; cell++) {
+            drawCell(cell / gridSize, cell % gridSize, highlights[cell]);
+        }
+    }
+
+    @Override
+    public void drawCell(int row, int col, int highlight) {
+        int gridSize = board.getGridSize();
+        highlights[row * gridSize + col] = (byte) highlight;
+        if (cellSize <= 0) {
+            return;
+        }
+        // paint inside the lines around the cell, which a box line covers 1 pixel into
+        double x = left + col * cellSize;
+        double y = top + row * cellSize;
+        gc.setFill(highlight == CONFLICT ? CONFLICT_BACKGROUND : highlight == HINT ? HINT_BACKGROUND : BACKGROUND);
+        gc.fillRect(x + 1, y + 1, cellSize - 2, cellSize - 2);
+
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        int value = board.getCurrentValue(row, col);
+        if (value != 0) {
+            gc.setFont(valueFont);
+            gc.setFill(highlight == CONFLICT ? CONFLICT_TEXT : board.isCellImmutable(row, col) ? GIVEN_TEXT : PLAYER_TEXT);
+            gc.fillText(DIGITS[value], x + cellSize / 2, y + cellSize / 2);
+            return;
+        }
+        int notes = board.getNotes(row, col);
+        if (notes == 0) {
+            return;
+        }
+        // each digit has its own place in a sectionSize x sectionSize square
+        int sectionSize = board.getSectionSize();
+        double noteSize = (cellSize - 2) / sectionSize;
+        gc.setFont(noteFont);
+        gc.setFill(NOTE_TEXT);
+        for (int digit = 1; digit <= gridSize; digit++) {
+            if ((notes & 1 << (digit - 1)) != 0) {
+                int place = digit - 1;
+                gc.fillText(DIGITS[digit], x + 1 + (place % sectionSize + 0.5) * noteSize,
+                        y + 1 + (place / sectionSize + 0.5) * noteSize);
+            }
+        }
+    }
+}
@@ -1,98 +1,593 @@
-package javafx.fxtest.model.view;
-
-import javafx.fxtest.model.model.FileHandler;
-import javafx.fxtest.model.model.SudokuUtilities;
-import javafx.fxtest.model.model.SudokuBoard;
-import javafx.stage.FileChooser;
-
-import java.io.File;
-import java.io.IOException;
-
-public class Controller {
-
-    private SudokuBoard board;
-    private GridView view;
-
-
-    public Controller(SudokuBoard board, GridView view) {
-        this.board = board;
-        this.view = view;
-    }
-
-
-    void mouseEvent(char button, int x, int y) {
-        if (button == 'C') {
-            board.clearCell(x, y);
-            view.updateTile(x, y);
-        } else {
-            if (button == '0') {
-                board.clearCell(x, y);
-                view.updateTile(x, y);
-            } else {
-                int valueToPlace = Character.getNumericValue(button);
-
-                if (valueToPlace >= 1 && valueToPlace <= 9) {
-                    if (board.getCurrentValue(x, y) == 0) {
-                        board.placeNumber(x, y, valueToPlace);
-                        view.updateTile(x, y);
-                    }
-                }
-            }
-        }
-    }
-
-
-    void clearGame(){
-
-        for(int row=0;row< SudokuUtilities.GRID_SIZE;row++){
-            for (int col=0;col< SudokuUtilities.GRID_SIZE;col++)
-                if (!board.getCell(row,col).isImmutable()) {
-                    board.clearCell(row, col);
-                }
-        }
-    } // la till isimmutablecheck
-
-
-
-    void getHint() throws IllegalArgumentException{
-        board.fillRandomCell();
-    }
-
-
-    void restartGame(SudokuBoard newBoard){
-        this.board = newBoard;
-    }
-
-
-    void saveGame(){
-        FileChooser fileChooser = new FileChooser();
-        File file = null;
-
-        fileChooser.setTitle("Save File (Sudoku)");
-        fileChooser.getExtensionFilters().add
-                (new FileChooser.ExtensionFilter("Sudoku Files", "*.sudoku"));
-        try {
-            file = fileChooser.showSaveDialog(this.view.getScene().getWindow());
-            FileHandler.serializeToFile(this.board,file);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-
-    SudokuBoard loadGame(){
-        File file = null;
-        FileChooser fileChooser = new FileChooser();
-        fileChooser.setTitle("Open File (Sudoku)");
-        fileChooser.getExtensionFilters().add(
-                new FileChooser.ExtensionFilter("Sudoku Files", "*.sudoku"));
-        try {
-            file = fileChooser.showOpenDialog(this.view.getScene().getWindow());
-            this.board = FileHandler.deserializeFromFile(file);
-            return this.board;
-        } catch (IOException e){
-            e.printStackTrace();
-        }
-        return null;
-    }
-}
\ No newline at end of file
+package javafx.fxtest.model.view;
+
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
+import javafx.fxtest.model.model.BoardChangeListener;
+import javafx.fxtest.model.model.BoardChanges;
+import javafx.fxtest.model.model.BoardCodec;
+import javafx.fxtest.model.model.FileHandler;
+import javafx.fxtest.model.model.HintEngine;
+import javafx.fxtest.model.model.MoveHistory;
+import javafx.fxtest.model.model.MoveJournal;
+import javafx.fxtest.model.model.PuzzleLibrary;
+import javafx.fxtest.model.model.PuzzlePool;
+import javafx.fxtest.model.model.SaveArchive;
+import javafx.fxtest.model.model.SudokuUtilities;
+import javafx.fxtest.model.model.SudokuBoard;
+import javafx.stage.FileChooser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+public class Controller {
+
+    private static final Path sessionDirectory = Paths.get(
+            System.getProperty("sudoku.home", Paths.get(System.getProperty("user.home"), ".sudoku").toString()));
+    private static final Path poolFile = sessionDirectory.resolve("pool.sdkl"); // the puzzles left in the pool last time
+    private static final ExecutorService fileExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "file-io");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // what went wrong while the pool was opened, only written before the pool is ready
+    private static final List<String> poolProblems = new ArrayList<>();
+    // opened on the file thread, so the library and the saved puzzles are read while the first frame is drawn
+    private static final CompletableFuture<PuzzlePool> puzzlePool =
+            CompletableFuture.supplyAsync(Controller::createPuzzlePool, fileExecutor);
+    private static MoveJournal journal;
+
+    private static SaveArchive saveArchive; // opened on the file thread the first time it is used
+
+    private static final int WARM_UP_BOARDS = 20;
+    private static final long WARM_UP_NANOS = 2_000_000_000L;
+
+    private Task<?> fileTask;
+    private boolean fileTaskInterruptible; // false for the tasks using the save archive, which an interrupt closes
+    private final HintEngine hintEngine = new HintEngine();
+    private final MoveHistory history = new MoveHistory();
+    private int[] eliminatedNotes; // the cells a placement took its number out of the notes of, for the history
+    // appends every change of the board to the journal, whatever made it
+    private final BoardChangeListener journalListener = changes -> {
+        for (int i = 0; i < changes.size(); i++) {
+            journalMove(changes.getRow(i), changes.getCol(i), changes.getNewValue(i));
+        }
+    };
+
+    private SudokuBoard board;
+    private GridView view;
+
+
+    /**
+     * Creates the controller of a view and starts autosaving the board in the move journal.
+     * @param board The board shown in the view, or null if there is none yet, until a new game is started
+     * @param view The view
+     */
+    public Controller(SudokuBoard board, GridView view) {
+        this.view = view;
+        if (board != null) {
+            setBoard(board);
+        }
+    }
+
+    /**
+     * Makes a board the current game: its changes are delivered on the JavaFX thread, a pulse at a time,
+     * and journaled from then on, while the board played before is no longer followed.
+     * @param newBoard The board
+     */
+    private void setBoard(SudokuBoard newBoard){
+        if (board != null) {
+            board.removeChangeListener(journalListener);
+        }
+        board = newBoard;
+        eliminatedNotes = new int[3 * board.getGridSize()];
+        board.setChangeExecutor(Platform::runLater);
+        board.addChangeListener(journalListener);
+        startSession();
+    }
+
+    /**
+     * Rebuilds the game that was played when the game was last closed, from the snapshot and the move journal
+     * in the directory named by the system property sudoku.home, ~/.sudoku by default.
+     * @return The board of the last game, or null if there is none
+     * @throws IOException if the last game could not be read
+     * @throws IllegalArgumentException if the last game is corrupt
+     */
+    static SudokuBoard recoverSession() throws IOException, IllegalArgumentException {
+        return MoveJournal.recover(sessionDirectory);
+    }
+
+    /**
+     * Writes the current board as the snapshot of a new session, opening the journal the first time,
+     * and forgets the moves of the last game.
+     * Autosaving is turned off if the journal can't be written, the game goes on without it.
+     */
+    private void startSession(){
+        history.clear();
+        try {
+            if (journal == null) {
+                journal = new MoveJournal(sessionDirectory);
+            }
+            journal.startSession(board);
+        } catch (IOException e) {
+            stopAutosave(e);
+        }
+    }
+
+    /**
+     * Appends a move to the journal.
+     * @param row The row of the changed cell
+     * @param col The column of the changed cell
+     * @param value The value in the cell after the move, 0 if it was cleared
+     */
+    private void journalMove(int row, int col, int value){
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.recordMove(row, col, value);
+        } catch (IOException e) {
+            stopAutosave(e);
+        }
+    }
+
+    /**
+     * Turns autosaving off after the journal could not be written, and tells the player
+     * that the game is no longer saved as it is played. It is tried again with the next game.
+     * @param error Why the journal could not be written
+     */
+    private void stopAutosave(IOException error){
+        try {
+            closeJournal();
+        } catch (IOException e) {
+            // the journal failed already, which is what the player is told
+        }
+        view.showAutosaveStopped(error);
+    }
+
+    /**
+     * Forces the last moves to the disk and closes the journal, call it before exiting.
+     * @throws IOException if the last moves could not be written
+     */
+    static void closeJournal() throws IOException {
+        if (journal != null) {
+            try {
+                journal.close();
+            } finally {
+                journal = null;
+            }
+        }
+    }
+
+    /**
+     * Creates the pool new games are taken from, on the file thread. Puzzles come from the puzzle library file named by
+     * the system property sudoku.library if it is set, and are generated otherwise.
+     * The puzzles saved by {@link #savePuzzlePool()} are put in the pool first, and their file is removed
+     * so that no puzzle is played twice if the game isn't closed properly.
+     * What went wrong is kept for {@link #reportPoolProblems(Consumer)}, the pool works without the files.
+     * @return The puzzle pool
+     */
+    private static PuzzlePool createPuzzlePool(){
+        PuzzlePool pool = null;
+        String library = System.getProperty("sudoku.library");
+        if (library != null) {
+            try {
+                pool = new PuzzlePool(PuzzleLibrary.open(Paths.get(library)));
+            } catch (IOException e) {
+                poolProblems.add("The puzzle library " + library + " could not be opened, puzzles are generated instead. "
+                        + e.getMessage());
+            }
+        }
+        if (pool == null) {
+            pool = new PuzzlePool();
+        }
+        if (Files.exists(poolFile)) {
+            try (PuzzleLibrary saved = PuzzleLibrary.open(poolFile)) {
+                pool.preload(saved);
+            } catch (IOException | IllegalArgumentException e) {
+                poolProblems.add("The puzzles saved at the last exit could not be read. " + e.getMessage());
+            }
+            try {
+                Files.deleteIfExists(poolFile);
+            } catch (IOException e) {
+                poolProblems.add("The puzzles saved at the last exit could not be removed and may be played again. "
+                        + e.getMessage());
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Hands what went wrong while the puzzle pool was opened to a view, on the JavaFX thread once the pool is open
+     * @param report Shows a problem to the player
+     */
+    static void reportPoolProblems(Consumer<String> report){
+        puzzlePool.thenRunAsync(() -> poolProblems.forEach(report), Platform::runLater);
+    }
+
+    /**
+     * Saves the puzzles left in the pool, for the first game of the next start, call it before exiting.
+     * @throws IOException if the puzzles could not be saved
+     */
+    static void savePuzzlePool() throws IOException {
+        Files.createDirectories(sessionDirectory);
+        getPuzzlePool().save(poolFile);
+    }
+
+    /**
+     * Takes a puzzle from the pool, waiting for the pool to be opened and for a puzzle to be generated
+     * if none is ready, so it is called off the JavaFX thread. The game is started with {@link #newGame(int[][][], SudokuUtilities.SudokuLevel)}.
+     * @param level The difficulty of the puzzle
+     * @return The puzzle
+     */
+    static int[][][] takePuzzle(SudokuUtilities.SudokuLevel level){
+        return getPuzzlePool().takePuzzle(level);
+    }
+
+    /**
+     * Exercises the generator, the solvers and the hint engine on a thread of their own for a moment,
+     * so that they are compiled before the player first needs them. Only boards of its own are used.
+     */
+    public static void warmUp(){
+        Thread thread = new Thread(() -> {
+            long start = System.nanoTime();
+            HintEngine engine = new HintEngine();
+            int boards = 0;
+            while (boards < WARM_UP_BOARDS && System.nanoTime() - start < WARM_UP_NANOS) {
+                int[][][] puzzle = SudokuUtilities.generateSudokuMatrix(SudokuUtilities.SudokuLevel.HARD);
+                // without the solution, so that the board solves itself like a typed in puzzle
+                for (int[][] row : puzzle) {
+                    for (int[] cell : row) {
+                        cell[1] = 0;
+                    }
+                }
+                SudokuBoard board = new SudokuBoard(puzzle, SudokuUtilities.SudokuLevel.HARD);
+                for (HintEngine.Hint hint = engine.findHint(board); hint != null; hint = engine.findHint(board)) {
+                    board.placeNumber(hint.getRow(), hint.getCol(), hint.getDigit());
+                    board.checkSolvability();
+                }
+                boards++;
+            }
+        }, "warm-up");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+
+    void mouseEvent(int valueToPlace, int x, int y) {
+        if (valueToPlace == 0) {
+            int oldValue = board.getCurrentValue(x, y);
+            board.clearCell(x, y);
+            if (oldValue != 0) {
+                history.record(MoveHistory.CLEAR, cellIndex(x, y), oldValue, 0, false);
+            }
+        } else {
+            if (valueToPlace >= 1 && valueToPlace <= board.getGridSize()) {
+                if (board.getCurrentValue(x, y) == 0) {
+                    int eliminated = board.placeNumber(x, y, valueToPlace, eliminatedNotes);
+                    history.record(MoveHistory.PLACE, cellIndex(x, y), 0, valueToPlace, false);
+                    history.recordNotes(valueToPlace, eliminatedNotes, eliminated);
+                }
+            }
+        }
+    }
+
+
+    void clearGame(){
+        boolean first = true; // the cells are cleared as one move, undone together
+        board.setChangeCause(BoardChanges.Cause.CLEAR);
+        try {
+            for(int row=0;row< board.getGridSize();row++){
+                for (int col=0;col< board.getGridSize();col++)
+                    if (!board.getCell(row,col).isImmutable() && board.getCurrentValue(row, col) != 0) {
+                        int oldValue = board.getCurrentValue(row, col);
+                        board.clearCell(row, col);
+                        history.record(MoveHistory.CLEAR, cellIndex(row, col), oldValue, 0, !first);
+                        first = false;
+                    }
+            }
+        } finally {
+            board.setChangeCause(BoardChanges.Cause.PLAYER);
+        }
+    } // la till isimmutablecheck
+
+    /**
+     * Notes a number in an empty cell, or takes it away if it was noted; 0 takes all notes away.
+     * Cells with a value are left as they are.
+     * @param valueToNote The number to note, 0 to clear the notes
+     * @param x The row
+     * @param y The column
+     */
+    void noteEvent(int valueToNote, int x, int y) {
+        if (board.getCurrentValue(x, y) != 0) {
+            return;
+        }
+        if (valueToNote == 0) {
+            board.clearNotes(x, y);
+        } else if (valueToNote <= board.getGridSize()) {
+            board.toggleNote(x, y, valueToNote);
+        }
+    }
+
+    /**
+     * Notes the possible numbers in every empty cell.
+     */
+    void fillNotes() {
+        board.fillNotes();
+    }
+
+    /**
+     * Undoes the last move, or all the cells of the last clear.
+     * @return true if something was undone
+     */
+    boolean undo(){
+        board.setChangeCause(BoardChanges.Cause.UNDO);
+        try {
+            return history.undo(board, cell -> { }) > 0;
+        } finally {
+            board.setChangeCause(BoardChanges.Cause.PLAYER);
+        }
+    }
+
+    /**
+     * Redoes the last undone move.
+     * @return true if something was redone
+     */
+    boolean redo(){
+        board.setChangeCause(BoardChanges.Cause.REDO);
+        try {
+            return history.redo(board, cell -> { }) > 0;
+        } finally {
+            board.setChangeCause(BoardChanges.Cause.PLAYER);
+        }
+    }
+
+    /**
+     * Checks if there is a move to undo
+     * @return true if a move can be undone
+     */
+    boolean canUndo(){
+        return history.canUndo();
+    }
+
+    /**
+     * Checks if there is a move to redo
+     * @return true if a move can be redone
+     */
+    boolean canRedo(){
+        return history.canRedo();
+    }
+
+    private int cellIndex(int row, int col){
+        return row * board.getGridSize() + col;
+    }
+
+
+
+    /**
+     * Plays the next move found by the hint engine: fills the cell a deduction leads to,
+     * or corrects a wrong value.
+     * @return The hint that was played, or null if the board is already solved
+     */
+    HintEngine.Hint getHint() {
+        HintEngine.Hint hint = hintEngine.findHint(board);
+        if (hint != null) {
+            int oldValue = board.getCurrentValue(hint.getRow(), hint.getCol());
+            int eliminated = 0;
+            board.setChangeCause(BoardChanges.Cause.HINT);
+            try {
+                if (oldValue == 0) {
+                    // takes the digit out of the notes too
+                    eliminated = board.placeNumber(hint.getRow(), hint.getCol(), hint.getDigit(), eliminatedNotes);
+                } else {
+                    board.setCell(hint.getRow(), hint.getCol(), hint.getDigit());
+                }
+            } finally {
+                board.setChangeCause(BoardChanges.Cause.PLAYER);
+            }
+            history.record(MoveHistory.HINT, cellIndex(hint.getRow(), hint.getCol()), oldValue, hint.getDigit(), false);
+            history.recordNotes(hint.getDigit(), eliminatedNotes, eliminated);
+        }
+        return hint;
+    }
+
+    /**
+     * Finds the next move without playing it.
+     * @return The hint, or null if the board is already solved
+     */
+    HintEngine.Hint nextHint() {
+        return hintEngine.findHint(board);
+    }
+
+
+    void restartGame(SudokuBoard newBoard){
+        setBoard(newBoard);
+    }
+
+
+    /**
+     * Starts a new game with a puzzle taken from the puzzle pool.
+     * @param level The difficulty of the new game
+     * @return The new board
+     */
+    SudokuBoard newGame(SudokuUtilities.SudokuLevel level){
+        setBoard(new SudokuBoard(getPuzzlePool().takePuzzle(level), level));
+        return this.board;
+    }
+
+    /**
+     * Starts a new game with a puzzle made elsewhere, such as one of a bigger board generated in the background,
+     * which can take a second or more for 25x25, or one waited for in the pool. Only the puzzle should be made off the JavaFX thread,
+     * this is called on it.
+     * @param puzzle The puzzle, from {@link SudokuUtilities#generateSudokuMatrix(int, SudokuUtilities.SudokuLevel)}
+     * @param level The difficulty of the new game
+     * @return The new board
+     */
+    SudokuBoard newGame(int[][][] puzzle, SudokuUtilities.SudokuLevel level){
+        setBoard(new SudokuBoard(puzzle, level));
+        return this.board;
+    }
+
+
+    /**
+     * Returns the pool new games are taken from, waiting for it to be opened at the start
+     * @return The puzzle pool
+     */
+    static PuzzlePool getPuzzlePool(){
+        return puzzlePool.join();
+    }
+
+
+    /**
+     * Lets the user choose a file and saves the game to it in the background.
+     * The board is encoded right away, so moves made while the file is written are not part of the save.
+     * @return The running save, with its progress, or null if no file was chosen
+     */
+    Task<Void> saveGame(){
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Save File (Sudoku)");
+        fileChooser.getExtensionFilters().add
+                (new FileChooser.ExtensionFilter("Sudoku Files", "*.sudoku"));
+        File file = fileChooser.showSaveDialog(this.view.getScene().getWindow());
+        if (file == null) {
+            return null;
+        }
+
+        byte[] data = BoardCodec.encode(this.board);
+        Task<Void> save = new Task<Void>() {
+            @Override
+            protected Void call() throws IOException {
+                FileHandler.writeToFile(data, file, fraction -> updateProgress(fraction, 1));
+                return null;
+            }
+        };
+        return startFileTask(save, true);
+    }
+
+
+    /**
+     * Lets the user choose a saved game and loads it in the background.
+     * The loaded game becomes the current game when the load succeeds, a failed or cancelled load leaves
+     * the current game as it was.
+     * @return The running load, with its progress, or null if no file was chosen
+     */
+    Task<SudokuBoard> loadGame(){
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Open File (Sudoku)");
+        fileChooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("Sudoku Files", "*.sudoku"));
+        File file = fileChooser.showOpenDialog(this.view.getScene().getWindow());
+        if (file == null) {
+            return null;
+        }
+
+        Task<SudokuBoard> load = new Task<SudokuBoard>() {
+            @Override
+            protected SudokuBoard call() throws IOException {
+                return FileHandler.deserializeFromFile(file, fraction -> updateProgress(fraction, 1));
+            }
+        };
+        load.addEventHandler(WorkerStateEvent.WORKER_STATE_SUCCEEDED, event -> {
+            setBoard(load.getValue());
+        });
+        return startFileTask(load, true);
+    }
+
+    /**
+     * Lists the slots of the save archive in the background, reading only its index.
+     * The archive is the file saves.sdka next to the autosave of the session.
+     * @return The running listing
+     */
+    Task<List<SaveArchive.Slot>> listSlots(){
+        Task<List<SaveArchive.Slot>> listing = new Task<List<SaveArchive.Slot>>() {
+            @Override
+            protected List<SaveArchive.Slot> call() throws IOException {
+                return openSaveArchive().list();
+            }
+        };
+        return startFileTask(listing, false);
+    }
+
+    /**
+     * Saves the game to a slot of the save archive in the background, overwriting the slot if it exists.
+     * The board is copied right away, so moves made while the slot is written are not part of the save.
+     * @param name The name of the slot
+     * @return The running save
+     */
+    Task<SaveArchive.Slot> saveSlot(String name){
+        byte[] data = BoardCodec.encode(this.board);
+        Task<SaveArchive.Slot> save = new Task<SaveArchive.Slot>() {
+            @Override
+            protected SaveArchive.Slot call() throws IOException {
+                return openSaveArchive().save(name, BoardCodec.decode(data, 0, data.length));
+            }
+        };
+        return startFileTask(save, false);
+    }
+
+    /**
+     * Loads the game in a slot of the save archive in the background.
+     * It becomes the current game when the load succeeds.
+     * @param slot The slot, from {@link #listSlots()}
+     * @return The running load
+     */
+    Task<SudokuBoard> loadSlot(SaveArchive.Slot slot){
+        Task<SudokuBoard> load = new Task<SudokuBoard>() {
+            @Override
+            protected SudokuBoard call() throws IOException {
+                return openSaveArchive().load(slot);
+            }
+        };
+        load.addEventHandler(WorkerStateEvent.WORKER_STATE_SUCCEEDED, event -> {
+            setBoard(load.getValue());
+        });
+        return startFileTask(load, false);
+    }
+
+    /**
+     * Opens the save archive the first time it is needed, and again if it was closed by an interrupt,
+     * only called on the file thread
+     * @return The save archive
+     */
+    private static SaveArchive openSaveArchive() throws IOException {
+        if (saveArchive == null || !saveArchive.isOpen()) {
+            Files.createDirectories(sessionDirectory);
+            saveArchive = SaveArchive.open(sessionDirectory.resolve("saves.sdka"));
+        }
+        return saveArchive;
+    }
+
+    /**
+     * Runs a save or load on the file thread, one at a time in the order they were started,
+     * and remembers it so it can be cancelled.
+     * @param task The save or load
+     * @param interruptible false if cancelling it must not interrupt the file thread
+     * @return The task
+     */
+    private <T> Task<T> startFileTask(Task<T> task, boolean interruptible){
+        fileTask = task;
+        fileTaskInterruptible = interruptible;
+        fileExecutor.execute(task);
+        return task;
+    }
+
+    /**
+     * Cancels the last save or load if it is still running, a cancelled save leaves the file as it was.
+     * The tasks using the save archive are not interrupted, as an interrupt would close the archive:
+     * they run to the end, which is quick as they only touch one slot, and their result is dropped.
+     * @return true if it was cancelled
+     */
+    boolean cancelFileTask(){
+        return fileTask != null && fileTask.cancel(fileTaskInterruptible);
+    }
+}
@@ -1,482 +1,989 @@
-package javafx.fxtest.model.view;
-
-import javafx.geometry.Pos;
-import javafx.scene.control.Label;
-import javafx.scene.text.Font;
-import javafx.scene.text.FontWeight;
-
-import static javafx.fxtest.model.model.SudokuUtilities.*;
-
-import javafx.fxtest.model.model.SudokuUtilities;
-import javafx.fxtest.model.model.SudokuBoard;
-import javafx.event.ActionEvent;
-import javafx.event.EventHandler;
-import javafx.geometry.Insets;
-import javafx.scene.control.*;
-import javafx.scene.input.MouseEvent;
-import javafx.scene.layout.BorderPane;
-import javafx.scene.layout.TilePane;
-import javafx.scene.layout.VBox;
-
-import java.util.Optional;
-
-public class GridView extends BorderPane {
-
-    private Label[][] numberTiles; // the tiles/squares to show in the ui grid
-    private TilePane numberPane;
-    private Controller controller;
-    private char buttonInput;
-    private SudokuBoard model;
-    private MenuBar menuBar;
-
-    /**
-     * Constructor initialises the board, menubar,  all tiles, the tiles, panes, buttons,
-     * and sets input to null.
-     */
-    public GridView() {
-        this.model = new SudokuBoard(generateSudokuMatrix(SudokuLevel.MEDIUM),SudokuLevel.MEDIUM);
-        buttonInput='0';
-        numberTiles = new Label[SudokuUtilities.GRID_SIZE][SudokuUtilities.GRID_SIZE];
-        initNumberTiles();
-        numberPane = makeNumberPane();
-        controller = new Controller(model, this);
-
-        this.setCenter(numberPane);
-        this.setLeft(leftSide());
-        this.setRight(rightSide());
-
-        createMenuBar();
-        updateBoard();
-
-    }
-
-    /**
-     * Creates a vertical box with the buttons "check" and "hint"
-     * @return The vertical box
-     */
-    private VBox leftSide(){
-        VBox v1 = new VBox();
-
-        Button check = new Button("Check");
-        Button hint = new Button("Hint");
-        v1.setAlignment(Pos.CENTER);
-        v1.getChildren().add(check);
-        v1.getChildren().add(hint);
-        v1.setPadding(new Insets(10));
-        v1.setSpacing(10);
-        this.setLeft(v1);
-        hint.addEventHandler(ActionEvent.ACTION, HintHandler);
-        check.addEventHandler(ActionEvent.ACTION, CheckGameHandler);
-        return v1;
-    }
-
-    /**
-     * Creates a vertical box with the buttons "1-9" and "C"
-     * @return The vertical box
-     */
-    private VBox rightSide(){
-        VBox v2 = new VBox();
-
-        v2.setAlignment(Pos.CENTER);
-        Button one = new Button("1");
-        one.addEventHandler(ActionEvent.ACTION, buttonHandler);
-        Button two = new Button("2");
-        two.addEventHandler(ActionEvent.ACTION, buttonHandler);
-        Button three = new Button("3");
-        three.addEventHandler(ActionEvent.ACTION, buttonHandler);
-        Button four = new Button("4");
-        four.addEventHandler(ActionEvent.ACTION, buttonHandler);
-        Button five = new Button("5");
-        five.addEventHandler(ActionEvent.ACTION, buttonHandler);
-        Button six = new Button("6");
-        six.addEventHandler(ActionEvent.ACTION, buttonHandler);
-        Button seven = new Button("7");
-        seven.addEventHandler(ActionEvent.ACTION, buttonHandler);
-        Button eight = new Button("8");
-        eight.addEventHandler(ActionEvent.ACTION, buttonHandler);
-        Button nine = new Button("9");
-        nine.addEventHandler(ActionEvent.ACTION, buttonHandler);
-        Button clear = new Button("C");
-        clear.addEventHandler(ActionEvent.ACTION, buttonHandler);
-        v2.getChildren().addAll(one,two,three,four,five,six,seven,eight,nine,clear);
-        v2.setPadding(new Insets(10));
-        v2.setSpacing(1);
-
-        return v2;
-    }
-
-    /**
-     * creates the view aspect of the tiles, their height and appearance.
-     */
-    // called by constructor (only)
-    private final void initNumberTiles() {
-        Font font = Font.font("Monospaced", FontWeight.NORMAL, 20);
-
-        for (int row = 0; row < SudokuUtilities.GRID_SIZE; row++) {
-            for (int col = 0; col < SudokuUtilities.GRID_SIZE; col++) {
-                Label tile = new Label("");
-                if (!model.getGameBoardByPos(row,col).isImmutable())
-                    tile = new Label(Integer.toString(model.getCurrentValue(row,col)));
-                tile.setPrefWidth(32);
-                tile.setPrefHeight(32);
-                tile.setFont(font);
-                tile.setAlignment(Pos.CENTER);
-                tile.setStyle("-fx-border-color: black; -fx-border-width: 0.5px;"); // css style
-                tile.setOnMouseClicked(tileClickHandler); // add your custom event handler
-
-                // add new tile to grid
-                numberTiles[row][col] = tile;
-
-            }
-        }
-    }
-
-    /**
-     * Creates the tiles that show on the border pane
-     * @return The TilePane
-     */
-    private final TilePane makeNumberPane() {
-        // create the root tile pane
-        TilePane root = new TilePane();
-        root.setPrefColumns(SudokuUtilities.SECTIONS_PER_ROW);
-        root.setPrefRows(SudokuUtilities.SECTIONS_PER_ROW);
-        root.setStyle(
-                "-fx-border-color: black; -fx-border-width: 1.0px; -fx-background-color: white;");
-
-        // create the 3*3 sections and add the number tiles
-        TilePane[][] sections = new TilePane[SudokuUtilities.SECTIONS_PER_ROW][SudokuUtilities.SECTIONS_PER_ROW];
-        int i = 0;
-        for (int srow = 0; srow < SudokuUtilities.SECTIONS_PER_ROW; srow++) {
-            for (int scol = 0; scol < SudokuUtilities.SECTIONS_PER_ROW; scol++) {
-                TilePane section = new TilePane();
-                section.setPrefColumns(SudokuUtilities.SECTION_SIZE);
-                section.setPrefRows(SudokuUtilities.SECTION_SIZE);
-                section.setStyle( "-fx-border-color: black; -fx-border-width: 0.5px;");
-
-                // add number tiles to this section
-                for (int row = 0; row < SudokuUtilities.SECTION_SIZE; row++) {
-                    for (int col = 0; col < SudokuUtilities.SECTION_SIZE; col++) {
-                        // calculate which tile and add
-                        section.getChildren().add(
-                                numberTiles[srow * SudokuUtilities.SECTION_SIZE + row][scol * SudokuUtilities.SECTION_SIZE + col]);
-                    }
-                }
-
-                // add the section to the root tile pane
-                root.getChildren().add(section);
-            }
-        }
-
-        return root;
-    }
-
-    /**
-     * Clears the tile on row, cols
-     * @param row row of board
-     * @param col col of board
-     */
-    public void clearTile(int row,int col){
-        numberTiles[row][col].setText("");
-    }
-
-    /**
-     * Updates the tile in the view
-     * @param row The row
-     * @param col The col
-     */
-    public void updateTile(int row, int col) {
-        if (!model.getGameBoardByPos(row, col).isImmutable()) {
-            clearTile(row, col);
-        }
-        if (model.getCurrentValue(row, col) == 0 && !model.getGameBoardByPos(row, col).isImmutable()) {
-            numberTiles[row][col].setText("");
-        } else {
-            numberTiles[row][col].setText(Integer.toString(model.getCurrentValue(row, col)));
-        }
-    }
-
-
-    /**
-     * Updates all the tiles
-     */
-    public void updateBoard(){
-        for(int row = 0; row < SudokuUtilities.GRID_SIZE; row++) {
-            for (int col = 0; col < SudokuUtilities.GRID_SIZE; col++) {
-                updateTile(row,col);
-            }
-        }
-    }
-
-    /**
-     * Checks if the board is full (all tiles have a value) then checks if the board is solved
-     * and alerts the user if his solution is the correct one or not
-     */
-    public void checkIfBoardFilled(){
-        int count=0;
-        int full = SudokuUtilities.GRID_SIZE*SudokuUtilities.GRID_SIZE;
-        for(int row = 0; row < SudokuUtilities.GRID_SIZE; row++) {
-            for (int col = 0; col < SudokuUtilities.GRID_SIZE; col++) {
-                if (model.getCurrentValue(row,col)!=0)
-                    count++;
-            }
-        }
-        if (count==full){
-            if (model.isGameOver()) {
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle("Information Dialog");
-                alert.setHeaderText(null);
-                alert.setContentText("All tiles are correct, puzzle is solved!");
-                alert.showAndWait();
-            }else{
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle("Information Dialog");
-                alert.setHeaderText(null);
-                alert.setContentText("Not solved correctly!");
-                alert.showAndWait();
-            }
-        }
-    }
-
-    /**
-     * Returns the number of tiles that are currently placed
-     * @return The number of tiles
-     */
-    public int getNumberOfTilesPlaced(){
-        int count=0;
-        for(int row = 0; row < SudokuUtilities.GRID_SIZE; row++) {
-            for (int col = 0; col < SudokuUtilities.GRID_SIZE; col++) {
-                if (model.getGameBoardByPos(row,col).isImmutable()){
-                    if (model.getGameBoardByPos(row,col).getCurrentValue()!=0)
-                        count++;
-                }
-            }
-        }
-        return count;
-    }
-
-    /**
-     * Sets a value to a tile depending on which button was pressed previously
-     */
-    private EventHandler<MouseEvent> tileClickHandler = new EventHandler<MouseEvent>() {
-        @Override
-        public void handle(MouseEvent event) {
-            for(int row = 0; row < SudokuUtilities.GRID_SIZE; row++) {
-                for(int cols = 0; cols < SudokuUtilities.GRID_SIZE; cols++) {
-                    if(event.getSource() == numberTiles[row][cols]) {
-                        // we got the row and column - now call the appropriate controller method
-                        controller.mouseEvent(buttonInput,row,cols);
-                        checkIfBoardFilled();
-
-                        return;
-                    }
-                }
-            }
-        }
-    };
-    /**
-     * gets the source of where the button was pressed
-     */
-    private EventHandler<ActionEvent> buttonHandler = new EventHandler<ActionEvent>() {
-        @Override
-        public void handle(ActionEvent actionEvent) {
-            Button sourceButton = (Button) actionEvent.getSource();
-            String buttonText = sourceButton.getText();
-
-            // Convert the button text to a character for use in other parts of the code
-            if (buttonText.equals("C")) {
-                buttonInput = '0'; // Use '0' to signify clearing a cell
-            } else {
-                buttonInput = buttonText.charAt(0); // Store the character '1', '2', etc.
-            }
-        }
-    };
-
-
-    /**
-     * Exits the program
-     */
-    private EventHandler<ActionEvent> ExitHandler = new EventHandler<ActionEvent>() {
-        @Override
-        public void handle(ActionEvent actionEvent) {
-            System.exit(0);
-
-        }
-    };
-
-    /**
-     * Creates a new game with the same difficulty and updates the board
-     */
-    private EventHandler<ActionEvent> RestartHandler = new EventHandler<ActionEvent>() {
-        @Override
-        public void handle(ActionEvent actionEvent) {
-
-            model = new SudokuBoard(generateSudokuMatrix(SudokuLevel.EASY), SudokuLevel.EASY);
-            controller.restartGame(model);
-            updateBoard();
-
-
-        }
-
-    };
-
-    /**
-     * Gives the user the opportunity to choose which difficulty to create the next game
-     * and updates the board
-     */
-    private  EventHandler<ActionEvent> LevelHandler = new EventHandler<ActionEvent>() {
-        @Override
-        public void handle(ActionEvent actionEvent) {
-            Alert alert = new Alert(Alert.AlertType.INFORMATION);
-
-            ButtonType Easy = new ButtonType("Easy");
-            ButtonType Medium = new ButtonType("Medium");
-            ButtonType Hard = new ButtonType("Hard");
-            alert.getButtonTypes().setAll(Easy,Medium,Hard);
-
-            alert.setTitle("Information Dialog");
-            alert.setHeaderText(null);
-            alert.setContentText("Choose the difficulty");
-            Optional<ButtonType> choice = alert.showAndWait();
-            if (choice.get() == Easy){
-                model = new SudokuBoard(generateSudokuMatrix(SudokuLevel.EASY),SudokuUtilities.SudokuLevel.EASY);
-                controller.restartGame(model);
-                updateBoard();
-            } else if (choice.get() == Medium){
-                model = new SudokuBoard(generateSudokuMatrix(SudokuLevel.MEDIUM),SudokuUtilities.SudokuLevel.MEDIUM);
-                controller.restartGame(model);
-                updateBoard();
-            } else if (choice.get() == Hard){
-                model = new SudokuBoard(generateSudokuMatrix(SudokuLevel.HARD),SudokuUtilities.SudokuLevel.HARD);
-                controller.restartGame(model);
-                updateBoard();
-            }
-        }
-    };
-
-    /**
-     * Clears the values that have been palced on the board
-     * then updates the board
-     */
-    private EventHandler<ActionEvent> ClearHandler = new EventHandler<ActionEvent>() {
-        @Override
-        public void handle(ActionEvent actionEvent) {
-            controller.clearGame();
-            updateBoard();
-        }
-    };
-
-    /**
-     * When the "check" button is pressed, alert user if all currently placed
-     * tiles are correctly placed or not
-     */
-    private EventHandler<ActionEvent> CheckGameHandler = new EventHandler<ActionEvent>() {
-        @Override
-        public void handle(ActionEvent actionEvent) {
-            if (model.isFilledNumbersCorrect()){
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle("Information Dialog");
-                alert.setHeaderText(null);
-                alert.setContentText("All tiles are currently in their right position!");
-                alert.showAndWait();
-            }else{
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle("Information Dialog");
-                alert.setHeaderText(null);
-                alert.setContentText("One or more tiles are incorrect!");
-                alert.showAndWait();
-            }
-        }
-    };
-    /**
-     * Show brief rules of the game in the form of an alert.
-     */
-    private EventHandler<ActionEvent> RulesHandler = new EventHandler<ActionEvent>() {
-        @Override
-        public void handle(ActionEvent actionEvent) {
-            Alert alert = new Alert(Alert.AlertType.INFORMATION);
-            alert.setTitle("Information Dialog");
-            alert.setHeaderText("Sudoku Rules");
-            alert.setContentText("A 9×9 square must be filled in with numbers from 1-9 with no repeated numbers in each line, horizontally or vertically. \n To challenge you more, there are 3×3 squares marked out in the grid, and each of these squares can't have any repeat numbers either.");
-            alert.showAndWait();
-        }
-    };
-
-    /**
-     * Generates a hint on the board by showing a correct value of a tile with no value yet
-     * then updates the board and checks if its filled
-     */
-    private EventHandler<ActionEvent> HintHandler = new EventHandler<ActionEvent>() {
-        @Override
-        public void handle(ActionEvent actionEvent) {
-            controller.getHint();
-            updateBoard();
-            checkIfBoardFilled();
-        }
-    };
-    /**
-     * Saves the current data on the board in the form of a .sudoku file in a location of your choosing
-     */
-    private EventHandler<ActionEvent> SaveHandler = new EventHandler<ActionEvent>() {
-        @Override
-        public void handle(ActionEvent actionEvent) {
-            controller.saveGame();
-        }
-    };
-    /**
-     * Opens a file chooser so user can open any saved gamestate.
-     */
-    private EventHandler<ActionEvent> LoadHandler = new EventHandler<ActionEvent>() {
-        @Override
-        public void handle(ActionEvent actionEvent) {
-            model = controller.loadGame();
-            updateBoard();
-
-        }
-    };
-
-    /**
-     * Creates the menu bar and all its contents
-     */
-    public void createMenuBar(){
-        Menu fileMenu = new Menu("File");
-        MenuItem loadGameItem = new MenuItem("Load Game");
-        loadGameItem.addEventHandler(ActionEvent.ACTION,LoadHandler);
-        MenuItem saveGameItem = new MenuItem("Save Game");
-        saveGameItem.addEventHandler(ActionEvent.ACTION,SaveHandler);
-
-        MenuItem exitItem = new MenuItem("Exit");
-        exitItem.addEventHandler(ActionEvent.ACTION, ExitHandler);
-        fileMenu.getItems().addAll(loadGameItem,saveGameItem,exitItem);
-
-        Menu GameMenu = new Menu("Game");
-        MenuItem RestartGame = new MenuItem("Restart");
-        RestartGame.addEventHandler(ActionEvent.ACTION, RestartHandler);
-        MenuItem GameLevel = new MenuItem("Choose Level");
-        GameLevel.addEventHandler(ActionEvent.ACTION, LevelHandler);
-        GameMenu.getItems().addAll(RestartGame,GameLevel);
-
-        Menu HelpMenu = new Menu("Help");
-        MenuItem clear = new MenuItem("Clear");
-        clear.addEventHandler(ActionEvent.ACTION, ClearHandler);
-        MenuItem checkGame = new MenuItem("Check game");
-        checkGame.addEventHandler(ActionEvent.ACTION,CheckGameHandler);
-        MenuItem GamesRules = new MenuItem("Rules");
-        GamesRules.addEventHandler(ActionEvent.ACTION,RulesHandler);
-        HelpMenu.getItems().addAll(clear,checkGame,GamesRules);
-
-
-        menuBar = new MenuBar();
-        menuBar.getMenus().addAll(fileMenu,GameMenu,HelpMenu);
-    }
-
-    /**
-     * Returns the menu bar
-     * @return The menubar
-     */
-    public MenuBar getMenuBar(){
-        return this.menuBar;
-    }
-
-
-}
-
+package javafx.fxtest.model.view;
+
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+
+import static javafx.fxtest.model.model.SudokuUtilities.*;
+
+import javafx.concurrent.Task;
+import javafx.fxtest.model.model.BoardChangeListener;
+import javafx.fxtest.model.model.BoardChanges;
+import javafx.fxtest.model.model.HintEngine;
+import javafx.fxtest.model.model.SaveArchive;
+import javafx.fxtest.model.model.SudokuUtilities;
+import javafx.fxtest.model.model.SudokuBoard;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
+import javafx.scene.control.*;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.TilePane;
+import javafx.scene.layout.VBox;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public class GridView extends BorderPane {
+
+    private final BoardRenderer renderer; // draws the cells of the board
+    private Controller controller;
+    private int buttonInput; // the number to place on the next tile click, 0 clears
+    private SudokuBoard model;
+    private MenuBar menuBar;
+    private Menu editMenu;
+    private Menu gameMenu;
+    private MenuItem undoItem;
+    private MenuItem redoItem;
+    private Menu helpMenu;
+    private MenuItem loadGameItem;
+    private MenuItem saveGameItem;
+    private MenuItem loadSlotItem;
+    private MenuItem saveSlotItem;
+    private MenuItem cancelFileItem;
+    private ProgressBar fileProgress; // shown while a game is saved or loaded
+    private BitSet shownConflicts = new BitSet(); // the cells whose tiles are highlighted as conflicting
+    private CheckMenuItem alwaysHintItem;
+    private Label hintLabel; // what the last or the next hint is
+    private Label statusLabel; // if the board can still be solved
+    private boolean noGame; // true when the first game could not be made and no other was started yet
+    private int hintCell = -1; // the cell highlighted by the next hint, -1 for none
+    private ToggleButton notesButton; // when selected, clicking a tile notes the number instead of placing it
+    private CheckMenuItem autoNotesItem;
+    private final BitSet changedNotes = new BitSet();
+    // redraws the cells a batch of changes touched, whatever made them, once a pulse
+    private final BoardChangeListener boardListener = this::showChanges;
+
+    /**
+     * Constructor initialises the board, menubar,  all tiles, the tiles, panes, buttons,
+     * and sets input to null. The game played when the app was last closed is continued if it can be recovered,
+     * otherwise an empty board is shown while the first game is taken from the puzzle pool in the background,
+     * so the window never waits for the pool to be opened or for a generation.
+     * The board is drawn on a canvas, or as a label per cell when the system property sudoku.renderer is "tiles".
+     */
+    public GridView() {
+        String recoveryProblem = null;
+        try {
+            this.model = Controller.recoverSession();
+        } catch (IOException | IllegalArgumentException e) {
+            recoveryProblem = e.getMessage();
+        }
+        boolean ready = this.model != null;
+        if (!ready) {
+            this.model = new SudokuBoard(new int[GRID_SIZE][GRID_SIZE][2], SudokuLevel.MEDIUM);
+        }
+        buttonInput=0;
+        controller = new Controller(ready ? model : null, this);
+        renderer = "tiles".equals(System.getProperty("sudoku.renderer")) ? new TileBoardRenderer() : new CanvasBoardRenderer();
+        renderer.setOnCellClicked(this::cellClicked);
+
+        this.setLeft(leftSide());
+        statusLabel = new Label();
+        statusLabel.setPadding(new Insets(0, 10, 10, 10));
+        this.setBottom(statusLabel);
+        buildBoard();
+
+        createMenuBar();
+        model.addChangeListener(boardListener);
+        if (recoveryProblem != null) {
+            showProblem("The last game could not be continued", recoveryProblem);
+        }
+        Controller.reportPoolProblems(problem -> showProblem("Puzzles", problem));
+        if (ready) {
+            updateBoard();
+        } else {
+            startFirstGame();
+        }
+    }
+
+    /**
+     * Waits in the background for the puzzle pool to be opened and hand out the first game, one saved
+     * when the game was last closed or a generated one, with the empty board shown and the board
+     * and the menus that play on it disabled until the game is ready. The game is started on the JavaFX thread,
+     * so the journal is only ever used there.
+     */
+    private void startFirstGame() {
+        Task<int[][][]> generation = new Task<int[][][]>() {
+            @Override
+            protected int[][][] call() {
+                return Controller.takePuzzle(SudokuLevel.MEDIUM);
+            }
+        };
+        generation.setOnSucceeded(event -> {
+            setWaitingForGame(false);
+            showBoard(controller.newGame(generation.getValue(), SudokuLevel.MEDIUM));
+        });
+        generation.setOnFailed(event -> {
+            setWaitingForGame(false);
+            setNoGame(true);
+            statusLabel.setText("Could not make a puzzle");
+            ButtonType retry = new ButtonType("Retry");
+            Alert alert = new Alert(Alert.AlertType.ERROR, "", retry, ButtonType.CANCEL);
+            alert.setTitle("Error Dialog");
+            alert.setHeaderText("Could not make a puzzle");
+            alert.setContentText(generation.getException().getMessage()
+                    + "\nTry again, or start or load a game from the menus.");
+            if (alert.showAndWait().orElse(ButtonType.CANCEL) == retry) {
+                startFirstGame();
+            }
+        });
+        setWaitingForGame(true);
+        statusLabel.setText("Preparing a puzzle...");
+        Thread thread = new Thread(generation, "board-generator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Disables the board and the menus that act on the game while the next game is made
+     * @param waiting true while a game is made in the background
+     */
+    private void setWaitingForGame(boolean waiting) {
+        setDisable(waiting);
+        loadGameItem.setDisable(waiting);
+        saveGameItem.setDisable(waiting);
+        loadSlotItem.setDisable(waiting);
+        saveSlotItem.setDisable(waiting);
+        editMenu.setDisable(waiting);
+        gameMenu.setDisable(waiting);
+        helpMenu.setDisable(waiting);
+    }
+
+    /**
+     * Tells the player that the game is no longer autosaved, without waiting for the dialog to be closed,
+     * as it can be shown while the board's changes are delivered
+     * @param error Why the autosave stopped
+     */
+    void showAutosaveStopped(Exception error) {
+        showProblem("Autosave is off", "The game could not be autosaved, so it can't be continued after a crash. "
+                + "Save it to keep it.\n" + error.getMessage());
+    }
+
+    /**
+     * Tells the player about something that went wrong but lets the game go on, without waiting for
+     * the dialog to be closed, so it can be shown before the window is and while changes are delivered
+     * @param header What went wrong
+     * @param message Why, and what it means for the game
+     */
+    private void showProblem(String header, String message) {
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle("Warning Dialog");
+        alert.setHeaderText(header);
+        alert.setContentText(message);
+        alert.show();
+    }
+
+    /**
+     * Keeps the board and the menus that play on it disabled while there is no game at all,
+     * after the first game could not be made, leaving the player the menus that start or load one
+     * @param missing true while there is no game
+     */
+    private void setNoGame(boolean missing) {
+        noGame = missing;
+        setDisable(missing);
+        saveGameItem.setDisable(missing);
+        saveSlotItem.setDisable(missing);
+        editMenu.setDisable(missing);
+        helpMenu.setDisable(missing);
+    }
+
+    /**
+     * Journals the last moves, saves the puzzles left in the puzzle pool for the next start
+     * and closes the journal, call it before exiting
+     */
+    public void close() {
+        model.flushChanges(); // journals the moves of the last pulse
+        List<String> problems = new ArrayList<>();
+        try {
+            Controller.savePuzzlePool();
+        } catch (IOException e) {
+            problems.add("The puzzles left could not be saved for the next start. " + e.getMessage());
+        }
+        try {
+            Controller.closeJournal();
+        } catch (IOException e) {
+            problems.add("The last moves could not be autosaved. " + e.getMessage());
+        }
+        if (!problems.isEmpty()) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Error Dialog");
+            alert.setHeaderText("Could not save everything before exiting");
+            alert.setContentText(String.join("\n", problems));
+            alert.showAndWait();
+        }
+    }
+
+    /**
+     * Makes the grid and the number buttons for the size of the current board.
+     */
+    private void buildBoard() {
+        shownConflicts = new BitSet();
+        hintCell = -1;
+        renderer.setBoard(model);
+        this.setCenter(renderer.getNode());
+        this.setRight(rightSide());
+    }
+
+    /**
+     * Shows a board and follows its changes from then on. The tiles are rebuilt when it has a different size
+     * than the board shown before, otherwise only the cells that differ between the two boards are redrawn.
+     * @param board The board to show
+     */
+    private void showBoard(SudokuBoard board) {
+        if (noGame) {
+            setNoGame(false);
+        }
+        SudokuBoard shown = model;
+        boolean resized = board.getGridSize() != shown.getGridSize();
+        shown.removeChangeListener(boardListener);
+        model = board;
+        model.addChangeListener(boardListener);
+        if (autoNotesItem != null) {
+            model.setAutoEliminateNotes(autoNotesItem.isSelected());
+        }
+        if (!alwaysHintItem.isSelected()) {
+            hintLabel.setText("");
+        }
+        if (resized) {
+            buttonInput = 0;
+            buildBoard();
+            if (getScene() != null && getScene().getWindow() != null) {
+                getScene().getWindow().sizeToScene();
+            }
+            updateBoard();
+        } else {
+            renderer.setBoard(model);
+            showDifferences(shown);
+        }
+    }
+
+    /**
+     * Starts a new game, taking it from the puzzle pool for a standard board and generating it
+     * in the background for the bigger boards, with the board and the menus that act on the game disabled
+     * until it is ready. Only the puzzle is generated in the background, the game is started on the JavaFX thread.
+     * @param sectionSize The width of a box of the new board
+     * @param level The difficulty of the new game
+     */
+    private void startNewGame(int sectionSize, SudokuLevel level) {
+        if (sectionSize == SECTION_SIZE) {
+            showBoard(controller.newGame(level));
+            return;
+        }
+        Task<int[][][]> generation = new Task<int[][][]>() {
+            @Override
+            protected int[][][] call() {
+                return generateSudokuMatrix(sectionSize, level);
+            }
+        };
+        generation.setOnSucceeded(event -> {
+            setWaitingForGame(false);
+            showBoard(controller.newGame(generation.getValue(), level));
+        });
+        generation.setOnFailed(event -> {
+            setWaitingForGame(false);
+            statusLabel.setText("Could not make a puzzle: " + generation.getException().getMessage());
+        });
+        setWaitingForGame(true);
+        Thread thread = new Thread(generation, "board-generator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Creates a vertical box with the buttons "check" and "hint"
+     * @return The vertical box
+     */
+    private VBox leftSide(){
+        VBox v1 = new VBox();
+
+        Button check = new Button("Check");
+        Button hint = new Button("Hint");
+        notesButton = new ToggleButton("Notes");
+        v1.setAlignment(Pos.CENTER);
+        v1.getChildren().add(check);
+        v1.getChildren().add(hint);
+        v1.getChildren().add(notesButton);
+        fileProgress = new ProgressBar();
+        fileProgress.setPrefWidth(60);
+        fileProgress.setVisible(false);
+        v1.getChildren().add(fileProgress);
+        hintLabel = new Label();
+        hintLabel.setWrapText(true);
+        hintLabel.setPrefWidth(90);
+        v1.getChildren().add(hintLabel);
+        v1.setPadding(new Insets(10));
+        v1.setSpacing(10);
+        this.setLeft(v1);
+        hint.addEventHandler(ActionEvent.ACTION, HintHandler);
+        check.addEventHandler(ActionEvent.ACTION, CheckGameHandler);
+        return v1;
+    }
+
+    /**
+     * Creates the buttons "1" to the largest number of the board and "C", in columns of at most 13 buttons
+     * @return The pane with the buttons
+     */
+    private TilePane rightSide(){
+        TilePane v2 = new TilePane(Orientation.VERTICAL);
+
+        v2.setAlignment(Pos.CENTER);
+        for (int number = 1; number <= model.getGridSize(); number++) {
+            Button button = new Button(Integer.toString(number));
+            button.addEventHandler(ActionEvent.ACTION, buttonHandler);
+            v2.getChildren().add(button);
+        }
+        Button clear = new Button("C");
+        clear.addEventHandler(ActionEvent.ACTION, buttonHandler);
+        v2.getChildren().add(clear);
+        v2.setPrefRows(Math.min(model.getGridSize() + 1, 13));
+        v2.setPadding(new Insets(10));
+        v2.setVgap(1);
+        v2.setHgap(1);
+
+        return v2;
+    }
+
+    /**
+     * Redraws the cells in a batch of changes to the board, and the highlighting of the tiles that started
+     * or stopped conflicting with them. A move of the player clears the description of the last hint.
+     * @param changes The changes
+     */
+    private void showChanges(BoardChanges changes) {
+        if (changes.getBoard() != model) {
+            return; // changes of a board no longer shown
+        }
+        boolean played = false;
+        for (int i = 0; i < changes.size(); i++) {
+            showValue(changes.getRow(i), changes.getCol(i));
+            played |= changes.getCause(i) != BoardChanges.Cause.HINT;
+        }
+        if (played && !alwaysHintItem.isSelected()) {
+            hintLabel.setText("");
+        }
+        showChangedNotes();
+        showConflicts();
+        showNextHint();
+        showHistory();
+        showSolvability();
+    }
+
+    /**
+     * Redraws the cells whose value, notes or givens differ from the board shown before, of the same size
+     * @param shown The board shown before
+     */
+    private void showDifferences(SudokuBoard shown) {
+        model.pollChangedNotes(changedNotes);
+        for (int row = 0; row < model.getGridSize(); row++) {
+            for (int col = 0; col < model.getGridSize(); col++) {
+                if (model.getCurrentValue(row, col) != shown.getCurrentValue(row, col)
+                        || model.isCellImmutable(row, col) != shown.isCellImmutable(row, col)
+                        || model.getNotes(row, col) != shown.getNotes(row, col)) {
+                    showValue(row, col);
+                }
+            }
+        }
+        showConflicts();
+        showNextHint();
+        showHistory();
+        showSolvability();
+    }
+
+    /**
+     * Draws the value or the notes of a cell, highlighted if it conflicts or is where the next hint is
+     * @param row The row
+     * @param col The col
+     */
+    private void showValue(int row, int col) {
+        int highlight = model.isConflicting(row, col) ? BoardRenderer.CONFLICT
+                : row * model.getGridSize() + col == hintCell ? BoardRenderer.HINT : BoardRenderer.NORMAL;
+        renderer.drawCell(row, col, highlight);
+    }
+
+    /**
+     * Redraws the empty tiles whose notes changed, like the ones a placed number was taken out of
+     */
+    private void showChangedNotes() {
+        changedNotes.clear();
+        model.pollChangedNotes(changedNotes);
+        int gridSize = model.getGridSize();
+        for (int cell = changedNotes.nextSetBit(0); cell >= 0; cell = changedNotes.nextSetBit(cell + 1)) {
+            showValue(cell / gridSize, cell % gridSize);
+        }
+    }
+
+
+    /**
+     * Updates all the tiles
+     */
+    public void updateBoard(){
+        // every tile is redrawn, so the changed notes need no drawing of their own
+        model.pollChangedNotes(changedNotes);
+        for(int row = 0; row < model.getGridSize(); row++) {
+            for (int col = 0; col < model.getGridSize(); col++) {
+                showValue(row,col);
+            }
+        }
+        showConflicts();
+        showNextHint();
+        showHistory();
+        showSolvability();
+    }
+
+    /**
+     * Highlights the tiles of the cells whose value is repeated in their row, column or box.
+     * Only the tiles whose state changed since the last call are restyled.
+     */
+    private void showConflicts() {
+        BitSet conflicts = model.getConflicts();
+        BitSet changed = (BitSet) conflicts.clone();
+        changed.xor(shownConflicts);
+        int gridSize = model.getGridSize();
+        for (int cell = changed.nextSetBit(0); cell >= 0; cell = changed.nextSetBit(cell + 1)) {
+            showValue(cell / gridSize, cell % gridSize);
+        }
+        shownConflicts = conflicts;
+    }
+
+    /**
+     * Tells below the board if the values on it can still be completed to a solution
+     */
+    private void showSolvability() {
+        switch (model.checkSolvability()) {
+            case SOLVABLE:
+                statusLabel.setText("The board can still be solved");
+                break;
+            case UNSOLVABLE:
+                statusLabel.setText("The board can't be solved any more, a number is wrong");
+                break;
+            default:
+                statusLabel.setText("Could not tell in time if the board can still be solved");
+        }
+    }
+
+    /**
+     * Enables undo and redo when there is a move to undo or redo
+     */
+    private void showHistory() {
+        if (undoItem != null) {
+            undoItem.setDisable(!controller.canUndo());
+            redoItem.setDisable(!controller.canRedo());
+        }
+    }
+
+    /**
+     * Shows where the next hint is when hints are always shown, otherwise takes the highlight away
+     */
+    private void showNextHint() {
+        boolean always = alwaysHintItem != null && alwaysHintItem.isSelected();
+        HintEngine.Hint hint = always ? controller.nextHint() : null;
+        int cell = hint == null ? -1 : hint.getRow() * model.getGridSize() + hint.getCol();
+        if (always) {
+            hintLabel.setText(hint == null ? "" : hint.toString());
+        }
+        if (cell != hintCell) {
+            int oldCell = hintCell;
+            hintCell = cell;
+            int gridSize = model.getGridSize();
+            if (oldCell >= 0) {
+                showValue(oldCell / gridSize, oldCell % gridSize);
+            }
+            if (cell >= 0) {
+                showValue(cell / gridSize, cell % gridSize);
+            }
+        }
+    }
+
+    /**
+     * Checks if the board is full (all tiles have a value) then checks if the board is solved
+     * and alerts the user if his solution is the correct one or not
+     */
+    public void checkIfBoardFilled(){
+        if (model.isBoardFull()){
+            if (model.isGameOver()) {
+                Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                alert.setTitle("Information Dialog");
+                alert.setHeaderText(null);
+                alert.setContentText("All tiles are correct, puzzle is solved!");
+                alert.showAndWait();
+            }else{
+                Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                alert.setTitle("Information Dialog");
+                alert.setHeaderText(null);
+                alert.setContentText("Not solved correctly!");
+                alert.showAndWait();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of tiles that are currently placed
+     * @return The number of tiles
+     */
+    public int getNumberOfTilesPlaced(){
+        int count=0;
+        for(int row = 0; row < model.getGridSize(); row++) {
+            for (int col = 0; col < model.getGridSize(); col++) {
+                if (model.getGameBoardByPos(row,col).isImmutable()){
+                    if (model.getGameBoardByPos(row,col).getCurrentValue()!=0)
+                        count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sets a value to a tile depending on which button was pressed previously
+     * @param row The row of the clicked cell
+     * @param cols The col of the clicked cell
+     */
+    private void cellClicked(int row, int cols) {
+        if (notesButton.isSelected()) {
+            controller.noteEvent(buttonInput,row,cols);
+        } else {
+            controller.mouseEvent(buttonInput,row,cols);
+            checkIfBoardFilled();
+        }
+    }
+    /**
+     * gets the source of where the button was pressed
+     */
+    private EventHandler<ActionEvent> buttonHandler = new EventHandler<ActionEvent>() {
+        @Override
+        public void handle(ActionEvent actionEvent) {
+            Button sourceButton = (Button) actionEvent.getSource();
+            String buttonText = sourceButton.getText();
+
+            // Convert the button text to the number to place
+            if (buttonText.equals("C")) {
+                buttonInput = 0; // Use 0 to signify clearing a cell
+            } else {
+                buttonInput = Integer.parseInt(buttonText); // Store the number 1, 2, ... 25
+            }
+        }
+    };
+
+
+    /**
+     * Exits the program
+     */
+    private EventHandler<ActionEvent> ExitHandler = new EventHandler<ActionEvent>() {
+        @Override
+        public void handle(ActionEvent actionEvent) {
+            close();
+            System.exit(0);
+
+        }
+    };
+
+    /**
+     * Creates a new game with the same difficulty and updates the board
+     */
+    private EventHandler<ActionEvent> RestartHandler = new EventHandler<ActionEvent>() {
+        @Override
+        public void handle(ActionEvent actionEvent) {
+
+            startNewGame(model.getSectionSize(), model.getDifficulty());
+
+
+        }
+
+    };
+
+    /**
+     * Gives the user the opportunity to choose which difficulty to create the next game
+     * and updates the board
+     */
+    private  EventHandler<ActionEvent> LevelHandler = new EventHandler<ActionEvent>() {
+        @Override
+        public void handle(ActionEvent actionEvent) {
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+
+            ButtonType Easy = new ButtonType("Easy");
+            ButtonType Medium = new ButtonType("Medium");
+            ButtonType Hard = new ButtonType("Hard");
+            alert.getButtonTypes().setAll(Easy,Medium,Hard);
+
+            alert.setTitle("Information Dialog");
+            alert.setHeaderText(null);
+            alert.setContentText("Choose the difficulty");
+            Optional<ButtonType> choice = alert.showAndWait();
+            if (choice.get() == Easy){
+                startNewGame(model.getSectionSize(), SudokuLevel.EASY);
+            } else if (choice.get() == Medium){
+                startNewGame(model.getSectionSize(), SudokuLevel.MEDIUM);
+            } else if (choice.get() == Hard){
+                startNewGame(model.getSectionSize(), SudokuLevel.HARD);
+            }
+        }
+    };
+
+    /**
+     * Gives the user the opportunity to choose the size of the board of the next game
+     */
+    private  EventHandler<ActionEvent> SizeHandler = new EventHandler<ActionEvent>() {
+        @Override
+        public void handle(ActionEvent actionEvent) {
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+
+            ButtonType[] sizes = new ButtonType[MAX_SECTION_SIZE - SECTION_SIZE + 1];
+            for (int i = 0; i < sizes.length; i++) {
+                int gridSize = (SECTION_SIZE + i) * (SECTION_SIZE + i);
+                sizes[i] = new ButtonType(gridSize + "x" + gridSize);
+            }
+            alert.getButtonTypes().setAll(sizes);
+
+            alert.setTitle("Information Dialog");
+            alert.setHeaderText(null);
+            alert.setContentText("Choose the size of the board");
+            Optional<ButtonType> choice = alert.showAndWait();
+            for (int i = 0; i < sizes.length; i++) {
+                if (choice.isPresent() && choice.get() == sizes[i]) {
+                    startNewGame(SECTION_SIZE + i, model.getDifficulty());
+                }
+            }
+        }
+    };
+
+    /**
+     * Clears the values that have been palced on the board,
+     * the cleared cells are redrawn with the changes of the board
+     */
+    private EventHandler<ActionEvent> ClearHandler = new EventHandler<ActionEvent>() {
+        @Override
+        public void handle(ActionEvent actionEvent) {
+            controller.clearGame();
+        }
+    };
+
+    /**
+     * Undoes the last move, or all the cells of the last clear
+     */
+    private EventHandler<ActionEvent> UndoHandler = new EventHandler<ActionEvent>() {
+        @Override
+        public void handle(ActionEvent actionEvent) {
+            controller.undo();
+        }
+    };
+
+    /**
+     * Redoes the last undone move, then checks if the board is filled
+     */
+    private EventHandler<ActionEvent> RedoHandler = new EventHandler<ActionEvent>() {
+        @Override
+        public void handle(ActionEvent actionEvent) {
+            if (controller.redo()) {
+                checkIfBoardFilled();
+            }
+        }
+    };
+
+    /**
+     * When the "check" button is pressed, alert user if all currently placed
+     * tiles are correctly placed or not
+     */
+    private EventHandler<ActionEvent> CheckGameHandler = new EventHandler<ActionEvent>() {
+        @Override
+        public void handle(ActionEvent actionEvent) {
+            if (model.isFilledNumbersCorrect()){
+                Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                alert.setTitle("Information Dialog");
+                alert.setHeaderText(null);
+                alert.setContentText("All tiles are currently in their right position!");
+                alert.showAndWait();
+            }else{
+                Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                alert.setTitle("Information Dialog");
+                alert.setHeaderText(null);
+                alert.setContentText("One or more tiles are incorrect!");
+                alert.showAndWait();
+            }
+        }
+    };
+    /**
+     * Show brief rules of the game in the form of an alert.
+     */
+    private EventHandler<ActionEvent> RulesHandler = new EventHandler<ActionEvent>() {
+        @Override
+        public void handle(ActionEvent actionEvent) {
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("Information Dialog");
+            alert.setHeaderText("Sudoku Rules");
+            alert.setContentText("A 9×9 square must be filled in with numbers from 1-9 with no repeated numbers in each line, horizontally or vertically. \n To challenge you more, there are 3×3 squares marked out in the grid, and each of these squares can't have any repeat numbers either.");
+            alert.showAndWait();
+        }
+    };
+
+    /**
+     * Plays the next logical move on the board and tells which technique found it,
+     * then checks if the board is filled
+     */
+    private EventHandler<ActionEvent> HintHandler = new EventHandler<ActionEvent>() {
+        @Override
+        public void handle(ActionEvent actionEvent) {
+            HintEngine.Hint hint = controller.getHint();
+            // the hint is reused by the next one looked for, so it is described right away
+            if (!alwaysHintItem.isSelected()) {
+                hintLabel.setText(hint == null ? "" : hint.isMistake()
+                        ? "Corrected row " + (hint.getRow() + 1) + ", column " + (hint.getCol() + 1) + " to " + hint.getDigit()
+                        : hint.getDigit() + ": " + hint);
+            }
+            checkIfBoardFilled();
+        }
+    };
+
+    /**
+     * Notes the possible numbers in every empty cell, which are shown with the changes of the board
+     */
+    private EventHandler<ActionEvent> FillNotesHandler = new EventHandler<ActionEvent>() {
+        @Override
+        public void handle(ActionEvent actionEvent) {
+            controller.fillNotes();
+        }
+    };
+
+    /**
+     * Turns taking a placed number out of the notes of its row, column and box on or off
+     */
+    private EventHandler<ActionEvent> AutoNotesHandler = new EventHandler<ActionEvent>() {
+        @Override
+        public void handle(ActionEvent actionEvent) {
+            model.setAutoEliminateNotes(autoNotesItem.isSelected());
+        }
+    };
+
+    /**
+     * Turns showing the next hint after every move on or off
+     */
+    private EventHandler<ActionEvent> AlwaysHintHandler = new EventHandler<ActionEvent>() {
+        @Override
+        public void handle(ActionEvent actionEvent) {
+            if (!alwaysHintItem.isSelected()) {
+                hintLabel.setText("");
+            }
+            showNextHint();
+        }
+    };
+    /**
+     * Saves the current data on the board in the form of a .sudoku file in a location of your choosing.
+     * The file is written in the background while the game goes on.
+     */
+    private EventHandler<ActionEvent> SaveHandler = new EventHandler<ActionEvent>() {
+        @Override
+        public void handle(ActionEvent actionEvent) {
+            Task<Void> save = controller.saveGame();
+            if (save != null) {
+                followFileTask(save, "save the game", false, saved -> {});
+            }
+        }
+    };
+    /**
+     * Opens a file chooser so user can open any saved gamestate.
+     * The file is read in the background and the board takes no input until the game has been loaded.
+     */
+    private EventHandler<ActionEvent> LoadHandler = new EventHandler<ActionEvent>() {
+        @Override
+        public void handle(ActionEvent actionEvent) {
+            Task<SudokuBoard> load = controller.loadGame();
+            if (load != null) {
+                followFileTask(load, "load the game", true, loaded -> showBoard(loaded));
+            }
+
+        }
+    };
+    /**
+     * Asks for the name of a slot and saves the game to it in the save archive, replacing the game in a slot
+     * with the same name
+     */
+    private EventHandler<ActionEvent> SaveSlotHandler = new EventHandler<ActionEvent>() {
+        @Override
+        public void handle(ActionEvent actionEvent) {
+            TextInputDialog dialog = new TextInputDialog(String.format("Game %tF %<tR", System.currentTimeMillis()));
+            dialog.setTitle("Save to Slot");
+            dialog.setHeaderText(null);
+            dialog.setContentText("Name of the slot:");
+            Optional<String> name = dialog.showAndWait();
+            if (name.isPresent() && !name.get().trim().isEmpty()) {
+                followFileTask(controller.saveSlot(name.get().trim()), "save the game", false, saved -> {});
+            }
+        }
+    };
+    /**
+     * Lists the slots of the save archive and loads the one chosen.
+     * Only the index of the archive is read to list the slots, and only the chosen game to load it.
+     */
+    private EventHandler<ActionEvent> LoadSlotHandler = new EventHandler<ActionEvent>() {
+        @Override
+        public void handle(ActionEvent actionEvent) {
+            Task<List<SaveArchive.Slot>> listing = controller.listSlots();
+            followFileTask(listing, "list the saved games", false, slots -> {
+                if (slots.isEmpty()) {
+                    Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                    alert.setTitle("Information Dialog");
+                    alert.setHeaderText(null);
+                    alert.setContentText("There are no saved games in slots yet.");
+                    alert.showAndWait();
+                    return;
+                }
+                List<SaveArchive.Slot> newestFirst = new ArrayList<>(slots);
+                newestFirst.sort(Comparator.comparingLong(SaveArchive.Slot::getSavedAt).reversed());
+                ChoiceDialog<SaveArchive.Slot> dialog = new ChoiceDialog<>(newestFirst.get(0), newestFirst);
+                dialog.setTitle("Load from Slot");
+                dialog.setHeaderText(null);
+                dialog.setContentText("Saved game:");
+                Optional<SaveArchive.Slot> slot = dialog.showAndWait();
+                if (slot.isPresent()) {
+                    followFileTask(controller.loadSlot(slot.get()), "load the game", true, loaded -> showBoard(loaded));
+                }
+            });
+        }
+    };
+    /**
+     * Cancels the save or load that is running
+     */
+    private EventHandler<ActionEvent> CancelFileHandler = new EventHandler<ActionEvent>() {
+        @Override
+        public void handle(ActionEvent actionEvent) {
+            controller.cancelFileTask();
+        }
+    };
+
+    /**
+     * Shows the progress of a save or load until it is done and then reports how it went,
+     * with an error message if it failed.
+     * @param task The save or load
+     * @param action What the task does, such as "save the game", for the error message
+     * @param lockInput true to keep the board and the game menus disabled until the task is done
+     * @param onSuccess Receives the result of the task if it succeeds
+     */
+    private <T> void followFileTask(Task<T> task, String action, boolean lockInput, Consumer<T> onSuccess) {
+        fileProgress.progressProperty().bind(task.progressProperty());
+        fileProgress.setVisible(true);
+        setFileTaskRunning(true, lockInput);
+
+        task.setOnSucceeded(event -> {
+            setFileTaskRunning(false, lockInput);
+            onSuccess.accept(task.getValue());
+        });
+        task.setOnCancelled(event -> setFileTaskRunning(false, lockInput));
+        task.setOnFailed(event -> {
+            setFileTaskRunning(false, lockInput);
+            Throwable error = task.getException();
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Error Dialog");
+            alert.setHeaderText("Could not " + action);
+            alert.setContentText(error instanceof NoSuchFileException ? "The file does not exist." : String.valueOf(error.getMessage()));
+            alert.showAndWait();
+        });
+    }
+
+    /**
+     * Enables the cancel menu item while a save or load runs and the other file menu items when none does
+     * @param running true when a save or load starts
+     * @param lockInput true to disable the board and the game menus as well
+     */
+    private void setFileTaskRunning(boolean running, boolean lockInput) {
+        loadGameItem.setDisable(running);
+        saveGameItem.setDisable(running);
+        loadSlotItem.setDisable(running);
+        saveSlotItem.setDisable(running);
+        cancelFileItem.setDisable(!running);
+        if (!running) {
+            fileProgress.progressProperty().unbind();
+            fileProgress.setVisible(false);
+        }
+        if (lockInput) {
+            setDisable(running);
+            editMenu.setDisable(running);
+            gameMenu.setDisable(running);
+            helpMenu.setDisable(running);
+        }
+        if (!running && noGame) {
+            setNoGame(true); // a failed or cancelled load leaves no game to play
+        }
+    }
+
+    /**
+     * Creates the menu bar and all its contents
+     */
+    public void createMenuBar(){
+        Menu fileMenu = new Menu("File");
+        loadGameItem = new MenuItem("Load Game");
+        loadGameItem.addEventHandler(ActionEvent.ACTION,LoadHandler);
+        saveGameItem = new MenuItem("Save Game");
+        saveGameItem.addEventHandler(ActionEvent.ACTION,SaveHandler);
+        saveSlotItem = new MenuItem("Save to Slot...");
+        saveSlotItem.addEventHandler(ActionEvent.ACTION,SaveSlotHandler);
+        loadSlotItem = new MenuItem("Load from Slot...");
+        loadSlotItem.addEventHandler(ActionEvent.ACTION,LoadSlotHandler);
+        cancelFileItem = new MenuItem("Cancel Save/Load");
+        cancelFileItem.addEventHandler(ActionEvent.ACTION,CancelFileHandler);
+        cancelFileItem.setDisable(true);
+
+        MenuItem exitItem = new MenuItem("Exit");
+        exitItem.addEventHandler(ActionEvent.ACTION, ExitHandler);
+        fileMenu.getItems().addAll(loadGameItem,saveGameItem,loadSlotItem,saveSlotItem,cancelFileItem,exitItem);
+
+        Menu EditMenu = new Menu("Edit");
+        undoItem = new MenuItem("Undo");
+        undoItem.setAccelerator(new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN));
+        undoItem.addEventHandler(ActionEvent.ACTION, UndoHandler);
+        redoItem = new MenuItem("Redo");
+        redoItem.setAccelerator(new KeyCodeCombination(KeyCode.Y, KeyCombination.SHORTCUT_DOWN));
+        redoItem.addEventHandler(ActionEvent.ACTION, RedoHandler);
+        EditMenu.getItems().addAll(undoItem,redoItem);
+        editMenu = EditMenu;
+
+        Menu GameMenu = new Menu("Game");
+        MenuItem RestartGame = new MenuItem("Restart");
+        RestartGame.addEventHandler(ActionEvent.ACTION, RestartHandler);
+        MenuItem GameLevel = new MenuItem("Choose Level");
+        GameLevel.addEventHandler(ActionEvent.ACTION, LevelHandler);
+        MenuItem GameSize = new MenuItem("Choose Size");
+        GameSize.addEventHandler(ActionEvent.ACTION, SizeHandler);
+        GameMenu.getItems().addAll(RestartGame,GameLevel,GameSize);
+
+        Menu HelpMenu = new Menu("Help");
+        MenuItem clear = new MenuItem("Clear");
+        clear.addEventHandler(ActionEvent.ACTION, ClearHandler);
+        MenuItem checkGame = new MenuItem("Check game");
+        checkGame.addEventHandler(ActionEvent.ACTION,CheckGameHandler);
+        MenuItem GamesRules = new MenuItem("Rules");
+        GamesRules.addEventHandler(ActionEvent.ACTION,RulesHandler);
+        MenuItem fillNotes = new MenuItem("Fill In Notes");
+        fillNotes.addEventHandler(ActionEvent.ACTION,FillNotesHandler);
+        autoNotesItem = new CheckMenuItem("Remove Notes Automatically");
+        autoNotesItem.setSelected(model.isAutoEliminateNotes());
+        autoNotesItem.addEventHandler(ActionEvent.ACTION,AutoNotesHandler);
+        alwaysHintItem = new CheckMenuItem("Always Show Next Hint");
+        alwaysHintItem.addEventHandler(ActionEvent.ACTION,AlwaysHintHandler);
+        HelpMenu.getItems().addAll(clear,checkGame,fillNotes,autoNotesItem,alwaysHintItem,GamesRules);
+        gameMenu = GameMenu;
+        helpMenu = HelpMenu;
+
+
+        menuBar = new MenuBar();
+        menuBar.getMenus().addAll(fileMenu,EditMenu,GameMenu,HelpMenu);
+        showHistory();
+    }
+
+    /**
+     * Returns the menu bar
+     * @return The menubar
+     */
+    public MenuBar getMenuBar(){
+        return this.menuBar;
+    }
+
+
+}
+
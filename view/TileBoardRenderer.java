@@ -0,0 +1,167 @@
+package javafx.fxtest.model.view;
+
+import javafx.fxtest.model.model.SudokuBoard;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.layout.TilePane;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+
+/**
+ * Draws a board as one styled {@link Label} per cell, in a {@link TilePane} per box.
+ * Kept for comparison with the {@link CanvasBoardRenderer}; chosen with the system property sudoku.renderer=tiles.
+ */
+class TileBoardRenderer implements BoardRenderer {
+
+    private static final String TILE_STYLE = "-fx-border-color: black; -fx-border-width: 0.5px;";
+    private static final String CONFLICT_TILE_STYLE = TILE_STYLE + " -fx-background-color: #ffd6d6; -fx-text-fill: #c00000;";
+    private static final String HINT_TILE_STYLE = TILE_STYLE + " -fx-background-color: #fff3b0;";
+
+    private SudokuBoard model;
+    private Label[][] numberTiles; // the tiles/squares to show in the ui grid
+    private TilePane numberPane;
+    private CellClickListener listener;
+    private Font valueFont;
+    private Font noteFont;
+    private String[] noteTexts; // the text of each set of notes on a board of up to 9 digits, made when first shown
+
+    @Override
+    public Node getNode() {
+        return numberPane;
+    }
+
+    @Override
+    public void setBoard(SudokuBoard board) {
+        boolean resized = model == null || board.getGridSize() != model.getGridSize();
+        model = board;
+        if (resized) {
+            numberTiles = new Label[model.getGridSize()][model.getGridSize()];
+            initNumberTiles();
+            numberPane = makeNumberPane();
+        }
+    }
+
+    @Override
+    public void setOnCellClicked(CellClickListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * creates the view aspect of the tiles, their height and appearance.
+     */
+    private void initNumberTiles() {
+        // smaller tiles for the bigger boards so a 25x25 board still fits on the screen
+        int tileSize = model.getGridSize() <= 9 ? 32 : model.getGridSize() <= 16 ? 28 : 24;
+        valueFont = Font.font("Monospaced", FontWeight.NORMAL, model.getGridSize() <= 9 ? 20 : 13);
+        // the notes are written in sectionSize lines of sectionSize digits
+        noteFont = Font.font("Monospaced", FontWeight.NORMAL, Math.max(4, tileSize / (model.getSectionSize() * 1.3)));
+        noteTexts = new String[model.getGridSize() <= 9 ? 1 << model.getGridSize() : 0];
+
+        for (int row = 0; row < model.getGridSize(); row++) {
+            for (int col = 0; col < model.getGridSize(); col++) {
+                Label tile = new Label("");
+                tile.setPrefWidth(tileSize);
+                tile.setPrefHeight(tileSize);
+                tile.setFont(valueFont);
+                tile.setAlignment(Pos.CENTER);
+                tile.setStyle(TILE_STYLE); // css style
+                int tileRow = row;
+                int tileCol = col;
+                tile.setOnMouseClicked(event -> {
+                    if (listener != null) {
+                        listener.cellClicked(tileRow, tileCol);
+                    }
+                });
+
+                // add new tile to grid
+                numberTiles[row][col] = tile;
+            }
+        }
+    }
+
+    /**
+     * Creates the tiles that show on the border pane
+     * @return The TilePane
+     */
+    private TilePane makeNumberPane() {
+        // create the root tile pane
+        int sectionSize = model.getSectionSize();
+        TilePane root = new TilePane();
+        root.setPrefColumns(sectionSize);
+        root.setPrefRows(sectionSize);
+        root.setStyle(
+                "-fx-border-color: black; -fx-border-width: 1.0px; -fx-background-color: white;");
+
+        // create the sections (3*3 on a standard board) and add the number tiles
+        for (int srow = 0; srow < sectionSize; srow++) {
+            for (int scol = 0; scol < sectionSize; scol++) {
+                TilePane section = new TilePane();
+                section.setPrefColumns(sectionSize);
+                section.setPrefRows(sectionSize);
+                section.setStyle( "-fx-border-color: black; -fx-border-width: 0.5px;");
+
+                // add number tiles to this section
+                for (int row = 0; row < sectionSize; row++) {
+                    for (int col = 0; col < sectionSize; col++) {
+                        // calculate which tile and add
+                        section.getChildren().add(
+                                numberTiles[srow * sectionSize + row][scol * sectionSize + col]);
+                    }
+                }
+
+                // add the section to the root tile pane
+                root.getChildren().add(section);
+            }
+        }
+
+        return root;
+    }
+
+    @Override
+    public void drawCell(int row, int col, int highlight) {
+        Label tile = numberTiles[row][col];
+        if (model.getCurrentValue(row, col) == 0 && !model.isCellImmutable(row, col)) {
+            int notes = model.getNotes(row, col);
+            tile.setFont(notes == 0 ? valueFont : noteFont);
+            tile.setText(notes == 0 ? "" : noteText(notes));
+        } else {
+            tile.setFont(valueFont);
+            tile.setText(Integer.toString(model.getCurrentValue(row, col)));
+        }
+        tile.setStyle(highlight == CONFLICT ? CONFLICT_TILE_STYLE : highlight == HINT ? HINT_TILE_STYLE : TILE_STYLE);
+    }
+
+    /**
+     * Returns the text showing a set of notes, each digit in its own place of a sectionSize x sectionSize square
+     * @param notes The notes, bit n - 1 for digit n
+     * @return The text
+     */
+    private String noteText(int notes) {
+        if (notes < noteTexts.length && noteTexts[notes] != null) {
+            return noteTexts[notes];
+        }
+        int sectionSize = model.getSectionSize();
+        int width = Integer.toString(model.getGridSize()).length();
+        StringBuilder text = new StringBuilder();
+        for (int digit = 1; digit <= model.getGridSize(); digit++) {
+            String shown = (notes & 1 << (digit - 1)) != 0 ? Integer.toString(digit) : "";
+            for (int i = shown.length(); i < width; i++) {
+                text.append(' ');
+            }
+            text.append(shown);
+            if (digit % sectionSize == 0) {
+                if (digit < model.getGridSize()) {
+                    text.append('\n');
+                }
+            } else if (width > 1) {
+                text.append(' ');
+            }
+        }
+        String result = text.toString();
+        if (notes < noteTexts.length) {
+            noteTexts[notes] = result;
+        }
+        return result;
+    }
+}